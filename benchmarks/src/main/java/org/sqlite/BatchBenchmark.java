@@ -0,0 +1,93 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.core.Backend;
+
+/**
+ * <code>executeBatch()</code> of single-row INSERTs through the JDBC layer, committed as one
+ * transaction. {@link org.sqlite.core.InsertBatchBenchmark} measures the same without the JDBC
+ * layer.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar BatchBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    private TempDatabase file;
+    private Connection conn;
+    private PreparedStatement insert;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(JournalMode.WAL);
+        config.setSynchronous(SynchronousMode.NORMAL);
+        file = new TempDatabase();
+        conn = backend.connect(file.url(), config);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY, name TEXT, amount REAL)");
+        }
+        insert = conn.prepareStatement("INSERT INTO t VALUES (?, ?, ?)");
+        conn.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws Exception {
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("DELETE FROM t");
+        }
+        conn.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        insert.close();
+        conn.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public int[] executeBatch() throws Exception {
+        for (int i = 0; i < batchSize; i++) {
+            insert.setLong(1, ++id);
+            insert.setString(2, "name " + id);
+            insert.setDouble(3, id / 100.0);
+            insert.addBatch();
+        }
+        int[] counts = insert.executeBatch();
+        conn.commit();
+        return counts;
+    }
+}
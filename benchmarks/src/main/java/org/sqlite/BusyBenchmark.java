@@ -0,0 +1,106 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.core.Backend;
+
+/**
+ * Several threads, each with its own connection, inserting into the same database file in
+ * auto-commit mode. Writers are serialized by the database lock, so this measures the time spent in
+ * the busy handler and the fairness between connections, or with <code>writeQueue</code> in the
+ * queue of the driver. Change the number of writers with <code>-t</code>:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar BusyBenchmark -t 16
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@Threads(4)
+public class BusyBenchmark {
+
+    /** The database shared by all writers. */
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"JNI", "FFM"})
+        public Backend backend;
+
+        /** Whether writers wait in the queue of the driver instead of the busy handler. */
+        @Param({"false", "true"})
+        public boolean writeQueue;
+
+        private TempDatabase file;
+        private final AtomicLong ids = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            file = new TempDatabase();
+            try (Connection conn = backend.connect(file.url(), config());
+                    Statement stat = conn.createStatement()) {
+                stat.executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY, writer TEXT)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            file.delete();
+        }
+
+        SQLiteConfig config() {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(JournalMode.WAL);
+            config.setSynchronous(SynchronousMode.NORMAL);
+            config.setBusyTimeout(60_000);
+            config.setWriteQueue(writeQueue);
+            return config;
+        }
+    }
+
+    /** The connection of one writer. */
+    @State(Scope.Thread)
+    public static class Writer {
+        private Connection conn;
+        private PreparedStatement insert;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) throws Exception {
+            conn = database.backend.connect(database.file.url(), database.config());
+            insert = conn.prepareStatement("INSERT INTO t VALUES (?, ?)");
+            insert.setString(2, Thread.currentThread().getName());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            insert.close();
+            conn.close();
+        }
+    }
+
+    @Benchmark
+    public int insert(Database database, Writer writer) throws Exception {
+        writer.insert.setLong(1, database.ids.incrementAndGet());
+        return writer.insert.executeUpdate();
+    }
+}
@@ -0,0 +1,74 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.core.Backend;
+
+/**
+ * Opening and closing a connection, including the pragmas applied by {@link SQLiteConfig}.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar ConnectionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class ConnectionBenchmark {
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    /** an in-memory database, or a file with a table so that the schema is read */
+    @Param({"memory", "file"})
+    public String database;
+
+    private TempDatabase file;
+    private SQLiteConfig config;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        config = new SQLiteConfig();
+        if (database.equals("file")) {
+            file = new TempDatabase();
+            url = file.url();
+            try (Connection conn = backend.connect(url, config)) {
+                conn.createStatement().executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY)");
+            }
+        } else {
+            url = "jdbc:sqlite::memory:";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public boolean openClose() throws Exception {
+        try (Connection conn = backend.connect(url, config)) {
+            // reads the schema of a file database
+            return conn.prepareStatement("SELECT 1").isClosed();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.core.Backend;
+
+/**
+ * A query calling a scalar Java {@link Function} once per row, which measures the upcall from
+ * SQLite into the JVM and the access to its arguments and result.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar FunctionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class FunctionBenchmark {
+
+    private static final int ROWS = 1000;
+
+    // not FFM: its value_* functions are stubs that do not read the arguments yet
+    @Param({"JNI"})
+    public Backend backend;
+
+    private Connection conn;
+    private PreparedStatement longQuery;
+    private PreparedStatement textQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        conn = backend.connect("jdbc:sqlite::memory:", new SQLiteConfig());
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("CREATE TABLE t (l INTEGER, s TEXT)");
+            stat.executeUpdate(
+                    "INSERT INTO t WITH RECURSIVE r(x) AS"
+                            + " (SELECT 1 UNION ALL SELECT x + 1 FROM r WHERE x < "
+                            + ROWS
+                            + ") SELECT x, 'text value ' || x FROM r");
+        }
+        Function.create(
+                conn,
+                "twice",
+                new Function() {
+                    @Override
+                    public void xFunc() throws SQLException {
+                        result(value_long(0) * 2);
+                    }
+                },
+                1,
+                Function.FLAG_DETERMINISTIC);
+        Function.create(
+                conn,
+                "text_length",
+                new Function() {
+                    @Override
+                    public void xFunc() throws SQLException {
+                        result(value_text(0).length());
+                    }
+                },
+                1,
+                Function.FLAG_DETERMINISTIC);
+        longQuery = conn.prepareStatement("SELECT sum(twice(l)) FROM t");
+        textQuery = conn.prepareStatement("SELECT sum(text_length(s)) FROM t");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        longQuery.close();
+        textQuery.close();
+        conn.close();
+    }
+
+    @Benchmark
+    public long longArgument() throws Exception {
+        try (ResultSet rs = longQuery.executeQuery()) {
+            return rs.getLong(1);
+        }
+    }
+
+    @Benchmark
+    public long textArgument() throws Exception {
+        try (ResultSet rs = textQuery.executeQuery()) {
+            return rs.getLong(1);
+        }
+    }
+}
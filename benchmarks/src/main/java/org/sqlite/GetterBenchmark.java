@@ -0,0 +1,75 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.core.Backend;
+
+/**
+ * A single getter call on a result set that stays on its first row, so that nothing else is
+ * measured. The primitive getters must not allocate; check that <code>gc.alloc.rate.norm</code>
+ * is 0 B/op with the GC profiler:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar GetterBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class GetterBenchmark {
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    private Connection conn;
+    private Statement stat;
+    private ResultSet rs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        conn = backend.connect("jdbc:sqlite::memory:", new SQLiteConfig());
+        stat = conn.createStatement();
+        rs = stat.executeQuery("SELECT 42, 1000000007 * 1000000007, 1.5");
+        rs.next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        rs.close();
+        stat.close();
+        conn.close();
+    }
+
+    @Benchmark
+    public int getInt() throws Exception {
+        return rs.getInt(1);
+    }
+
+    @Benchmark
+    public long getLong() throws Exception {
+        return rs.getLong(2);
+    }
+
+    @Benchmark
+    public double getDouble() throws Exception {
+        return rs.getDouble(3);
+    }
+}
@@ -0,0 +1,95 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.core.Backend;
+
+/**
+ * Many threads sharing one connection, each inserting a row with <code>executeUpdate()</code> in
+ * auto-commit mode, into a database file in WAL mode with the default <code>synchronous=FULL
+ * </code>. Without group commit every INSERT waits for its own commit; with a window the commits of
+ * the threads are batched. Change the number of writers with <code>-t</code>:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar GroupCommitBenchmark -t 64
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@Threads(64)
+public class GroupCommitBenchmark {
+
+    /** The connection shared by all writers. */
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"JNI", "FFM"})
+        public Backend backend;
+
+        /** The group commit window in microseconds, 0 to commit each update on its own. */
+        @Param({"0", "500"})
+        public int window;
+
+        private TempDatabase file;
+        private Connection conn;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(JournalMode.WAL);
+            config.setGroupCommitWindow(window);
+            file = new TempDatabase();
+            conn = backend.connect(file.url(), config);
+            try (Statement stat = conn.createStatement()) {
+                stat.executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY, name TEXT)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            conn.close();
+            file.delete();
+        }
+    }
+
+    /** The statement of one writer. */
+    @State(Scope.Thread)
+    public static class Writer {
+        private PreparedStatement insert;
+
+        @Setup(Level.Trial)
+        public void setUp(Database db) throws Exception {
+            insert = db.conn.prepareStatement("INSERT INTO t (name) VALUES (?)");
+            insert.setString(1, Thread.currentThread().getName());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            insert.close();
+        }
+    }
+
+    @Benchmark
+    public int insert(Writer writer) throws Exception {
+        return writer.insert.executeUpdate();
+    }
+}
@@ -0,0 +1,85 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.core.Backend;
+
+/**
+ * Preparing and closing a statement, with and without the statement cache.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar PrepareBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class PrepareBenchmark {
+
+    private static final String LOOKUP = "SELECT name FROM customer WHERE id = ?";
+
+    private static final String JOIN =
+            "SELECT c.name, count(o.id), sum(o.total) FROM customer c"
+                    + " JOIN orders o ON o.customer = c.id"
+                    + " WHERE c.created > ? AND o.total > ?"
+                    + " GROUP BY c.id ORDER BY 3 DESC LIMIT 10";
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    @Param({"0", "16"})
+    public int statementCacheSize;
+
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setStatementCacheSize(statementCacheSize);
+        conn = backend.connect("jdbc:sqlite::memory:", config);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate(
+                    "CREATE TABLE customer (id INTEGER PRIMARY KEY, name TEXT, created INTEGER)");
+            stat.executeUpdate(
+                    "CREATE TABLE orders (id INTEGER PRIMARY KEY, customer INTEGER, total REAL)");
+            stat.executeUpdate("CREATE INDEX orders_customer ON orders (customer)");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Benchmark
+    public PreparedStatement prepareLookup() throws Exception {
+        PreparedStatement prep = conn.prepareStatement(LOOKUP);
+        prep.close();
+        return prep;
+    }
+
+    @Benchmark
+    public PreparedStatement prepareJoin() throws Exception {
+        PreparedStatement prep = conn.prepareStatement(JOIN);
+        prep.close();
+        return prep;
+    }
+}
@@ -0,0 +1,147 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sqlite.core.Backend;
+
+/**
+ * <code>executeQuery()</code> and a full scan of the result, once per getter type. Run with the GC
+ * profiler to see the allocation per scan:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar QueryBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class QueryBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    @Param({"0", "1000"})
+    public int fetchSize;
+
+    @Param({"false", "true"})
+    public boolean threadConfined;
+
+    @Param({"32", "4096"})
+    public int blobSize;
+
+    private Connection conn;
+    private PreparedStatement query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setThreadConfined(threadConfined);
+        conn = backend.connect("jdbc:sqlite::memory:", config);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("CREATE TABLE t (i INTEGER, l INTEGER, d REAL, s TEXT, b BLOB)");
+            stat.executeUpdate(
+                    "INSERT INTO t WITH RECURSIVE r(x) AS"
+                            + " (SELECT 1 UNION ALL SELECT x + 1 FROM r WHERE x < "
+                            + ROWS
+                            + ") SELECT x, x * 1000000007, x / 7.0, 'text value ' || x,"
+                            + " randomblob("
+                            + blobSize
+                            + ") FROM r");
+        }
+        query = conn.prepareStatement("SELECT i, l, d, s, b FROM t");
+        query.setFetchSize(fetchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        query.close();
+        conn.close();
+    }
+
+    @Benchmark
+    public void getInt(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getInt(1));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getLong(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getLong(2));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getDouble(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getDouble(3));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getString(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getString(4));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getBytes(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getBytes(5));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getBlobBuffer(Blackhole bh) throws Exception {
+        try (SQLiteResultSet rs = query.executeQuery().unwrap(SQLiteResultSet.class)) {
+            while (rs.next()) {
+                bh.consume(rs.getBlobBuffer(5));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getObject(Blackhole bh) throws Exception {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                for (int col = 1; col <= 5; col++) {
+                    bh.consume(rs.getObject(col));
+                }
+            }
+        }
+    }
+}
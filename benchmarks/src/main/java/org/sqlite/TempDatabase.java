@@ -0,0 +1,26 @@
+package org.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** A database file in the temporary directory, deleted with its journal files after a trial. */
+final class TempDatabase {
+    private final Path file;
+
+    TempDatabase() throws IOException {
+        file = Files.createTempFile("sqlite-jdbc-benchmark", ".db");
+    }
+
+    /** @return the JDBC url of the database. */
+    String url() {
+        return "jdbc:sqlite:" + file;
+    }
+
+    void delete() throws IOException {
+        for (String suffix : new String[] {"", "-journal", "-wal", "-shm"}) {
+            Files.deleteIfExists(Paths.get(file + suffix));
+        }
+    }
+}
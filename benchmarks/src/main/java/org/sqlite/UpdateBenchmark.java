@@ -0,0 +1,110 @@
+package org.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.core.Backend;
+
+/**
+ * Single-row <code>executeUpdate()</code> in auto-commit mode, so each INSERT is its own
+ * transaction. The database is a file in WAL mode with <code>synchronous=NORMAL</code>, so a commit
+ * does not wait for an fsync and the driver's own overhead per transaction shows.
+ *
+ * <p><code>executeUpdateWhileReading</code> runs the INSERT while a cursor is open on the same
+ * connection, the case where the driver still has to commit after the statement.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar UpdateBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class UpdateBenchmark {
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    private TempDatabase file;
+    private Connection conn;
+    private PreparedStatement insert;
+    private Statement reader;
+    private ResultSet cursor;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(JournalMode.WAL);
+        config.setSynchronous(SynchronousMode.NORMAL);
+        file = new TempDatabase();
+        conn = backend.connect(file.url(), config);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY, name TEXT, amount REAL)");
+        }
+        insert = conn.prepareStatement("INSERT INTO t VALUES (?, ?, ?)");
+        reader = conn.createStatement();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws Exception {
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("DELETE FROM t");
+            stat.executeUpdate("INSERT INTO t VALUES (0, 'cursor', 0)");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeCursor() throws Exception {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        insert.close();
+        reader.close();
+        conn.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public int executeUpdateAutoCommit() throws Exception {
+        insert.setLong(1, ++id);
+        insert.setString(2, "name " + id);
+        insert.setDouble(3, id / 100.0);
+        return insert.executeUpdate();
+    }
+
+    @Benchmark
+    public int executeUpdateWhileReading() throws Exception {
+        // the cursor stays open on the first row for the rest of the iteration
+        if (cursor == null) {
+            cursor = reader.executeQuery("SELECT id FROM t");
+            cursor.next();
+        }
+        return executeUpdateAutoCommit();
+    }
+}
@@ -0,0 +1,65 @@
+package org.sqlite.core;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+import org.sqlite.SQLiteConfig;
+
+/** The native backends that can be benchmarked against each other. */
+public enum Backend {
+    /** The JNI backend, {@link NativeDB}. */
+    JNI {
+        @Override
+        DB create(String url, String fileName, SQLiteConfig config) throws Exception {
+            if (!NativeDB.load()) {
+                throw new IllegalStateException("Unable to load the native sqlite library");
+            }
+            return new NativeDB(url, fileName, config);
+        }
+    },
+    /** The Foreign Function &amp; Memory backend, {@link ForeignDB}. */
+    FFM {
+        @Override
+        DB create(String url, String fileName, SQLiteConfig config) throws SQLException {
+            return new ForeignDB(url, fileName, config);
+        }
+    };
+
+    abstract DB create(String url, String fileName, SQLiteConfig config) throws Exception;
+
+    /**
+     * Opens a database with this backend, bypassing the JDBC layer.
+     *
+     * @param fileName the database file, or <code>:memory:</code>
+     * @return the opened database
+     */
+    public DB open(String fileName) throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        DB db = create("jdbc:sqlite:" + fileName, fileName, config);
+        db.open(fileName, config.getOpenModeFlags());
+        return db;
+    }
+
+    /**
+     * Opens a JDBC connection with this backend. The backend is selected with the <code>
+     * org.sqlite.backend</code> system property, so all connections of a fork use the same one.
+     *
+     * @param url the JDBC url
+     * @param config the connection configuration
+     * @return the opened connection
+     */
+    public Connection connect(String url, SQLiteConfig config) throws SQLException {
+        System.setProperty("org.sqlite.backend", name().toLowerCase(Locale.ROOT));
+        return config.createConnection(url);
+    }
+
+    /**
+     * Returns the raw statement pointer of a prepared statement.
+     *
+     * @param stmt the prepared statement
+     * @return the <code>sqlite3_stmt*</code> as long
+     */
+    public static long pointer(SafeStmtPtr stmt) throws SQLException {
+        return stmt.safeRunLong((db, ptr) -> ptr);
+    }
+}
@@ -0,0 +1,87 @@
+package org.sqlite.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and allocation of a batch of 10-parameter INSERTs, which exercises the marshalling of
+ * text and blob parameters. Run with the GC profiler to see the allocation per batch:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar InsertBatchBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class InsertBatchBenchmark {
+
+    private static final int PARAMS = 10;
+    private static final String INSERT_SQL =
+            "INSERT INTO batch VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    @Param({"1", "100", "10000"})
+    public int batchSize;
+
+    private DB db;
+    private SafeStmtPtr insert;
+    private ParameterBuffer batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = backend.open(":memory:");
+        db._exec(
+                "CREATE TABLE batch (t1 TEXT, t2 TEXT, t3 TEXT, t4 TEXT, b1 BLOB, b2 BLOB,"
+                        + " l1 INTEGER, l2 INTEGER, d1 REAL, d2 REAL)");
+        insert = db.prepare(INSERT_SQL);
+
+        batch = new ParameterBuffer(batchSize * PARAMS);
+        for (int row = 0; row < batchSize; row++) {
+            int i = row * PARAMS;
+            batch.setText(i, "row " + row);
+            batch.setText(i + 1, "a somewhat longer text value for row " + row);
+            batch.setText(i + 2, "été ☃ " + row);
+            batch.setText(i + 3, "");
+            batch.setBlob(i + 4, new byte[16]);
+            batch.setBlob(i + 5, new byte[256]);
+            batch.setLong(i + 6, row);
+            batch.setLong(i + 7, Long.MAX_VALUE - row);
+            batch.setDouble(i + 8, row / 3.0);
+            batch.setDouble(i + 9, Math.PI * row);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws Exception {
+        db._exec("DELETE FROM batch");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        insert.close();
+        db.close();
+    }
+
+    @Benchmark
+    public long[] executeBatch() throws Exception {
+        return db.executeBatch(insert, INSERT_SQL, batchSize, batch, true);
+    }
+}
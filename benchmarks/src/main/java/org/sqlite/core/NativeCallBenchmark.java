@@ -0,0 +1,87 @@
+package org.sqlite.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call overhead of the hottest native entry points, measured directly on {@link DB} so that
+ * the JDBC layer does not hide the cost of the downcall itself.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar NativeCallBenchmark
+ * </pre>
+ *
+ * <p>To measure the FFM backend with critical downcalls, pass the system property to the forks:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar NativeCallBenchmark -jvmArgsAppend -Dorg.sqlite.ffm.critical=true
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class NativeCallBenchmark {
+
+    /** Produces an endless stream of rows, so that step() never hits SQLITE_DONE. */
+    private static final String SEQUENCE =
+            "WITH RECURSIVE seq(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM seq) SELECT x FROM seq";
+
+    @Param({"JNI", "FFM"})
+    public Backend backend;
+
+    private DB db;
+    private SafeStmtPtr sequence;
+    private SafeStmtPtr parameter;
+    private long sequencePtr;
+    private long parameterPtr;
+    private long value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = backend.open(":memory:");
+        sequence = db.prepare(SEQUENCE);
+        parameter = db.prepare("SELECT ?");
+        sequencePtr = Backend.pointer(sequence);
+        parameterPtr = Backend.pointer(parameter);
+
+        // position the cursor on the first row for column_int
+        db.step(sequencePtr);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sequence.close();
+        parameter.close();
+        db.close();
+    }
+
+    @Benchmark
+    public int step() throws Exception {
+        return db.step(sequencePtr);
+    }
+
+    @Benchmark
+    public int column_int() throws Exception {
+        return db.column_int(sequencePtr, 0);
+    }
+
+    @Benchmark
+    public int bind_long() throws Exception {
+        return db.bind_long(parameterPtr, 1, value++);
+    }
+}
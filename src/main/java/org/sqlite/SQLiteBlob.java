@@ -0,0 +1,208 @@
+package org.sqlite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import org.sqlite.core.SafeBlobPtr;
+
+/**
+ * A {@link Blob} that reads and writes a BLOB value of a row in place with <a
+ * href="https://www.sqlite.org/c3ref/blob.html">incremental BLOB I/O</a>, instead of holding a copy
+ * of it. Its streams and {@link #getChannel() channel} transfer the value in chunks, so a large
+ * value does not need to fit in memory.
+ *
+ * <p>The length of the BLOB is fixed: {@link #setBytes(long, byte[])} and the stream of {@link
+ * #setBinaryStream(long)} overwrite bytes and fail past the end. While it is open, the BLOB keeps
+ * a transaction open on the connection if it is in auto-commit mode; call {@link #free()} when
+ * done.
+ *
+ * @see SQLiteConnection#openBlob(String, String, String, long, boolean)
+ */
+public class SQLiteBlob implements Blob {
+    private final SafeBlobPtr blob;
+    private final SQLiteBlobChannel channel;
+
+    SQLiteBlob(SafeBlobPtr blob, boolean writable) throws SQLException {
+        this.blob = blob;
+        this.channel = new SQLiteBlobChannel(blob, writable);
+    }
+
+    /**
+     * @return a channel over the same BLOB handle, closed by {@link #free()}; closing the channel
+     *     frees this BLOB
+     */
+    public SQLiteBlobChannel getChannel() {
+        return channel;
+    }
+
+    /** @see java.sql.Blob#length() */
+    public long length() throws SQLException {
+        return blob.bytes();
+    }
+
+    /** @see java.sql.Blob#getBytes(long, int) */
+    public byte[] getBytes(long pos, int length) throws SQLException {
+        int offset = offset(pos);
+        if (length < 0) {
+            throw new SQLException("Length should be non-negative");
+        }
+        byte[] bytes = new byte[Math.max(0, Math.min(length, blob.bytes() - offset))];
+        blob.read(bytes, 0, bytes.length, offset);
+        return bytes;
+    }
+
+    /** @see java.sql.Blob#getBinaryStream() */
+    public InputStream getBinaryStream() throws SQLException {
+        return new BlobInputStream(0, blob.bytes());
+    }
+
+    /** @see java.sql.Blob#getBinaryStream(long, long) */
+    public InputStream getBinaryStream(long pos, long length) throws SQLException {
+        int offset = offset(pos);
+        if (length < 0 || offset + length > blob.bytes()) {
+            throw new SQLException("Range is not within the blob");
+        }
+        return new BlobInputStream(offset, offset + (int) length);
+    }
+
+    /** @see java.sql.Blob#setBytes(long, byte[]) */
+    public int setBytes(long pos, byte[] bytes) throws SQLException {
+        return setBytes(pos, bytes, 0, bytes.length);
+    }
+
+    /** @see java.sql.Blob#setBytes(long, byte[], int, int) */
+    public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+        blob.write(bytes, offset, len, offset(pos));
+        return len;
+    }
+
+    /** @see java.sql.Blob#setBinaryStream(long) */
+    public OutputStream setBinaryStream(long pos) throws SQLException {
+        return new BlobOutputStream(offset(pos));
+    }
+
+    public long position(byte[] pattern, long start) throws SQLException {
+        // TODO Support this
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public long position(Blob pattern, long start) throws SQLException {
+        // TODO Support this
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * The length of a BLOB cannot be changed through incremental I/O.
+     *
+     * @throws SQLException unless the length is the current length
+     */
+    public void truncate(long len) throws SQLException {
+        if (len != blob.bytes()) {
+            throw new SQLException("cannot truncate a blob, its length is fixed");
+        }
+    }
+
+    /** Closes the BLOB handle, see {@link SQLiteBlobChannel#close()}. */
+    public void free() throws SQLException {
+        blob.close();
+    }
+
+    /** @return the offset in the BLOB of a position, the first byte being at position 1 */
+    private int offset(long pos) throws SQLException {
+        if (pos < 1 || pos > (long) blob.bytes() + 1) {
+            throw new SQLException("Position is not within the blob: " + pos);
+        }
+        return (int) (pos - 1);
+    }
+
+    /** Reads a range of the BLOB, each call reading the bytes it asks for. */
+    private class BlobInputStream extends InputStream {
+        private int offset;
+        private final int end;
+        private int mark;
+
+        BlobInputStream(int offset, int end) {
+            this.offset = offset;
+            this.end = end;
+            this.mark = offset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = Math.min(len, end - offset);
+            if (n <= 0) {
+                return -1;
+            }
+            try {
+                blob.read(b, off, n, offset);
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+            offset += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, end - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return end - offset;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            mark = offset;
+        }
+
+        @Override
+        public void reset() {
+            offset = mark;
+        }
+    }
+
+    /** Overwrites the BLOB from an offset on, each call writing the bytes it is given. */
+    private class BlobOutputStream extends OutputStream {
+        private int offset;
+
+        BlobOutputStream(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                blob.write(b, off, len, offset);
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+            offset += len;
+        }
+    }
+}
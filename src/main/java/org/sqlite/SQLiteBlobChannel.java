@@ -0,0 +1,247 @@
+package org.sqlite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.sql.SQLException;
+import org.sqlite.core.SafeBlobPtr;
+
+/**
+ * A channel over a BLOB value that reads and writes it in place, in chunks, with <a
+ * href="https://www.sqlite.org/c3ref/blob.html">incremental BLOB I/O</a>. Unlike {@link
+ * java.sql.ResultSet#getBytes(int)} and {@link java.sql.PreparedStatement#setBytes(int, byte[])},
+ * it never holds the whole value in memory, so large values are served and stored with constant
+ * heap.
+ *
+ * <p>The length of a BLOB cannot be changed through the channel: writes past its end fail, and
+ * {@link #truncate(long)} only accepts the current size. To store a new value, insert a BLOB of
+ * zeros of the final length with {@link org.sqlite.jdbc3.JDBC3PreparedStatement#setZeroBlob(int,
+ * long)} or <code>zeroblob(n)</code>, then write it through the channel:
+ *
+ * <pre>
+ * PreparedStatement insert = conn.prepareStatement("insert into files (data) values (?)");
+ * insert.unwrap(JDBC3PreparedStatement.class).setZeroBlob(1, length);
+ * insert.executeUpdate();
+ * long rowid = ...; // select last_insert_rowid()
+ * SQLiteConnection sqlite = conn.unwrap(SQLiteConnection.class);
+ * try (SQLiteBlobChannel channel = sqlite.openBlob("files", "data", rowid, true).getChannel()) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>A channel is not thread-safe, its calls are serialized with the other uses of the connection.
+ * If the row is changed or deleted by another statement while the channel is open, the channel
+ * expires and its reads and writes fail with <code>SQLITE_ABORT</code>.
+ *
+ * @see SQLiteBlob#getChannel()
+ */
+public final class SQLiteBlobChannel implements SeekableByteChannel {
+    // the maximum number of bytes read or written per call, which bounds the native memory used to
+    // copy them
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final SafeBlobPtr blob;
+    private final boolean writable;
+    private int size;
+    private long position = 0;
+    private byte[] chunk;
+
+    SQLiteBlobChannel(SafeBlobPtr blob, boolean writable) throws SQLException {
+        this.blob = blob;
+        this.writable = writable;
+        this.size = blob.bytes();
+    }
+
+    /**
+     * Moves the channel to the same column of another row and rewinds it, which is faster than
+     * opening a new channel.
+     *
+     * @param rowid the rowid of the row
+     * @throws IOException if the row does not exist or its value is not a BLOB or text; the channel
+     *     can then only be closed
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_reopen.html">https://www.sqlite.org/c3ref/blob_reopen.html</a>
+     */
+    public void reopen(long rowid) throws IOException {
+        ensureOpen();
+        try {
+            blob.reopen(rowid);
+            size = blob.bytes();
+            position = 0;
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int n = read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    /**
+     * Reads bytes from a given position, without changing the position of the channel.
+     *
+     * @param dst the buffer receiving the bytes
+     * @param position the offset in the BLOB of the first byte read
+     * @return the number of bytes read, or -1 if the position is at or past the end of the BLOB
+     * @throws IOException if the BLOB cannot be read
+     * @see java.nio.channels.FileChannel#read(ByteBuffer, long)
+     */
+    public int read(ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        checkPosition(position);
+        if (position >= size) {
+            return -1;
+        }
+        int n = (int) Math.min(dst.remaining(), size - position);
+        try {
+            for (int done = 0; done < n; ) {
+                int len = Math.min(n - done, CHUNK_SIZE);
+                int offset = (int) position + done;
+                if (dst.hasArray()) {
+                    blob.read(dst.array(), dst.arrayOffset() + dst.position(), len, offset);
+                    dst.position(dst.position() + len);
+                } else {
+                    blob.read(chunk(), 0, len, offset);
+                    dst.put(chunk, 0, len);
+                }
+                done += len;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int n = write(src, position);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Writes bytes at a given position, without changing the position of the channel.
+     *
+     * @param src the buffer holding the bytes
+     * @param position the offset in the BLOB of the first byte written
+     * @return the number of bytes written, all remaining bytes of the buffer
+     * @throws IOException if the bytes do not fit in the BLOB, or it cannot be written
+     * @see java.nio.channels.FileChannel#write(ByteBuffer, long)
+     */
+    public int write(ByteBuffer src, long position) throws IOException {
+        ensureOpen();
+        if (!writable) {
+            throw new NonWritableChannelException();
+        }
+        checkPosition(position);
+        int n = src.remaining();
+        if (position + n > size) {
+            throw new IOException(
+                    "cannot write past the end of a blob of " + size + " bytes, its size is fixed");
+        }
+        try {
+            for (int done = 0; done < n; ) {
+                int len = Math.min(n - done, CHUNK_SIZE);
+                int offset = (int) position + done;
+                if (src.hasArray()) {
+                    blob.write(src.array(), src.arrayOffset() + src.position(), len, offset);
+                    src.position(src.position() + len);
+                } else {
+                    src.get(chunk(), 0, len);
+                    blob.write(chunk, 0, len, offset);
+                }
+                done += len;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        return n;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SQLiteBlobChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        checkPosition(newPosition);
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    /**
+     * The size of a BLOB cannot be changed through incremental I/O, so this only accepts a size
+     * that is not less than the current one, which leaves the BLOB unchanged.
+     *
+     * @throws IOException if the size is less than the current size
+     */
+    @Override
+    public SQLiteBlobChannel truncate(long size) throws IOException {
+        ensureOpen();
+        if (size < 0) {
+            throw new IllegalArgumentException("negative size: " + size);
+        }
+        if (size < this.size) {
+            throw new IOException("cannot truncate a blob, its size is fixed");
+        }
+        if (position > size) {
+            position = size;
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !blob.isClosed();
+    }
+
+    /**
+     * Closes the BLOB handle. A handle that was opened for writing in auto-commit mode commits its
+     * writes when it is closed.
+     *
+     * @throws IOException if the commit fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            blob.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private byte[] chunk() {
+        if (chunk == null) {
+            chunk = new byte[CHUNK_SIZE];
+        }
+        return chunk;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (blob.isClosed()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static void checkPosition(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("negative position: " + position);
+        }
+    }
+}
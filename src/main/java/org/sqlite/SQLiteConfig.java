@@ -56,6 +56,12 @@ public class SQLiteConfig {
 
     private int busyTimeout;
     private boolean explicitReadOnly;
+    private int statementCacheSize;
+    private boolean prepareNoVtab;
+    private boolean threadConfined;
+    private boolean stringDictionary;
+    private int groupCommitWindow;
+    private boolean writeQueue;
 
     private final SQLiteConnectionConfig defaultConnectionConfig;
 
@@ -93,6 +99,25 @@ public class SQLiteConfig {
         this.explicitReadOnly =
                 Boolean.parseBoolean(
                         pragmaTable.getProperty(Pragma.JDBC_EXPLICIT_READONLY.pragmaName, "false"));
+        this.statementCacheSize =
+                Integer.parseInt(
+                        pragmaTable.getProperty(Pragma.JDBC_STATEMENT_CACHE_SIZE.pragmaName, "0"));
+        this.prepareNoVtab =
+                Boolean.parseBoolean(
+                        pragmaTable.getProperty(Pragma.JDBC_PREPARE_NO_VTAB.pragmaName, "false"));
+        this.stringDictionary =
+                Boolean.parseBoolean(
+                        pragmaTable.getProperty(Pragma.JDBC_STRING_DICTIONARY.pragmaName, "false"));
+        this.groupCommitWindow =
+                Integer.parseInt(
+                        pragmaTable.getProperty(Pragma.JDBC_GROUP_COMMIT_WINDOW.pragmaName, "0"));
+        this.writeQueue =
+                Boolean.parseBoolean(
+                        pragmaTable.getProperty(Pragma.JDBC_WRITE_QUEUE.pragmaName, "false"));
+        if (Boolean.parseBoolean(
+                pragmaTable.getProperty(Pragma.JDBC_THREAD_CONFINED.pragmaName, "false"))) {
+            setThreadConfined(true);
+        }
     }
 
     public SQLiteConnectionConfig newConnectionConfig() {
@@ -188,6 +213,12 @@ public class SQLiteConfig {
 
         // exclude this "fake" pragma from execution
         pragmaParams.remove(Pragma.JDBC_EXPLICIT_READONLY.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_STATEMENT_CACHE_SIZE.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_PREPARE_NO_VTAB.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_THREAD_CONFINED.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_STRING_DICTIONARY.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_GROUP_COMMIT_WINDOW.pragmaName);
+        pragmaParams.remove(Pragma.JDBC_WRITE_QUEUE.pragmaName);
 
         Statement stat = conn.createStatement();
         try {
@@ -330,6 +361,21 @@ public class SQLiteConfig {
                 defaultConnectionConfig.getDateStringFormat());
         pragmaTable.setProperty(
                 Pragma.JDBC_EXPLICIT_READONLY.pragmaName, this.explicitReadOnly ? "true" : "false");
+        pragmaTable.setProperty(
+                Pragma.JDBC_STATEMENT_CACHE_SIZE.pragmaName,
+                Integer.toString(this.statementCacheSize));
+        pragmaTable.setProperty(
+                Pragma.JDBC_PREPARE_NO_VTAB.pragmaName, this.prepareNoVtab ? "true" : "false");
+        pragmaTable.setProperty(
+                Pragma.JDBC_THREAD_CONFINED.pragmaName, this.threadConfined ? "true" : "false");
+        pragmaTable.setProperty(
+                Pragma.JDBC_STRING_DICTIONARY.pragmaName,
+                this.stringDictionary ? "true" : "false");
+        pragmaTable.setProperty(
+                Pragma.JDBC_GROUP_COMMIT_WINDOW.pragmaName,
+                Integer.toString(this.groupCommitWindow));
+        pragmaTable.setProperty(
+                Pragma.JDBC_WRITE_QUEUE.pragmaName, this.writeQueue ? "true" : "false");
         return pragmaTable;
     }
 
@@ -375,6 +421,134 @@ public class SQLiteConfig {
         this.explicitReadOnly = readOnly;
     }
 
+    /** @return the number of idle prepared statements cached per connection, 0 if disabled */
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    /**
+     * Keep up to the given number of closed prepared statements per connection, keyed by their SQL
+     * text, and reuse them instead of compiling the SQL again. The least recently used statement is
+     * finalized when the cache is full.
+     *
+     * <p>Like a statement that is kept open, a cached statement is recompiled by SQLite when it is
+     * run after a schema change, but reports the result columns it was compiled with until then.
+     *
+     * @param size the maximum number of idle statements; 0 (the default) disables the cache
+     * @see org.sqlite.core.StatementCache
+     */
+    public void setStatementCacheSize(int size) {
+        this.statementCacheSize = size;
+    }
+
+    /** @return true if statements that use virtual tables are rejected */
+    public boolean isPrepareNoVtab() {
+        return this.prepareNoVtab;
+    }
+
+    /**
+     * Compile statements with <code>SQLITE_PREPARE_NO_VTAB</code>, so that preparing a statement
+     * that uses a virtual table fails. Only the FFM backend passes the flag: the JNI backend keeps
+     * the entry point of the bundled native libraries, which takes no flags, and ignores it.
+     *
+     * @param noVtab whether to reject statements that use virtual tables
+     */
+    public void setPrepareNoVtab(boolean noVtab) {
+        this.prepareNoVtab = noVtab;
+    }
+
+    /** @return true if connections are only used by one thread at a time */
+    public boolean isThreadConfined() {
+        return this.threadConfined;
+    }
+
+    /**
+     * Declare that each connection is only used by one thread at a time, for example a request
+     * thread that owns its connection. The database is opened with <code>SQLITE_OPEN_NOMUTEX
+     * </code> and the driver does not lock the connection before each call, which saves two
+     * mutexes per call on hot paths such as the getters of a result set.
+     *
+     * <p>A connection may still be handed to another thread, for example by a pool, as long as the
+     * hand-off is safely published. Using it from two threads at once corrupts the connection; when
+     * assertions are enabled for <code>org.sqlite.core</code>, the driver checks that it does not
+     * happen. {@link java.sql.Statement#cancel()} remains safe to call from another thread.
+     *
+     * @param confined whether connections are confined to one thread at a time
+     */
+    public void setThreadConfined(boolean confined) {
+        this.threadConfined = confined;
+        if (confined) {
+            setOpenMode(SQLiteOpenMode.NOMUTEX);
+            resetOpenMode(SQLiteOpenMode.FULLMUTEX);
+        } else {
+            resetOpenMode(SQLiteOpenMode.NOMUTEX);
+        }
+    }
+
+    /** @return true if result sets deduplicate the strings of columns with few distinct values */
+    public boolean isStringDictionary() {
+        return this.stringDictionary;
+    }
+
+    /**
+     * Give every text column of a result set a string dictionary, which returns the same String
+     * instance for equal values instead of decoding each of them. A column turns its dictionary off
+     * when the first values read from it are mostly distinct.
+     *
+     * @param enabled whether to deduplicate strings automatically
+     * @see SQLiteResultSet#setStringDictionary(int, boolean)
+     */
+    public void setStringDictionary(boolean enabled) {
+        this.stringDictionary = enabled;
+    }
+
+    /** @return the group commit window in microseconds, 0 if group commit is disabled */
+    public int getGroupCommitWindow() {
+        return this.groupCommitWindow;
+    }
+
+    /**
+     * Let the auto-commit updates that threads sharing a connection run within a short window share
+     * one transaction. The first update begins the transaction; the updates that follow within the
+     * window join it, and one COMMIT makes them all durable once the window has passed. Each
+     * <code>executeUpdate()</code> returns only after that commit, and fails if it fails, so the
+     * application sees auto-commit semantics at the cost of up to one window of latency.
+     *
+     * <p>Only <code>PreparedStatement.executeUpdate()</code> and <code>Statement.executeBatch()
+     * </code> join and wait for a group. Any other statement that may write, or control the
+     * transaction, commits the open group first and then runs on its own, as does closing the
+     * connection; queries run within the open group. An update that fails in a way that rolls back
+     * the transaction fails the whole group. A thread-confined connection gains nothing from it,
+     * and a native library older than the driver does not support it, see the log.
+     *
+     * @param micros the window in microseconds; 0 (the default) disables group commit
+     */
+    public void setGroupCommitWindow(int micros) {
+        this.groupCommitWindow = micros;
+    }
+
+    /** @return true if writers to the database file queue in the JVM for their turn */
+    public boolean isWriteQueue() {
+        return this.writeQueue;
+    }
+
+    /**
+     * Make the connections of this JVM that write to the same database file wait in a fair queue
+     * for their turn, instead of retrying in the busy handler of SQLite until the busy timeout.
+     * Prepared statements that only read, and read-only connections, do not queue. The SQL of
+     * <code>Statement.executeUpdate(String)</code> runs as a script that is not classified, so it
+     * always queues, even if it only reads. A connection within a read transaction does not wait:
+     * its write fails at once with SQLITE_BUSY if another connection holds the turn, as the holder
+     * could not commit until the read transaction ends. A native library older than the driver
+     * does not support it, see the log.
+     *
+     * @param enabled whether to queue writers to the file
+     * @see org.sqlite.core.WriteQueue
+     */
+    public void setWriteQueue(boolean enabled) {
+        this.writeQueue = enabled;
+    }
+
     public enum Pragma {
 
         // Parameters requiring SQLite3 API invocation
@@ -542,7 +716,31 @@ public class SQLiteConfig {
 
         // extensions: "fake" pragmas to allow conformance with JDBC
         JDBC_EXPLICIT_READONLY(
-                "jdbc.explicit_readonly", "Set explicit read only transactions", null);
+                "jdbc.explicit_readonly", "Set explicit read only transactions", null),
+        JDBC_STATEMENT_CACHE_SIZE(
+                "jdbc.statement_cache_size",
+                "Number of closed prepared statements kept per connection for reuse, 0 to disable",
+                null),
+        JDBC_PREPARE_NO_VTAB(
+                "jdbc.prepare_no_vtab",
+                "Fail to prepare statements that use a virtual table",
+                OnOff.Values),
+        JDBC_THREAD_CONFINED(
+                "jdbc.thread_confined",
+                "Open without SQLite mutexes and skip locking, for connections used by one thread at a time",
+                OnOff.Values),
+        JDBC_STRING_DICTIONARY(
+                "jdbc.string_dictionary",
+                "Deduplicate the strings of text columns with few distinct values",
+                OnOff.Values),
+        JDBC_GROUP_COMMIT_WINDOW(
+                "jdbc.group_commit_window",
+                "Microseconds that the auto-commit updates of threads sharing a connection are grouped into one transaction, 0 to disable",
+                null),
+        JDBC_WRITE_QUEUE(
+                "jdbc.write_queue",
+                "Queue the writers of this JVM to the same file instead of retrying in the busy handler",
+                OnOff.Values);
 
         public final String pragmaName;
         public final String[] choices;
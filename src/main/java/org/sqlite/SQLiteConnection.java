@@ -4,6 +4,7 @@ import org.sqlite.SQLiteConfig.TransactionMode;
 import org.sqlite.core.CoreDatabaseMetaData;
 import org.sqlite.core.DB;
 import org.sqlite.core.ForeignDB;
+import org.sqlite.core.NativeDB;
 import org.sqlite.jdbc4.JDBC4DatabaseMetaData;
 
 import java.io.File;
@@ -284,10 +285,13 @@ public abstract class SQLiteConnection implements Connection {
         // load the native DB
         DB db = null;
         try {
-            // TODO tuck this away neatly
-//            NativeDB.load();
-//            db = new NativeDB(url, fileName, config);
-            db = new ForeignDB(url, fileName, config);
+            // the FFM backend is the default, the JNI backend is kept to compare against
+            if ("jni".equalsIgnoreCase(System.getProperty("org.sqlite.backend"))) {
+                NativeDB.load();
+                db = new NativeDB(url, fileName, config);
+            } else {
+                db = new ForeignDB(url, fileName, config);
+            }
         } catch (Exception e) {
             SQLException err = new SQLException("Error opening connection", e);
             throw err;
@@ -375,10 +379,10 @@ public abstract class SQLiteConnection implements Connection {
         // db.exec(connectionConfig.isAutoCommit() ? "commit;" : this.transactionPrefix(), ac);
 
         if (this.getConnectionConfig().isAutoCommit()) {
-            db.exec("commit;", ac);
+            db.execControl("commit;", ac);
             this.currentTransactionMode = null;
         } else {
-            db.exec(this.transactionPrefix(), ac);
+            db.execControl(this.transactionPrefix(), ac);
             this.currentTransactionMode = this.getConnectionConfig().getTransactionMode();
         }
     }
@@ -462,8 +466,8 @@ public abstract class SQLiteConnection implements Connection {
     public void commit() throws SQLException {
         checkOpen();
         if (connectionConfig.isAutoCommit()) throw new SQLException("database in auto-commit mode");
-        db.exec("commit;", getAutoCommit());
-        db.exec(this.transactionPrefix(), getAutoCommit());
+        db.execControl("commit;", getAutoCommit());
+        db.execControl(this.transactionPrefix(), getAutoCommit());
         this.firstStatementExecuted = false;
         this.setCurrentTransactionMode(this.getConnectionConfig().getTransactionMode());
     }
@@ -475,8 +479,8 @@ public abstract class SQLiteConnection implements Connection {
     public void rollback() throws SQLException {
         checkOpen();
         if (connectionConfig.isAutoCommit()) throw new SQLException("database in auto-commit mode");
-        db.exec("rollback;", getAutoCommit());
-        db.exec(this.transactionPrefix(), getAutoCommit());
+        db.execControl("rollback;", getAutoCommit());
+        db.execControl(this.transactionPrefix(), getAutoCommit());
         this.firstStatementExecuted = false;
         this.setCurrentTransactionMode(this.getConnectionConfig().getTransactionMode());
     }
@@ -588,6 +592,38 @@ public abstract class SQLiteConnection implements Connection {
         return this.connectionConfig.transactionPrefix();
     }
 
+    /**
+     * Opens a BLOB value of the main database for incremental I/O, see {@link #openBlob(String,
+     * String, String, long, boolean)}.
+     */
+    public SQLiteBlob openBlob(String table, String column, long rowid, boolean writable)
+            throws SQLException {
+        return openBlob("main", table, column, rowid, writable);
+    }
+
+    /**
+     * Opens a BLOB value for incremental I/O, which reads and writes it in place without loading
+     * it into memory. The value may also be text, which is then read as its UTF-8 bytes.
+     *
+     * @param schema The symbolic name of the database, e.g. "main" or the name of an attached one.
+     * @param table The name of the table.
+     * @param column The name of the column.
+     * @param rowid The rowid of the row.
+     * @param writable Whether the value may be written, otherwise it is read-only.
+     * @return The BLOB, to be freed when done.
+     * @throws SQLException if the row does not exist, or the value is neither a BLOB nor text
+     * @throws java.sql.SQLFeatureNotSupportedException if the native library is older than the
+     *     driver
+     * @see <a
+     * href="https://www.sqlite.org/c3ref/blob_open.html">https://www.sqlite.org/c3ref/blob_open.html</a>
+     */
+    public SQLiteBlob openBlob(
+            String schema, String table, String column, long rowid, boolean writable)
+            throws SQLException {
+        checkOpen();
+        return new SQLiteBlob(db.openBlob(schema, table, column, rowid, writable), writable);
+    }
+
     /**
      * Returns a byte array representing the schema content. This method is intended for in-memory
      * schemas. Serialized databases are limited to 2gb.
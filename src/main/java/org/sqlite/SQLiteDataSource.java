@@ -437,6 +437,28 @@ public class SQLiteDataSource implements DataSource {
         config.setTransactionMode(transactionMode);
     }
 
+    /**
+     * Groups the auto-commit updates that threads sharing a connection run within the window into
+     * one transaction.
+     *
+     * @param micros The window in microseconds; 0 disables group commit.
+     * @see SQLiteConfig#setGroupCommitWindow(int)
+     */
+    public void setGroupCommitWindow(int micros) {
+        config.setGroupCommitWindow(micros);
+    }
+
+    /**
+     * Makes the connections of this JVM that write to the database file wait in a fair queue for
+     * their turn.
+     *
+     * @param enabled True to queue writers; false to leave them to the busy handler.
+     * @see SQLiteConfig#setWriteQueue(boolean)
+     */
+    public void setWriteQueue(boolean enabled) {
+        config.setWriteQueue(enabled);
+    }
+
     /**
      * Sets the value of the user-version. It is a big-endian 32-bit signed integer stored in the
      * database header at offset 60.
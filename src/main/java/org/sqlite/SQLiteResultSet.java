@@ -0,0 +1,156 @@
+package org.sqlite;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.sqlite.core.StringDictionary;
+
+/**
+ * SQLite specific extensions of {@link ResultSet}, available through {@link
+ * ResultSet#unwrap(Class)}.
+ *
+ * <p>The <code>read*Column</code> methods read one column of the next rows in bulk, as if calling
+ * {@link #next()} and a getter for each row, but without creating an object per value. They
+ * consume the rows they read: the next call, or {@link #next()}, continues with the row after
+ * the last one read. The getters must not be used before {@link #next()} is called again.
+ *
+ * <p>NULL values are marked in an optional null bitmap: the value of row <code>i</code> is NULL
+ * if bit <code>i % 64</code> of <code>nulls[i / 64]</code> is set, which is the layout of {@link
+ * java.util.BitSet#valueOf(long[])}. The bits of the rows read are set or cleared, so a bitmap can
+ * be reused.
+ *
+ * <pre>
+ * long[] ids = new long[1024];
+ * long[] nulls = new long[ids.length / 64];
+ * SQLiteResultSet rs = stmt.executeQuery("select id from t").unwrap(SQLiteResultSet.class);
+ * for (int n; (n = rs.readLongColumn(1, ids, nulls)) &gt; 0; ) {
+ *     ...
+ * }
+ * </pre>
+ */
+public interface SQLiteResultSet extends ResultSet {
+
+    /**
+     * Reads a column of the next rows as long values, as {@link #getLong(int)} would.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param values the array receiving the values; its length is the maximum number of rows read
+     * @param nulls the null bitmap, or null if NULL values need not be distinguished from 0
+     * @return the number of rows read; 0 if there are no more rows
+     * @throws SQLException
+     */
+    int readLongColumn(int col, long[] values, long[] nulls) throws SQLException;
+
+    /**
+     * Reads a column of the next rows as double values, as {@link #getDouble(int)} would.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param values the array receiving the values; its length is the maximum number of rows read
+     * @param nulls the null bitmap, or null if NULL values need not be distinguished from 0
+     * @return the number of rows read; 0 if there are no more rows
+     * @throws SQLException
+     */
+    int readDoubleColumn(int col, double[] values, long[] nulls) throws SQLException;
+
+    /**
+     * Reads a column of the next rows as UTF-8 text, without decoding it into strings. The bytes
+     * are appended to <code>data</code> from its position on; the text of row <code>i</code> is
+     * stored between the buffer positions <code>offsets[i]</code> and <code>offsets[i + 1]</code>
+     * (exclusive). NULL values are stored as empty text.
+     *
+     * <p>Reading stops before a row whose text does not fit in the remaining space of <code>data
+     * </code>; that row is returned by the next call.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param data the buffer receiving the text
+     * @param offsets the array receiving the offsets; its length minus one is the maximum number
+     *     of rows read
+     * @param nulls the null bitmap, or null if NULL values need not be distinguished from empty
+     *     text
+     * @return the number of rows read; 0 if there are no more rows, or if the text of the next row
+     *     does not fit in <code>data</code>
+     * @throws SQLException
+     */
+    int readTextColumnOffsets(int col, ByteBuffer data, int[] offsets, long[] nulls)
+            throws SQLException;
+
+    /**
+     * Appends the value of a column of the current row to a builder, as {@link #getString(int)}
+     * would return it. A reused builder avoids creating a String per value.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param dest the builder receiving the text
+     * @return false if the value is NULL, in which case nothing is appended
+     * @throws SQLException
+     */
+    boolean appendString(int col, StringBuilder dest) throws SQLException;
+
+    /**
+     * Returns the value of a column of the current row, as {@link #getBytes(int)} would, without
+     * copying it where possible. On the FFM backend the buffer is a direct view of the memory of
+     * SQLite, which Java 22 code can turn into a <code>MemorySegment</code> with <code>
+     * MemorySegment.ofBuffer</code>.
+     *
+     * <p>The buffer is only valid until the next call to {@link #next()} or {@link #close()}. On
+     * the FFM backend, reading it afterwards throws an {@link IllegalStateException}, as the memory
+     * it views has been released; other backends may keep returning the old value. Copy what must
+     * outlive the row.
+     *
+     * <p>On the FFM backend, the buffer can only be read by the thread that obtained it, and is
+     * only invalidated if that thread also leaves the row. Once a result set has moved between
+     * threads, its buffers may be read by any thread, at the cost of a slower release per row.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @return a read-only buffer of the value, or null if it is NULL
+     * @throws SQLException
+     */
+    ByteBuffer getBlobBuffer(int col) throws SQLException;
+
+    /**
+     * Copies the value of a column of the current row, as {@link #getBytes(int)} would return it,
+     * into a buffer from its position on. As many bytes as fit are copied, and the position is
+     * advanced past them.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param dest the buffer receiving the value
+     * @return the length of the value, which is more than the bytes copied if it did not fit, or
+     *     -1 if it is NULL
+     * @throws SQLException
+     */
+    int getBytes(int col, ByteBuffer dest) throws SQLException;
+
+    /**
+     * Copies the value of a column of the current row into an array, see {@link #getBytes(int,
+     * ByteBuffer)}.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param dest the array receiving the value
+     * @param offset the index in the array of the first byte to copy
+     * @return the length of the value, or -1 if it is NULL
+     * @throws SQLException
+     */
+    int getBytes(int col, byte[] dest, int offset) throws SQLException;
+
+    /**
+     * Deduplicates the strings read from a column with few distinct values, until the result set
+     * is closed. {@link #getString(int)} then returns the same String instance for equal values,
+     * which saves decoding the text and keeping a copy of it per row. The dictionary holds up to
+     * 256 values, the others are decoded as usual.
+     *
+     * <p>With {@link org.sqlite.SQLiteConfig#setStringDictionary(boolean)}, every text column gets
+     * a dictionary that turns itself off when the first values read are mostly distinct; this
+     * method overrides it for one column.
+     *
+     * @param col the first column is 1, the second is 2, ...
+     * @param enabled whether to deduplicate the strings of the column
+     * @throws SQLException
+     */
+    void setStringDictionary(int col, boolean enabled) throws SQLException;
+
+    /**
+     * @param col the first column is 1, the second is 2, ...
+     * @return the string dictionary of the column, with its statistics, or null if it has none
+     * @throws SQLException
+     */
+    StringDictionary getStringDictionary(int col) throws SQLException;
+}
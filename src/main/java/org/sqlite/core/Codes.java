@@ -94,6 +94,25 @@ public interface Codes {
     /** sqlite_step() has finished executing */
     public static final int SQLITE_DONE = 101;
 
+    // flags for sqlite3_prepare_v3()
+
+    /** The statement is likely to be retained for a long time and reused many times */
+    public static final int SQLITE_PREPARE_PERSISTENT = 0x01;
+
+    /** Fail to prepare a statement that uses a virtual table */
+    public static final int SQLITE_PREPARE_NO_VTAB = 0x04;
+
+    // states returned by sqlite3_txn_state()
+
+    /** No transaction is open */
+    public static final int SQLITE_TXN_NONE = 0;
+
+    /** A read transaction is open, nothing was written */
+    public static final int SQLITE_TXN_READ = 1;
+
+    /** A write transaction is open, writes may be pending */
+    public static final int SQLITE_TXN_WRITE = 2;
+
     // types returned by sqlite3_column_type()
 
     public static final int SQLITE_INTEGER = 1;
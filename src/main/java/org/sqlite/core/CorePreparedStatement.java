@@ -16,6 +16,8 @@
 
 package org.sqlite.core;
 
+import java.io.InputStream;
+import java.io.Reader;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.util.Arrays;
@@ -30,6 +32,8 @@ public abstract class CorePreparedStatement extends JDBC4Statement {
     protected int columnCount;
     protected int paramCount;
     protected int batchQueryCount;
+    /** parameter values, from batchPos on for the statement being built */
+    protected ParameterBuffer parameters = null;
 
     /**
      * Constructs a prepared statement on a provided connection.
@@ -43,12 +47,11 @@ public abstract class CorePreparedStatement extends JDBC4Statement {
 
         this.sql = sql;
         DB db = conn.getDatabase();
-        db.prepare(this);
+        db.prepare(this, true);
         rs.colsMeta = pointer.safeRun(DB::column_names);
         columnCount = pointer.safeRunInt(DB::column_count);
         paramCount = pointer.safeRunInt(DB::bind_parameter_count);
         batchQueryCount = 0;
-        batch = null;
         batchPos = 0;
     }
 
@@ -72,9 +75,21 @@ public abstract class CorePreparedStatement extends JDBC4Statement {
         return this.withConnectionTimeout(
                 () -> {
                     try {
+                        if (returningGeneratedKeys) {
+                            return conn.getDatabase()
+                                    .executeBatchReturning(
+                                            this,
+                                            batchQueryCount,
+                                            parameters,
+                                            conn.getAutoCommit());
+                        }
                         return conn.getDatabase()
                                 .executeBatch(
-                                        pointer, batchQueryCount, batch, conn.getAutoCommit());
+                                        pointer,
+                                        sql,
+                                        batchQueryCount,
+                                        parameters,
+                                        conn.getAutoCommit());
                     } finally {
                         clearBatch();
                     }
@@ -86,23 +101,110 @@ public abstract class CorePreparedStatement extends JDBC4Statement {
     public void clearBatch() throws SQLException {
         super.clearBatch();
         batchQueryCount = 0;
+        if (parameters != null) parameters.clear(0, parameters.size());
+    }
+
+    @Override
+    protected void internalClose() throws SQLException {
+        super.internalClose();
+        parameters = null;
+    }
+
+    protected void checkIndex(int index) throws SQLException {
+        if (parameters == null) {
+            throw new SQLException("No parameter has been set yet");
+        }
+        if (index < 1 || index > parameters.size()) {
+            throw new SQLException("Parameter index is invalid");
+        }
     }
 
     // PARAMETER FUNCTIONS //////////////////////////////////////////
 
     /**
-     * Assigns the object value to the element at the specific position of array batch.
+     * Returns the parameter buffer, creating it on first use, after checking that the statement is
+     * open.
+     *
+     * @throws SQLException
+     */
+    private ParameterBuffer parameters() throws SQLException {
+        checkOpen();
+        if (parameters == null) {
+            parameters = new ParameterBuffer(paramCount);
+        }
+        return parameters;
+    }
+
+    /**
+     * Assigns the object value to the element at the specific position of the parameter buffer.
      *
      * @param pos
-     * @param value
+     * @param value null, an Integer, Short, Long, Float, Double, String or byte[]
      * @throws SQLException
      */
     protected void batch(int pos, Object value) throws SQLException {
-        checkOpen();
-        if (batch == null) {
-            batch = new Object[paramCount];
+        parameters().setObject(batchPos + pos - 1, value);
+    }
+
+    /** Assigns an int value without boxing it, see {@link #batch(int, Object)}. */
+    protected void batch(int pos, int value) throws SQLException {
+        parameters().setInt(batchPos + pos - 1, value);
+    }
+
+    /** Assigns a long value without boxing it, see {@link #batch(int, Object)}. */
+    protected void batch(int pos, long value) throws SQLException {
+        parameters().setLong(batchPos + pos - 1, value);
+    }
+
+    /** Assigns a float value without boxing it, see {@link #batch(int, Object)}. */
+    protected void batch(int pos, float value) throws SQLException {
+        parameters().setFloat(batchPos + pos - 1, value);
+    }
+
+    /** Assigns a double value without boxing it, see {@link #batch(int, Object)}. */
+    protected void batch(int pos, double value) throws SQLException {
+        parameters().setDouble(batchPos + pos - 1, value);
+    }
+
+    /** Assigns a blob of zeros of the given length, see {@link ParameterBuffer#setZeroBlob}. */
+    protected void batchZeroBlob(int pos, long length) throws SQLException {
+        parameters().setZeroBlob(batchPos + pos - 1, length);
+    }
+
+    /**
+     * Assigns a text value that is read from a stream of characters when the statement is
+     * executed, see {@link ParameterStream}.
+     *
+     * @param pos
+     * @param reader the characters, or null for NULL
+     * @param length the number of characters, or -1 to read to the end of the stream
+     * @throws SQLException
+     */
+    protected void batchStream(int pos, Reader reader, long length) throws SQLException {
+        if (reader == null) {
+            batch(pos, null);
+        } else {
+            parameters().setStream(batchPos + pos - 1, new ParameterStream(reader, length));
+        }
+    }
+
+    /**
+     * Assigns a text or blob value that is read from a stream of bytes when the statement is
+     * executed, see {@link ParameterStream}.
+     *
+     * @param pos
+     * @param input the bytes, UTF-8 if text, or null for NULL
+     * @param text whether the value is text, otherwise it is a blob
+     * @param length the number of bytes, or -1 to read to the end of the stream
+     * @throws SQLException
+     */
+    protected void batchStream(int pos, InputStream input, boolean text, long length)
+            throws SQLException {
+        if (input == null) {
+            batch(pos, null);
+        } else {
+            parameters().setStream(batchPos + pos - 1, new ParameterStream(input, text, length));
         }
-        batch[batchPos + pos - 1] = value;
     }
 
     /** Store the date in the user's preferred format (text, int, or real) */
@@ -120,11 +222,11 @@ public abstract class CorePreparedStatement extends JDBC4Statement {
 
             case REAL:
                 // long to Julian date
-                batch(pos, new Double((value / 86400000.0) + 2440587.5));
+                batch(pos, (value / 86400000.0) + 2440587.5);
                 break;
 
             default: // INTEGER:
-                batch(pos, new Long(value / config.getDateMultiplier()));
+                batch(pos, value / config.getDateMultiplier());
         }
     }
 }
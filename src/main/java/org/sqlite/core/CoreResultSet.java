@@ -40,12 +40,24 @@ public abstract class CoreResultSet implements Codes {
 
     /** 0 means no limit, must check against maxRows */
     protected int limitRows;
+    /** rows fetched ahead when the fetch size is greater than 1, null otherwise */
+    protected RowBuffer rows = null;
+    /** buffer of a previous execution, kept to be filled again by the next one */
+    protected RowBuffer spareRows = null;
     /** number of current row, starts at 1 (0 is for before loading data) */
     protected int row = 0;
+    /** if the statement is on a row that next() has not returned yet, besides the first one */
+    protected boolean pendingRow = false;
 
     protected boolean pastLastRow = false;
     /** last column accessed, for wasNull(). -1 if none */
     protected int lastCol;
+    /** type codes of all columns of the current row, read on the first access after next() */
+    protected int[] columnTypes = null;
+    /** if {@link #columnTypes} holds the types of the current row */
+    protected boolean columnTypesValid = false;
+    /** string dictionary of each column, null if no column has one */
+    protected StringDictionary[] dictionaries = null;
 
     public boolean closeStmt;
     protected Map<String, Integer> columnNameToIndex = null;
@@ -127,10 +139,17 @@ public abstract class CoreResultSet implements Codes {
         cols = null;
         colsMeta = null;
         meta = null;
-        limitRows = 0;
+        if (rows != null) {
+            spareRows = rows;
+            rows = null;
+        }
         row = 0;
+        pendingRow = false;
         pastLastRow = false;
         lastCol = -1;
+        columnTypes = null;
+        columnTypesValid = false;
+        dictionaries = null;
         columnNameToIndex = null;
         emptyResultSet = false;
 
@@ -139,15 +158,20 @@ public abstract class CoreResultSet implements Codes {
         }
 
         DB db = stmt.getDatabase();
-        synchronized (db) {
+        db.getLock().lock();
+        try {
             if (!stmt.pointer.isClosed()) {
                 stmt.pointer.safeRunInt(DB::reset);
+                // a statement with RETURNING ends its transaction here in auto-commit mode
+                db.endWrite();
 
                 if (closeStmt) {
                     closeStmt = false; // break recursive call
                     ((Statement) stmt).close();
                 }
             }
+        } finally {
+            db.getLock().unlock();
         }
 
         open = false;
@@ -15,9 +15,11 @@
  */
 package org.sqlite.core;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 import org.sqlite.SQLiteConnection;
 import org.sqlite.SQLiteConnectionConfig;
@@ -30,14 +32,30 @@ public abstract class CoreStatement implements Codes {
 
     public SafeStmtPtr pointer;
     protected String sql = null;
+    /** the <code>SQLITE_PREPARE_*</code> flags to compile the statement with */
+    protected int prepareFlags;
 
     protected int batchPos;
     protected Object[] batch = null;
     protected boolean resultsWaiting = false;
+    /** the group commit joined by the last update, until it is awaited, see DB#awaitCommit */
+    GroupCommit.Group pendingCommit;
 
-    private Statement generatedKeysStat = null;
+    /** false after {@link java.sql.Statement#NO_GENERATED_KEYS} was requested */
+    protected boolean returnGeneratedKeys = true;
+    /** whether the SQL was given a RETURNING clause for the generated keys, see #addReturning */
+    protected boolean returningGeneratedKeys = false;
+
+    /** the labels and rows of the generated keys of the last execution, or null if none */
+    private String[] generatedKeyLabels = null;
+    private List<Object[]> generatedKeyRows = null;
+    private PreparedStatement generatedKeysStat = null;
     private ResultSet generatedKeysRs = null;
 
+    /** the SQL last checked with {@link #INSERT_PATTERN}, compared by identity, and the result */
+    private String insertCheckedSql = null;
+    private boolean insertChecked = false;
+
     // pattern for matching insert statements of the general format starting with INSERT or REPLACE.
     // CTEs used prior to the insert or replace keyword are also be permitted.
     private static final Pattern INSERT_PATTERN =
@@ -45,9 +63,13 @@ public abstract class CoreStatement implements Codes {
                     "^\\s*(?:with\\s+.+\\(.+?\\))*\\s*(?:insert|replace)\\s*",
                     Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
 
+    private static final Pattern RETURNING_PATTERN =
+            Pattern.compile("\\breturning\\b", Pattern.CASE_INSENSITIVE);
+
     protected CoreStatement(SQLiteConnection c) {
         conn = c;
         rs = new JDBC4ResultSet(this);
+        prepareFlags = c.getDatabase().getConfig().isPrepareNoVtab() ? SQLITE_PREPARE_NO_VTAB : 0;
     }
 
     public DB getDatabase() {
@@ -153,16 +175,9 @@ public abstract class CoreStatement implements Codes {
 
     public abstract ResultSet executeQuery(String sql, boolean closeStmt) throws SQLException;
 
-    protected void checkIndex(int index) throws SQLException {
-        if (batch == null) {
-            throw new SQLException("No parameter has been set yet");
-        }
-        if (index < 1 || index > batch.length) {
-            throw new SQLException("Parameter index is invalid");
-        }
-    }
-
     protected void clearGeneratedKeys() throws SQLException {
+        generatedKeyLabels = null;
+        generatedKeyRows = null;
         if (generatedKeysRs != null && !generatedKeysRs.isClosed()) {
             generatedKeysRs.close();
         }
@@ -175,34 +190,148 @@ public abstract class CoreStatement implements Codes {
 
     /**
      * SQLite's last_insert_rowid() function is DB-specific. However, in this implementation we
-     * ensure the Generated Key result set is statement-specific by executing the query immediately
+     * ensure the Generated Key result set is statement-specific by reading the row id immediately
      * after an insert operation is performed. The caller is simply responsible for calling
-     * updateGeneratedKeys on the statement object right after execute in a synchronized(connection)
-     * block.
+     * updateGeneratedKeys on the statement object right after execute while holding the lock of the
+     * database. The result set is only built if {@link #getGeneratedKeys()} is called.
      */
     public void updateGeneratedKeys() throws SQLException {
+        if (returningGeneratedKeys) {
+            // the keys were read from the RETURNING clause, see setGeneratedKeys
+            return;
+        }
         clearGeneratedKeys();
-        if (sql != null && INSERT_PATTERN.matcher(sql).find()) {
-            generatedKeysStat = conn.createStatement();
-            generatedKeysRs = generatedKeysStat.executeQuery("SELECT last_insert_rowid();");
+        if (returnGeneratedKeys && sql != null && isInsert(sql)) {
+            generatedKeyLabels = new String[] {"last_insert_rowid()"};
+            generatedKeyRows =
+                    Collections.singletonList(
+                            new Object[] {conn.getDatabase().lastInsertRowid()});
+        }
+    }
+
+    /** @return whether the SQL is an INSERT or REPLACE, remembered for the SQL last checked */
+    private boolean isInsert(String sql) {
+        if (sql != insertCheckedSql) {
+            insertChecked = INSERT_PATTERN.matcher(sql).find();
+            insertCheckedSql = sql;
         }
+        return insertChecked;
+    }
+
+    /**
+     * Keeps the rows returned by the RETURNING clause added for the generated keys, as the keys of
+     * the last execution.
+     *
+     * @param rows the values of the rows
+     */
+    void setGeneratedKeys(List<Object[]> rows) throws SQLException {
+        clearGeneratedKeys();
+        generatedKeyLabels = pointer.safeRun(DB::column_names);
+        generatedKeyRows = rows;
+    }
+
+    /**
+     * @param enabled false to not read the generated keys after an insert, as for {@link
+     *     java.sql.Statement#NO_GENERATED_KEYS}
+     */
+    public void setReturnGeneratedKeys(boolean enabled) {
+        this.returnGeneratedKeys = enabled;
+    }
+
+    /**
+     * Marks the statement as prepared from SQL given a RETURNING clause by {@link
+     * #addReturning(String, String[])}, so that executing it as an update reads the rows it returns
+     * as the generated keys.
+     */
+    public void setReturningGeneratedKeys() {
+        this.returningGeneratedKeys = true;
+    }
+
+    /**
+     * Appends a RETURNING clause for the given columns to an INSERT or REPLACE statement, for
+     * {@link java.sql.Connection#prepareStatement(String, String[])}.
+     *
+     * @param sql the SQL of the statement
+     * @param columnNames the columns whose values are the generated keys
+     * @return the SQL with the RETURNING clause, or null if the statement is no insert or has a
+     *     RETURNING clause already
+     */
+    public static String addReturning(String sql, String[] columnNames) {
+        if (columnNames == null
+                || columnNames.length == 0
+                || !INSERT_PATTERN.matcher(sql).find()
+                || RETURNING_PATTERN.matcher(sql).find()) {
+            return null;
+        }
+        StringBuilder returning = new StringBuilder(sql.replaceFirst("[\\s;]+$", ""));
+        returning.append(" RETURNING ");
+        for (int i = 0; i < columnNames.length; i++) {
+            if (i > 0) {
+                returning.append(", ");
+            }
+            returning.append('"').append(columnNames[i].replace("\"", "\"\"")).append('"');
+        }
+        return returning.toString();
     }
 
     /**
      * This implementation uses SQLite's last_insert_rowid function to obtain the row ID. It cannot
-     * provide multiple values when inserting multiple rows. Suggestion is to use a <a
-     * href=https://www.sqlite.org/lang_returning.html>RETURNING</a> clause instead.
+     * provide multiple values when inserting multiple rows, unless the statement was prepared with
+     * the names of the key columns, which adds a <a
+     * href=https://www.sqlite.org/lang_returning.html>RETURNING</a> clause for them.
      *
      * @see java.sql.Statement#getGeneratedKeys()
      */
     public ResultSet getGeneratedKeys() throws SQLException {
         // getGeneratedKeys is required to return an EmptyResult set if the statement
-        // did not generate any keys. Thus, if the generateKeysResultSet is NULL, spin
+        // did not generate any keys. Thus, if there are no generated keys, spin
         // up a new result set without any contents by issuing a query with a false where condition
         if (generatedKeysRs == null) {
-            generatedKeysStat = conn.createStatement();
-            generatedKeysRs = generatedKeysStat.executeQuery("SELECT 1 WHERE 1 = 2;");
+            if (generatedKeyRows == null) {
+                generatedKeysStat = conn.prepareStatement("SELECT 1 WHERE 1 = 2;");
+            } else {
+                generatedKeysStat =
+                        conn.prepareStatement(
+                                generatedKeysQuery(generatedKeyLabels, generatedKeyRows.size()));
+                int index = 1;
+                for (Object[] row : generatedKeyRows) {
+                    for (Object value : row) {
+                        generatedKeysStat.setObject(index++, value);
+                    }
+                }
+            }
+            generatedKeysRs = generatedKeysStat.executeQuery();
         }
         return generatedKeysRs;
     }
+
+    /**
+     * @param labels the column labels of the keys
+     * @param rows the number of rows of keys
+     * @return a query returning the keys bound to its parameters, row by row
+     */
+    private static String generatedKeysQuery(String[] labels, int rows) {
+        StringBuilder query = new StringBuilder("SELECT ");
+        for (int i = 0; i < labels.length; i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            query.append(rows == 0 ? "NULL" : "column" + (i + 1))
+                    .append(" AS \"")
+                    .append(labels[i].replace("\"", "\"\""))
+                    .append('"');
+        }
+        if (rows == 0) {
+            return query.append(" WHERE 1 = 2;").toString();
+        }
+        query.append(" FROM (VALUES ");
+        for (int r = 0; r < rows; r++) {
+            query.append(r > 0 ? ", (" : "(");
+            for (int i = 0; i < labels.length; i++) {
+                query.append(i > 0 ? ", ?" : "?");
+            }
+            query.append(')');
+        }
+        return query.append(");").toString();
+    }
 }
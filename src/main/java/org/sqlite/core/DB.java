@@ -15,12 +15,24 @@
  */
 package org.sqlite.core;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.BatchUpdateException;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 import org.sqlite.BusyHandler;
 import org.sqlite.Collation;
 import org.sqlite.Function;
@@ -29,6 +41,8 @@ import org.sqlite.SQLiteCommitListener;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteErrorCode;
 import org.sqlite.SQLiteException;
+import org.sqlite.SQLiteLimits;
+import org.sqlite.SQLiteOpenMode;
 import org.sqlite.SQLiteUpdateListener;
 
 /*
@@ -49,21 +63,83 @@ public abstract class DB implements Codes {
     private final SQLiteConfig config;
     private final AtomicBoolean closed = new AtomicBoolean(true);
 
-    /** The "begin;"and "commit;" statement handles. */
-    volatile SafeStmtPtr begin;
+    /** Serializes the use of the database handle and its statements. */
+    private final Lock lock;
 
-    volatile SafeStmtPtr commit;
+    /** The most savepoint statements kept in {@link #savepoints}. */
+    private static final int SAVEPOINT_CACHE_SIZE = 16;
+
+    /** The start of a BEGIN IMMEDIATE or BEGIN EXCLUSIVE statement, see {@link #beginsWrite}. */
+    private static final Pattern BEGIN_WRITE =
+            Pattern.compile("\\s*begin\\s+(immediate|exclusive)\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Transaction control statements ("begin;", "commit;", "rollback;", ...), prepared once and
+     * kept until the connection is closed. Only used while the database is locked.
+     */
+    private final Map<String, SafeStmtPtr> controls = new HashMap<>();
+
+    /**
+     * Savepoint statements, in least recently used order. A savepoint name cannot be bound as a
+     * parameter, so there is a statement per name and only the most recent ones are kept.
+     */
+    private final LinkedHashMap<String, SafeStmtPtr> savepoints =
+            new LinkedHashMap<>(16, 0.75f, true);
 
     /** Tracer for statements to avoid unfinalized statements on db close. */
     private final Set<SafeStmtPtr> stmts = ConcurrentHashMap.newKeySet();
 
+    /** Tracer for BLOB handles to avoid unclosed handles on db close. */
+    private final Set<SafeBlobPtr> blobs = ConcurrentHashMap.newKeySet();
+
+    /** Idle prepared statements kept for reuse, null if the cache is disabled. */
+    private final StatementCache statementCache;
+
+    /** The groups of auto-commit updates sharing a transaction, null if group commit is off. */
+    private final GroupCommit groupCommit;
+
+    /** The queue of the writers to the file, null if it is disabled or the database is no file. */
+    private final WriteQueue writeQueue;
+
+    /** Whether this connection holds the write permit of {@link #writeQueue}. */
+    private boolean writing = false;
+
     private final Set<SQLiteUpdateListener> updateListeners = new HashSet<>();
     private final Set<SQLiteCommitListener> commitListeners = new HashSet<>();
 
     public DB(String url, String fileName, SQLiteConfig config) throws SQLException {
+        this(
+                url,
+                fileName,
+                config,
+                config.isThreadConfined() ? new ThreadConfinedLock() : new ReentrantLock());
+    }
+
+    /**
+     * @param url The JDBC url of the database.
+     * @param fileName The file name of the database.
+     * @param config The connection configuration.
+     * @param lock The lock that serializes the use of this database and its statements.
+     */
+    protected DB(String url, String fileName, SQLiteConfig config, Lock lock) throws SQLException {
         this.url = url;
         this.fileName = fileName;
         this.config = config;
+        this.lock = lock;
+        this.statementCache =
+                config.getStatementCacheSize() > 0
+                        ? new StatementCache(this, config.getStatementCacheSize())
+                        : null;
+        this.groupCommit =
+                config.getGroupCommitWindow() > 0 && supportsExtendedApi()
+                        ? new GroupCommit(config.getGroupCommitWindow())
+                        : null;
+        this.writeQueue =
+                config.isWriteQueue()
+                                && (config.getOpenModeFlags() & SQLiteOpenMode.READONLY.flag) == 0
+                                && supportsExtendedApi()
+                        ? WriteQueue.forFile(fileName)
+                        : null;
     }
 
     public String getUrl() {
@@ -78,6 +154,33 @@ public abstract class DB implements Codes {
         return config;
     }
 
+    /**
+     * Returns the lock that serializes the use of the database handle and its statements. Unlike a
+     * monitor, it does not pin a virtual thread that blocks in SQLite while holding it. Hold it to
+     * make several calls without another thread using the connection in between.
+     *
+     * @return the lock of this database
+     */
+    public Lock getLock() {
+        return lock;
+    }
+
+    /**
+     * @return the prepared statement cache of this connection, or null if it is disabled.
+     * @see SQLiteConfig#setStatementCacheSize(int)
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * @return the queue of the writers to the database file, or null if it is disabled.
+     * @see SQLiteConfig#setWriteQueue(boolean)
+     */
+    public WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     // WRAPPER FUNCTIONS ////////////////////////////////////////////
 
     /**
@@ -151,6 +254,77 @@ public abstract class DB implements Codes {
      */
     public abstract long total_changes() throws SQLException;
 
+    /**
+     * @return the rowid of the most recent successful INSERT into a rowid table on the connection
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/last_insert_rowid.html">https://www.sqlite.org/c3ref/last_insert_rowid.html</a>
+     */
+    abstract long last_insert_rowid() throws SQLException;
+
+    /**
+     * Reads the rowid of the most recent successful INSERT, with {@link #last_insert_rowid()} or,
+     * on a backend without it, see {@link #supportsExtendedApi()}, by stepping a kept <code>
+     * SELECT last_insert_rowid()</code>.
+     *
+     * @return the rowid of the most recent successful INSERT into a rowid table on the connection
+     * @throws SQLException
+     */
+    final long lastInsertRowid() throws SQLException {
+        if (supportsExtendedApi()) {
+            return last_insert_rowid();
+        }
+        lock.lock();
+        try {
+            return control("select last_insert_rowid();")
+                    .safeRunLong(
+                            (db, ptr) -> {
+                                try {
+                                    int rc = step(ptr);
+                                    if (rc != SQLITE_ROW) {
+                                        throwex(rc);
+                                    }
+                                    return column_long(ptr, 0);
+                                } finally {
+                                    reset(ptr);
+                                }
+                            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the connection is in auto-commit mode, i.e. no transaction was begun with
+     *     BEGIN; a statement may still hold an implicit transaction open
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/get_autocommit.html">https://www.sqlite.org/c3ref/get_autocommit.html</a>
+     */
+    abstract boolean get_autocommit() throws SQLException;
+
+    /**
+     * @return the most advanced transaction state of the schemas of the connection: {@link
+     *     Codes#SQLITE_TXN_NONE}, {@link Codes#SQLITE_TXN_READ} or {@link Codes#SQLITE_TXN_WRITE}
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/txn_state.html">https://www.sqlite.org/c3ref/txn_state.html</a>
+     */
+    abstract int txn_state() throws SQLException;
+
+    /**
+     * Tells whether the backend implements the functions added to this interface since the native
+     * libraries bundled with the driver were last built: {@link #last_insert_rowid()}, {@link
+     * #get_autocommit()}, {@link #txn_state()}, {@link #stmt_readonly(long)}, {@link
+     * #bind_zeroblob(long, int, long)} and the blob functions. Without them, the driver falls back
+     * to SQL where it can, and the features that cannot do without them are unavailable.
+     *
+     * @return true if the functions are implemented
+     */
+    boolean supportsExtendedApi() {
+        return true;
+    }
+
     /**
      * Enables or disables the sharing of the database cache and schema data structures between
      * connections to the same database.
@@ -184,21 +358,106 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/exec.html">https://www.sqlite.org/c3ref/exec.html</a>
      */
-    public final synchronized void exec(String sql, boolean autoCommit) throws SQLException {
-        SafeStmtPtr pointer = prepare(sql);
+    public final void exec(String sql, boolean autoCommit) throws SQLException {
+        lock.lock();
         try {
-            int rc = pointer.safeRunInt(DB::step);
-            switch (rc) {
-                case SQLITE_DONE:
-                    ensureAutoCommit(autoCommit);
-                    return;
-                case SQLITE_ROW:
-                    return;
-                default:
-                    throwex(rc);
+            SafeStmtPtr pointer = prepare(sql);
+            try {
+                pointer.safeRunConsume(DB::flushGroup);
+                pointer.safeRunConsume((db, ptr) -> beginWrite(ptr, sql));
+                int rc = pointer.safeRunInt(DB::step);
+                switch (rc) {
+                    case SQLITE_DONE:
+                        ensureAutoCommit(autoCommit);
+                        return;
+                    case SQLITE_ROW:
+                        return;
+                    default:
+                        throwex(rc);
+                }
+            } finally {
+                pointer.close();
+                endWrite();
             }
         } finally {
-            pointer.close();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a transaction control statement, such as "commit;" or a "begin;" variant, with a
+     * statement that is prepared on first use and kept until the connection is closed. A
+     * transaction boundary then costs a step and a reset instead of compiling the SQL again. Only
+     * pass SQL from a small fixed set, as every distinct text is kept.
+     *
+     * @param sql The control statement.
+     * @param autoCommit Whether the connection is in auto-commit mode.
+     * @throws SQLException
+     * @see #exec(String, boolean)
+     */
+    public final void execControl(String sql, boolean autoCommit) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                flushGroup();
+                if (beginsWrite(sql)) {
+                    beginWrite();
+                }
+                execPrepared(control(sql), autoCommit);
+            } finally {
+                endWrite();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a SAVEPOINT, RELEASE or ROLLBACK TO statement like {@link #execControl(String,
+     * boolean)}, keeping the statements of the most recently used savepoint names only.
+     *
+     * @param sql The savepoint statement.
+     * @param autoCommit Whether the connection is in auto-commit mode.
+     * @throws SQLException
+     */
+    public final void execSavepoint(String sql, boolean autoCommit) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                flushGroup();
+                SafeStmtPtr pointer = savepoints.get(sql);
+                if (pointer == null) {
+                    pointer = prepare(sql, SQLITE_PREPARE_PERSISTENT);
+                    savepoints.put(sql, pointer);
+                    if (savepoints.size() > SAVEPOINT_CACHE_SIZE) {
+                        Iterator<SafeStmtPtr> eldest = savepoints.values().iterator();
+                        SafeStmtPtr evicted = eldest.next();
+                        eldest.remove();
+                        evicted.close();
+                    }
+                }
+                execPrepared(pointer, autoCommit);
+            } finally {
+                // releasing the outermost savepoint commits
+                endWrite();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void execPrepared(SafeStmtPtr pointer, boolean autoCommit) throws SQLException {
+        int rc;
+        try {
+            rc = pointer.safeRunInt(DB::step);
+            if (rc != SQLITE_DONE && rc != SQLITE_ROW) {
+                throwex(rc);
+            }
+        } finally {
+            pointer.safeRunInt(DB::reset);
+        }
+        if (rc == SQLITE_DONE) {
+            ensureAutoCommit(autoCommit);
         }
     }
 
@@ -212,16 +471,21 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/open.html">https://www.sqlite.org/c3ref/open.html</a>
      */
-    public final synchronized void open(String file, int openFlags) throws SQLException {
-        _open(file, openFlags);
-        closed.set(false);
+    public final void open(String file, int openFlags) throws SQLException {
+        lock.lock();
+        try {
+            _open(file, openFlags);
+            closed.set(false);
 
-        if (fileName.startsWith("file:") && !fileName.contains("cache=")) {
-            // URI cache overrides flags
-            shared_cache(config.isEnabledSharedCache());
+            if (fileName.startsWith("file:") && !fileName.contains("cache=")) {
+                // URI cache overrides flags
+                shared_cache(config.isEnabledSharedCache());
+            }
+            enable_load_extension(config.isEnabledLoadExtension());
+            busy_timeout(config.getBusyTimeout());
+        } finally {
+            lock.unlock();
         }
-        enable_load_extension(config.isEnabledLoadExtension());
-        busy_timeout(config.getBusyTimeout());
     }
 
     /**
@@ -232,18 +496,46 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/close.html">https://www.sqlite.org/c3ref/close.html</a>
      */
-    public final synchronized void close() throws SQLException {
-        // finalize any remaining statements before closing db
-        for (SafeStmtPtr element : stmts) {
-            element.close();
-        }
+    public final void close() throws SQLException {
+        lock.lock();
+        try {
+            try {
+                flushGroup();
+            } catch (SQLException e) {
+                // the updates of the group are told the commit failed
+            }
+
+            // close any remaining blob handles and finalize statements before closing db
+            for (SafeBlobPtr element : blobs) {
+                element.close();
+            }
+            for (SafeStmtPtr element : stmts) {
+                element.close();
+            }
+            if (statementCache != null) {
+                statementCache.clear();
+            }
 
-        // clean up commit object
-        if (begin != null) begin.close();
-        if (commit != null) commit.close();
+            // clean up transaction control statements
+            for (SafeStmtPtr element : controls.values()) {
+                element.close();
+            }
+            controls.clear();
+            for (SafeStmtPtr element : savepoints.values()) {
+                element.close();
+            }
+            savepoints.clear();
 
-        closed.set(true);
-        _close();
+            closed.set(true);
+            _close();
+        } finally {
+            if (writing) {
+                // the transaction ended with the connection
+                writing = false;
+                writeQueue.release();
+            }
+            lock.unlock();
+        }
     }
 
     /**
@@ -254,22 +546,50 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/prepare.html">https://www.sqlite.org/c3ref/prepare.html</a>
      */
-    public final synchronized void prepare(CoreStatement stmt) throws SQLException {
-        if (stmt.sql == null) {
-            throw new NullPointerException();
-        }
-        if (stmt.pointer != null) {
-            stmt.pointer.close();
-        }
-        stmt.pointer = prepare(stmt.sql);
-        final boolean added = stmts.add(stmt.pointer);
-        if (!added) {
-            throw new IllegalStateException("Already added pointer to statements set");
+    public final void prepare(CoreStatement stmt) throws SQLException {
+        prepare(stmt, false);
+    }
+
+    /**
+     * Complies the an SQL statement, taking it from the statement cache if possible.
+     *
+     * @param stmt The SQL statement to compile.
+     * @param cacheable Whether the statement is returned to the statement cache when it is closed,
+     *     if the cache is enabled.
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/prepare.html">https://www.sqlite.org/c3ref/prepare.html</a>
+     */
+    public final void prepare(CoreStatement stmt, boolean cacheable) throws SQLException {
+        lock.lock();
+        try {
+            if (stmt.sql == null) {
+                throw new NullPointerException();
+            }
+            if (stmt.pointer != null) {
+                stmt.pointer.close();
+            }
+            if (cacheable && statementCache != null) {
+                long ptr = statementCache.acquire(stmt.sql);
+                stmt.pointer =
+                        ptr != 0
+                                ? new SafeStmtPtr(this, ptr)
+                                : prepare(stmt.sql, stmt.prepareFlags | SQLITE_PREPARE_PERSISTENT);
+                stmt.pointer.setCacheKey(stmt.sql);
+            } else {
+                stmt.pointer = prepare(stmt.sql, stmt.prepareFlags);
+            }
+            final boolean added = stmts.add(stmt.pointer);
+            if (!added) {
+                throw new IllegalStateException("Already added pointer to statements set");
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Destroys a statement.
+     * Destroys a statement, or resets it and returns it to the statement cache if it is cacheable.
      *
      * @param safePtr the pointer wrapper to remove from internal structures
      * @param ptr the raw pointer to free
@@ -278,11 +598,72 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/finalize.html">https://www.sqlite.org/c3ref/finalize.html</a>
      */
-    public synchronized int finalize(SafeStmtPtr safePtr, long ptr) throws SQLException {
+    public int finalize(SafeStmtPtr safePtr, long ptr) throws SQLException {
+        lock.lock();
         try {
+            if (safePtr.getCacheKey() != null && statementCache != null && !isClosed()) {
+                // the result code of reset is the one of the last step, which was reported already
+                reset(ptr);
+                clear_bindings(ptr);
+                statementCache.release(safePtr.getCacheKey(), ptr);
+                return SQLITE_OK;
+            }
             return finalize(ptr);
         } finally {
             stmts.remove(safePtr);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens a handle for incremental I/O on a BLOB value, which reads and writes the value in place
+     * without loading it into memory.
+     *
+     * @param schema The symbolic name of the database, e.g. "main".
+     * @param table The name of the table.
+     * @param column The name of the column.
+     * @param rowid The rowid of the row.
+     * @param write Whether the handle may write, otherwise it is read-only.
+     * @return The handle.
+     * @throws SQLException if the row does not exist or the value is not a BLOB or text
+     * @throws SQLFeatureNotSupportedException on a backend without the blob functions, see {@link
+     *     #supportsExtendedApi()}
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_open.html">https://www.sqlite.org/c3ref/blob_open.html</a>
+     */
+    public final SafeBlobPtr openBlob(
+            String schema, String table, String column, long rowid, boolean write)
+            throws SQLException {
+        if (!supportsExtendedApi()) {
+            throw new SQLFeatureNotSupportedException(
+                    "incremental BLOB I/O is not supported by the loaded native library");
+        }
+        lock.lock();
+        try {
+            SafeBlobPtr blob =
+                    new SafeBlobPtr(this, blob_open(schema, table, column, rowid, write));
+            blobs.add(blob);
+            return blob;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes a BLOB handle.
+     *
+     * @param safePtr the pointer wrapper to remove from internal structures
+     * @param ptr the raw pointer to close
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException if closing fails
+     */
+    int closeBlob(SafeBlobPtr safePtr, long ptr) throws SQLException {
+        lock.lock();
+        try {
+            return blob_close(ptr);
+        } finally {
+            blobs.remove(safePtr);
+            lock.unlock();
         }
     }
 
@@ -329,6 +710,22 @@ public abstract class DB implements Codes {
      */
     protected abstract SafeStmtPtr prepare(String sql) throws SQLException;
 
+    /**
+     * Complies an SQL statement with <code>sqlite3_prepare_v3()</code>. The default implementation
+     * ignores the flags and calls {@link #prepare(String)}.
+     *
+     * @param sql An SQL statement.
+     * @param prepFlags Zero or more of {@link Codes#SQLITE_PREPARE_PERSISTENT} and {@link
+     *     Codes#SQLITE_PREPARE_NO_VTAB}.
+     * @return Pointer to a prepared statement.
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/prepare.html">https://www.sqlite.org/c3ref/prepare.html</a>
+     */
+    protected SafeStmtPtr prepare(String sql, int prepFlags) throws SQLException {
+        return prepare(sql);
+    }
+
     /**
      * Destroys a prepared statement.
      *
@@ -382,6 +779,16 @@ public abstract class DB implements Codes {
      */
     abstract int bind_parameter_count(long stmt) throws SQLException;
 
+    /**
+     * @param stmt Pointer to the statement.
+     * @return whether the statement makes no direct changes to the database file; transaction
+     *     control statements count as read-only
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/stmt_readonly.html">https://www.sqlite.org/c3ref/stmt_readonly.html</a>
+     */
+    abstract boolean stmt_readonly(long stmt) throws SQLException;
+
     /**
      * @param stmt Pointer to the statement.
      * @return Number of columns in the result set returned by the prepared statement.
@@ -441,6 +848,41 @@ public abstract class DB implements Codes {
      */
     public abstract String column_text(long stmt, int col) throws SQLException;
 
+    /**
+     * Appends the text of a column of the current row to a builder, without creating a String
+     * where the backend allows it.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col Number of column.
+     * @param dest The builder.
+     * @return false if the value is NULL and nothing was appended.
+     * @throws SQLException
+     * @see #column_text(long, int)
+     */
+    public boolean column_text(long stmt, int col, StringBuilder dest) throws SQLException {
+        String text = column_text(stmt, col);
+        if (text == null) {
+            return false;
+        }
+        dest.append(text);
+        return true;
+    }
+
+    /**
+     * Reads the text of a column of the current row through a dictionary of the strings seen
+     * before in that column. The default decodes it with {@link #column_text(long, int)}, backends
+     * that can read the UTF-8 bytes directly override it.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col Number of column.
+     * @param dictionary The dictionary of the column.
+     * @return Value of the column as a String, the instance returned before for the same text.
+     * @throws SQLException
+     */
+    public String column_text(long stmt, int col, StringDictionary dictionary) throws SQLException {
+        return column_text(stmt, col);
+    }
+
     /**
      * @param stmt Pointer to the statement.
      * @param col Number of column.
@@ -451,6 +893,52 @@ public abstract class DB implements Codes {
      */
     public abstract byte[] column_blob(long stmt, int col) throws SQLException;
 
+    /**
+     * @return whether {@link #column_blob(long, int)} returns null for an empty text value, as
+     *     sqlite3_column_blob() does, rather than an empty array
+     */
+    boolean isEmptyTextBlobNull() {
+        return false;
+    }
+
+    /**
+     * Returns a read-only view of the BLOB value of a column of the current row. Backends that can
+     * expose the native memory return a direct buffer over it, which is only valid until the
+     * statement is stepped, reset or finalized, and throws an {@link IllegalStateException} when
+     * read afterwards; the default wraps a copy.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col Number of column.
+     * @return The value as read-only buffer, or null if it is NULL.
+     * @throws SQLException
+     * @see #column_blob(long, int)
+     */
+    public ByteBuffer column_blob_buffer(long stmt, int col) throws SQLException {
+        byte[] blob = column_blob(stmt, col);
+        return blob == null ? null : ByteBuffer.wrap(blob).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the BLOB value of a column of the current row into a buffer, from its position on.
+     * Copies as many bytes as fit and advances the position past them.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col Number of column.
+     * @param dest The buffer.
+     * @return The length of the value, which is more than was copied if it did not fit, or -1 if
+     *     it is NULL.
+     * @throws SQLException
+     * @see #column_blob(long, int)
+     */
+    public int column_blob(long stmt, int col, ByteBuffer dest) throws SQLException {
+        byte[] blob = column_blob(stmt, col);
+        if (blob == null) {
+            return -1;
+        }
+        dest.put(blob, 0, Math.min(blob.length, dest.remaining()));
+        return blob.length;
+    }
+
     /**
      * @param stmt Pointer to the statement.
      * @param col Number of column.
@@ -562,6 +1050,53 @@ public abstract class DB implements Codes {
      */
     abstract int bind_blob(long stmt, int pos, byte[] v) throws SQLException;
 
+    /**
+     * Binds a BLOB of zeros of the given length, without allocating it, to be written later with
+     * incremental I/O.
+     *
+     * @param stmt Pointer to the statement.
+     * @param pos Index of the SQL parameter to be set.
+     * @param length The length of the BLOB.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/bind_blob.html">https://www.sqlite.org/c3ref/bind_blob.html</a>
+     */
+    abstract int bind_zeroblob(long stmt, int pos, long length) throws SQLException;
+
+    /**
+     * Binds a BLOB of zeros with {@link #bind_zeroblob(long, int, long)} or, on a backend without
+     * it, see {@link #supportsExtendedApi()}, as an array of zeros.
+     */
+    private int bindZeroblob(long stmt, int pos, long length) throws SQLException {
+        if (supportsExtendedApi()) {
+            return bind_zeroblob(stmt, pos, length);
+        }
+        if (length > limit(SQLiteLimits.SQLITE_LIMIT_LENGTH.getId(), -1)) {
+            return SQLITE_TOOBIG;
+        }
+        return bind_blob(stmt, pos, new byte[(int) length]);
+    }
+
+    /**
+     * Binds a text or blob value read from a stream. This reads the whole stream into an array
+     * first; implementations may read it straight into the memory handed to SQLite instead.
+     *
+     * @param stmt Pointer to the statement.
+     * @param pos Index of the SQL parameter to be set.
+     * @param stream The stream of the value.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException if the stream cannot be read
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/bind_blob.html">https://www.sqlite.org/c3ref/bind_blob.html</a>
+     */
+    int bind_stream(long stmt, int pos, ParameterStream stream) throws SQLException {
+        byte[] bytes = stream.readAll(limit(SQLiteLimits.SQLITE_LIMIT_LENGTH.getId(), -1));
+        return stream.isText()
+                ? bind_text(stmt, pos, Utf8.decode(bytes, 0, bytes.length))
+                : bind_blob(stmt, pos, bytes);
+    }
+
     /**
      * Sets the result of an SQL function as NULL with the pointer to the SQLite database context.
      *
@@ -826,77 +1361,411 @@ public abstract class DB implements Codes {
      */
     public abstract int limit(int id, int value) throws SQLException;
 
-    public interface ProgressObserver {
-        void progress(int remaining, int pageCount);
-    }
-
-    /** Progress handler */
-    public abstract void register_progress_handler(int vmCalls, ProgressHandler progressHandler)
+    /**
+     * @param schema The symbolic name of the database.
+     * @param table The name of the table.
+     * @param column The name of the column.
+     * @param rowid The rowid of the row.
+     * @param write Whether to open the BLOB for reading and writing.
+     * @return Pointer to the BLOB handle.
+     * @throws SQLException
+     * @see #openBlob(String, String, String, long, boolean)
+     */
+    abstract long blob_open(String schema, String table, String column, long rowid, boolean write)
             throws SQLException;
 
-    public abstract void clear_progress_handler() throws SQLException;
-
     /**
-     * Returns an array describing the attributes (not null, primary key and auto increment) of
-     * columns.
-     *
-     * @param stmt Pointer to the statement.
-     * @return Column attribute array.<br>
-     *     index[col][0] = true if column constrained NOT NULL;<br>
-     *     index[col][1] = true if column is part of the primary key; <br>
-     *     index[col][2] = true if column is auto-increment.
+     * @param blob Pointer to the BLOB handle.
+     * @return The length of the BLOB in bytes.
      * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_bytes.html">https://www.sqlite.org/c3ref/blob_bytes.html</a>
      */
-    abstract boolean[][] column_metadata(long stmt) throws SQLException;
-
-    // COMPOUND FUNCTIONS ////////////////////////////////////////////
+    abstract int blob_bytes(long blob) throws SQLException;
 
     /**
-     * Returns an array of column names in the result set of the SELECT statement.
-     *
+     * @param blob Pointer to the BLOB handle.
+     * @param b The array receiving the bytes.
+     * @param off The index in the array of the first byte read.
+     * @param len The number of bytes to read.
+     * @param offset The offset in the BLOB of the first byte read.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_read.html">https://www.sqlite.org/c3ref/blob_read.html</a>
+     */
+    abstract int blob_read(long blob, byte[] b, int off, int len, int offset) throws SQLException;
+
+    /**
+     * @param blob Pointer to the BLOB handle.
+     * @param b The array holding the bytes.
+     * @param off The index in the array of the first byte written.
+     * @param len The number of bytes to write.
+     * @param offset The offset in the BLOB of the first byte written.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_write.html">https://www.sqlite.org/c3ref/blob_write.html</a>
+     */
+    abstract int blob_write(long blob, byte[] b, int off, int len, int offset) throws SQLException;
+
+    /**
+     * @param blob Pointer to the BLOB handle.
+     * @param rowid The rowid of the row to move the handle to.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_reopen.html">https://www.sqlite.org/c3ref/blob_reopen.html</a>
+     */
+    abstract int blob_reopen(long blob, long rowid) throws SQLException;
+
+    /**
+     * @param blob Pointer to the BLOB handle.
+     * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
+     * @throws SQLException
+     * @see <a
+     *     href="https://www.sqlite.org/c3ref/blob_close.html">https://www.sqlite.org/c3ref/blob_close.html</a>
+     */
+    abstract int blob_close(long blob) throws SQLException;
+
+    public interface ProgressObserver {
+        void progress(int remaining, int pageCount);
+    }
+
+    /** Progress handler */
+    public abstract void register_progress_handler(int vmCalls, ProgressHandler progressHandler)
+            throws SQLException;
+
+    public abstract void clear_progress_handler() throws SQLException;
+
+    /**
+     * Returns an array describing the attributes (not null, primary key and auto increment) of
+     * columns.
+     *
+     * @param stmt Pointer to the statement.
+     * @return Column attribute array.<br>
+     *     index[col][0] = true if column constrained NOT NULL;<br>
+     *     index[col][1] = true if column is part of the primary key; <br>
+     *     index[col][2] = true if column is auto-increment.
+     * @throws SQLException
+     */
+    abstract boolean[][] column_metadata(long stmt) throws SQLException;
+
+    // COMPOUND FUNCTIONS ////////////////////////////////////////////
+
+    /**
+     * Returns an array of column names in the result set of the SELECT statement.
+     *
      * @param stmt Stmt object.
      * @return String array of column names.
      * @throws SQLException
      */
-    public final synchronized String[] column_names(long stmt) throws SQLException {
-        String[] names = new String[column_count(stmt)];
-        for (int i = 0; i < names.length; i++) {
-            names[i] = column_name(stmt, i);
+    public final String[] column_names(long stmt) throws SQLException {
+        lock.lock();
+        try {
+            String[] names = new String[column_count(stmt)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = column_name(stmt, i);
+            }
+            return names;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fetches a block of rows: decodes the current row of the statement and steps ahead until the
+     * buffer holds <code>limit</code> rows or the statement is done. All values are read while the
+     * database is locked once, so the caller can serve the rows without touching the statement.
+     *
+     * <p>The statement is left on the last fetched row. An error raised while stepping ahead is
+     * recorded in the buffer and reported after the rows fetched before it.
+     *
+     * @param stmt Pointer to the statement.
+     * @param rows The buffer to fill; it is cleared first.
+     * @param limit Maximum number of rows to fetch.
+     * @param step Whether to step to the first row, or to start with the row the statement is on.
+     * @return The number of rows fetched; 0 if the statement is done.
+     * @throws SQLException
+     */
+    public int fetch(long stmt, RowBuffer rows, int limit, boolean step) throws SQLException {
+        lock.lock();
+        try {
+            rows.clear();
+            rows.setEmptyTextBlobNull(isEmptyTextBlobNull());
+            if (step) {
+                int rc = step(stmt);
+                if (rc == SQLITE_DONE) {
+                    rows.done();
+                    return 0;
+                } else if (rc != SQLITE_ROW) {
+                    throwex(rc);
+                }
+            }
+
+            while (true) {
+                fetchRow(stmt, rows, rows.addRow());
+                if (rows.size() >= limit) {
+                    break;
+                }
+
+                int rc;
+                try {
+                    rc = step(stmt);
+                } catch (SQLException e) {
+                    rows.fail(e);
+                    break;
+                }
+                if (rc == SQLITE_DONE) {
+                    rows.done();
+                    break;
+                } else if (rc != SQLITE_ROW) {
+                    rows.fail(newSQLException(rc));
+                    break;
+                }
+            }
+            return rows.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decodes all columns of the current row into a buffer.
+     *
+     * @param stmt Pointer to the statement.
+     * @param rows The buffer.
+     * @param cell The first cell of the row, as returned by {@link RowBuffer#addRow()}.
+     * @throws SQLException
+     */
+    protected void fetchRow(long stmt, RowBuffer rows, int cell) throws SQLException {
+        for (int col = 0; col < rows.columnCount(); col++, cell++) {
+            switch (column_type(stmt, col)) {
+                case SQLITE_INTEGER:
+                    rows.setLong(cell, column_long(stmt, col));
+                    break;
+                case SQLITE_FLOAT:
+                    rows.setDouble(cell, column_double(stmt, col));
+                    break;
+                case SQLITE_TEXT:
+                    fetchText(stmt, col, rows, cell);
+                    break;
+                case SQLITE_BLOB:
+                    rows.setBlob(cell, column_blob(stmt, col));
+                    break;
+                default:
+                    rows.setNull(cell);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Copies a text value of the current row into a buffer. The default decodes it with {@link
+     * #column_text(long, int)} and encodes it again, backends that can read the UTF-8 bytes
+     * directly override it.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col The column in [0,x-1] form.
+     * @param rows The buffer.
+     * @param cell The cell of the value.
+     * @throws SQLException
+     */
+    protected void fetchText(long stmt, int col, RowBuffer rows, int cell) throws SQLException {
+        rows.setText(cell, column_text(stmt, col));
+    }
+
+    /**
+     * Reads one column of the next rows as long values. The loop steps the statement and reads the
+     * value of each row while the database is locked once.
+     *
+     * <p>A NULL value is read as 0 and marked in the null bitmap, see {@link #setNull(long[], int,
+     * boolean)}. If all requested rows are read, the statement is left on the last of them.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col The column in [0,x-1] form.
+     * @param step Whether to step to the first row, or to start with the row the statement is on.
+     * @param values The array receiving the values.
+     * @param nulls The null bitmap, or null if NULL values need not be distinguished from 0.
+     * @param offset Index of the first row in <code>values</code> and <code>nulls</code>.
+     * @param length Maximum number of rows to read.
+     * @return The number of rows read; less than <code>length</code> if the statement is done.
+     * @throws SQLException
+     */
+    public int readLongColumn(
+            long stmt, int col, boolean step, long[] values, long[] nulls, int offset, int length)
+            throws SQLException {
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < length) {
+                if ((step || n > 0) && step(stmt) == SQLITE_DONE) {
+                    break;
+                }
+                boolean isNull = column_type(stmt, col) == SQLITE_NULL;
+                values[offset + n] = isNull ? 0 : column_long(stmt, col);
+                setNull(nulls, offset + n, isNull);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads one column of the next rows as double values, see {@link #readLongColumn(long, int,
+     * boolean, long[], long[], int, int)}.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col The column in [0,x-1] form.
+     * @param step Whether to step to the first row, or to start with the row the statement is on.
+     * @param values The array receiving the values.
+     * @param nulls The null bitmap, or null if NULL values need not be distinguished from 0.
+     * @param offset Index of the first row in <code>values</code> and <code>nulls</code>.
+     * @param length Maximum number of rows to read.
+     * @return The number of rows read; less than <code>length</code> if the statement is done.
+     * @throws SQLException
+     */
+    public int readDoubleColumn(
+            long stmt, int col, boolean step, double[] values, long[] nulls, int offset, int length)
+            throws SQLException {
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < length) {
+                if ((step || n > 0) && step(stmt) == SQLITE_DONE) {
+                    break;
+                }
+                boolean isNull = column_type(stmt, col) == SQLITE_NULL;
+                values[offset + n] = isNull ? 0 : column_double(stmt, col);
+                setNull(nulls, offset + n, isNull);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads one column of the next rows as UTF-8 text appended to a buffer. The text of row
+     * <code>i</code> is stored between <code>offsets[i]</code> and <code>offsets[i + 1]</code>
+     * (exclusive) of <code>data</code>; a NULL value is stored as empty text and marked in the null
+     * bitmap.
+     *
+     * <p>If the text of a row does not fit in the remaining space of <code>data</code>, reading
+     * stops and the statement is left on that row, which has not been read. This is reported by
+     * returning the bitwise complement (<code>~n</code>) of the number of rows read.
+     *
+     * @param stmt Pointer to the statement.
+     * @param col The column in [0,x-1] form.
+     * @param step Whether to step to the first row, or to start with the row the statement is on.
+     * @param data The buffer receiving the text, from its position on.
+     * @param offsets The array receiving the offsets of the text in <code>data</code>.
+     * @param nulls The null bitmap, or null if NULL values need not be distinguished from empty
+     *     text.
+     * @param offset Index of the first row in <code>offsets</code> and <code>nulls</code>.
+     * @param length Maximum number of rows to read.
+     * @return The number of rows read, less than <code>length</code> if the statement is done; or
+     *     its complement if the statement is left on a row that has not been read.
+     * @throws SQLException
+     */
+    public int readTextColumn(
+            long stmt,
+            int col,
+            boolean step,
+            ByteBuffer data,
+            int[] offsets,
+            long[] nulls,
+            int offset,
+            int length)
+            throws SQLException {
+        lock.lock();
+        try {
+            int n = 0;
+            offsets[offset] = data.position();
+            while (n < length) {
+                if ((step || n > 0) && step(stmt) == SQLITE_DONE) {
+                    break;
+                }
+                boolean isNull = column_type(stmt, col) == SQLITE_NULL;
+                if (!isNull) {
+                    byte[] text = column_text(stmt, col).getBytes(StandardCharsets.UTF_8);
+                    if (text.length > data.remaining()) {
+                        return ~n;
+                    }
+                    data.put(text);
+                }
+                setNull(nulls, offset + n, isNull);
+                offsets[offset + n + 1] = data.position();
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets or clears the bit of a row in a null bitmap: bit <code>row % 64</code> of <code>
+     * nulls[row / 64]</code>, which is the layout of {@link java.util.BitSet#valueOf(long[])}.
+     *
+     * @param nulls The null bitmap, or null to do nothing.
+     * @param row The index of the row.
+     * @param isNull Whether the value of the row is NULL.
+     */
+    public static void setNull(long[] nulls, int row, boolean isNull) {
+        if (nulls == null) {
+            return;
+        }
+        if (isNull) {
+            nulls[row >>> 6] |= 1L << row;
+        } else {
+            nulls[row >>> 6] &= ~(1L << row);
         }
-        return names;
     }
 
     /**
      * Bind values to prepared statements
      *
      * @param stmt Pointer to the statement.
-     * @param pos Index of the SQL parameter to be set to NULL.
-     * @param v Value to bind to the parameter.
+     * @param pos Index of the SQL parameter to be set, in [0,x-1] form.
+     * @param params The parameter values.
+     * @param index The slot of the value to bind in <code>params</code>.
      * @return <a href="https://www.sqlite.org/c3ref/c_abort.html">Result Codes</a>
      * @throws SQLException
      * @see <a
      *     href="https://www.sqlite.org/c3ref/bind_blob.html">https://www.sqlite.org/c3ref/bind_blob.html</a>
      */
-    final synchronized int sqlbind(long stmt, int pos, Object v) throws SQLException {
-        pos++;
-        if (v == null) {
-            return bind_null(stmt, pos);
-        } else if (v instanceof Integer) {
-            return bind_int(stmt, pos, (Integer) v);
-        } else if (v instanceof Short) {
-            return bind_int(stmt, pos, ((Short) v).intValue());
-        } else if (v instanceof Long) {
-            return bind_long(stmt, pos, (Long) v);
-        } else if (v instanceof Float) {
-            return bind_double(stmt, pos, ((Float) v).doubleValue());
-        } else if (v instanceof Double) {
-            return bind_double(stmt, pos, (Double) v);
-        } else if (v instanceof String) {
-            return bind_text(stmt, pos, (String) v);
-        } else if (v instanceof byte[]) {
-            return bind_blob(stmt, pos, (byte[]) v);
-        } else {
-            throw new SQLException("unexpected param type: " + v.getClass());
+    final int sqlbind(long stmt, int pos, ParameterBuffer params, int index) throws SQLException {
+        lock.lock();
+        try {
+            pos++;
+            switch (params.getType(index)) {
+                case ParameterBuffer.NULL:
+                    return bind_null(stmt, pos);
+                case ParameterBuffer.INT:
+                    return bind_int(stmt, pos, (int) params.getLong(index));
+                case ParameterBuffer.LONG:
+                    return bind_long(stmt, pos, params.getLong(index));
+                case ParameterBuffer.FLOAT:
+                case ParameterBuffer.DOUBLE:
+                    return bind_double(stmt, pos, params.getDouble(index));
+                case ParameterBuffer.TEXT:
+                    return bind_text(stmt, pos, (String) params.getValue(index));
+                case ParameterBuffer.BLOB:
+                    return bind_blob(stmt, pos, (byte[]) params.getValue(index));
+                case ParameterBuffer.ZEROBLOB:
+                    return bindZeroblob(stmt, pos, params.getLong(index));
+                case ParameterBuffer.STREAM:
+                    return bind_stream(stmt, pos, (ParameterStream) params.getValue(index));
+                default:
+                    throw new SQLException(
+                            "unexpected param type: " + params.getValue(index).getClass());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -904,118 +1773,235 @@ public abstract class DB implements Codes {
      * Submits a batch of commands to the database for execution.
      *
      * @see java.sql.Statement#executeBatch()
-     * @param stmt Pointer of Stmt object.
+     * @param stmt The statement.
+     * @param sql The SQL the statement was prepared from.
      * @param count Number of SQL statements.
-     * @param vals Array of parameter values.
+     * @param vals The parameter values of all statements.
      * @return Array of the number of rows changed or inserted or deleted for each command if all
      *     commands execute successfully;
      * @throws SQLException if statement is not open or is being used elsewhere
      */
-    final synchronized long[] executeBatch(
-            SafeStmtPtr stmt, int count, Object[] vals, boolean autoCommit) throws SQLException {
-        return stmt.safeRun((db, ptr) -> this.executeBatch(ptr, count, vals, autoCommit));
+    final long[] executeBatch(
+            SafeStmtPtr stmt, String sql, int count, ParameterBuffer vals, boolean autoCommit)
+            throws SQLException {
+        lock.lock();
+        try {
+            return stmt.safeRun(
+                    (db, ptr) -> this.executeBatch(ptr, sql, count, vals, autoCommit));
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private synchronized long[] executeBatch(
-            long stmt, int count, Object[] vals, boolean autoCommit) throws SQLException {
-        if (count < 1) {
-            throw new SQLException("count (" + count + ") < 1");
-        }
+    private long[] executeBatch(
+            long stmt, String sql, int count, ParameterBuffer vals, boolean autoCommit)
+            throws SQLException {
+        lock.lock();
+        try {
+            if (count < 1) {
+                throw new SQLException("count (" + count + ") < 1");
+            }
 
-        final int params = bind_parameter_count(stmt);
+            long[] changes = new long[count];
 
-        int rc;
-        long[] changes = new long[count];
+            try {
+                flushGroup(stmt);
+                beginWrite(stmt, sql);
+                executeBatchRows(stmt, vals, changes);
+            } finally {
+                try {
+                    ensureAutoCommit(autoCommit);
+                } finally {
+                    endWrite();
+                }
+            }
+
+            reset(stmt);
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    /**
+     * Submits a batch of a statement prepared with a RETURNING clause for its generated keys, see
+     * {@link CoreStatement#addReturning(String, String[])}, keeping the keys of all rows of the
+     * batch in the statement.
+     *
+     * @param stmt The statement.
+     * @param count Number of rows of the batch.
+     * @param vals The parameter values of all rows.
+     * @param autoCommit Whether the connection is in auto-commit mode.
+     * @return Array of the number of rows inserted by each row of the batch.
+     * @throws SQLException
+     */
+    final long[] executeBatchReturning(
+            CoreStatement stmt, int count, ParameterBuffer vals, boolean autoCommit)
+            throws SQLException {
+        lock.lock();
         try {
-            for (int i = 0; i < count; i++) {
-                reset(stmt);
-                for (int j = 0; j < params; j++) {
-                    rc = sqlbind(stmt, j, vals[(i * params) + j]);
-                    if (rc != SQLITE_OK) {
-                        throwex(rc);
-                    }
+            long[] changes = new long[count];
+            List<Object[]> keys = new ArrayList<>();
+            try {
+                flushGroup();
+                stmt.pointer.safeRunConsume(
+                        (db, ptr) -> {
+                            beginWrite(ptr, stmt.sql);
+                            final int params = bind_parameter_count(ptr);
+                            for (int i = 0; i < count; i++) {
+                                reset(ptr);
+                                for (int j = 0; j < params; j++) {
+                                    int rc = sqlbind(ptr, j, vals, (i * params) + j);
+                                    if (rc != SQLITE_OK) {
+                                        throwex(rc);
+                                    }
+                                }
+                                int rc = stepReturning(ptr, step(ptr), keys);
+                                reset(ptr);
+                                if (rc != SQLITE_DONE) {
+                                    throwex(rc);
+                                }
+                                changes[i] = changes();
+                            }
+                        });
+            } finally {
+                try {
+                    ensureAutoCommit(autoCommit);
+                } finally {
+                    endWrite();
                 }
+            }
+            stmt.setGeneratedKeys(keys);
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                rc = step(stmt);
-                if (rc != SQLITE_DONE) {
-                    reset(stmt);
-                    if (rc == SQLITE_ROW) {
-                        throw new BatchUpdateException(
-                                "batch entry " + i + ": query returns results",
-                                null,
-                                0,
-                                changes,
-                                null);
-                    }
+    /**
+     * Executes a statement once per row of a batch: resets it, binds the parameters of the row and
+     * steps it.
+     *
+     * @param stmt Pointer to the statement.
+     * @param vals The parameter values of all rows.
+     * @param changes The array receiving the number of rows changed by each execution; its length
+     *     is the number of rows.
+     * @throws SQLException if an execution fails; a {@link BatchUpdateException} if the statement
+     *     returns results
+     */
+    protected void executeBatchRows(long stmt, ParameterBuffer vals, long[] changes)
+            throws SQLException {
+        final int params = bind_parameter_count(stmt);
+
+        int rc;
+        for (int i = 0; i < changes.length; i++) {
+            reset(stmt);
+            for (int j = 0; j < params; j++) {
+                rc = sqlbind(stmt, j, vals, (i * params) + j);
+                if (rc != SQLITE_OK) {
                     throwex(rc);
                 }
+            }
 
-                changes[i] = changes();
+            rc = step(stmt);
+            if (rc != SQLITE_DONE) {
+                reset(stmt);
+                if (rc == SQLITE_ROW) {
+                    throw new BatchUpdateException(
+                            "batch entry " + i + ": query returns results",
+                            null,
+                            0,
+                            changes,
+                            null);
+                }
+                throwex(rc);
             }
-        } finally {
-            ensureAutoCommit(autoCommit);
-        }
 
-        reset(stmt);
-        return changes;
+            changes[i] = changes();
+        }
     }
 
     /**
      * @see <a
      *     href="https://www.sqlite.org/c_interface.html#sqlite_exec">https://www.sqlite.org/c_interface.html#sqlite_exec</a>
      * @param stmt Stmt object.
-     * @param vals Array of parameter values.
+     * @param vals The parameter values, or null if the statement has no parameters.
      * @return True if a row of ResultSet is ready; false otherwise.
      * @throws SQLException
      */
-    public final synchronized boolean execute(CoreStatement stmt, Object[] vals)
-            throws SQLException {
-        int statusCode = stmt.pointer.safeRunInt((db, ptr) -> execute(ptr, vals));
-        switch (statusCode & 0xFF) {
-            case SQLITE_DONE:
-                ensureAutoCommit(stmt.conn.getAutoCommit());
-                return false;
-            case SQLITE_ROW:
-                return true;
-            case SQLITE_BUSY:
-            case SQLITE_LOCKED:
-            case SQLITE_MISUSE:
-            case SQLITE_CONSTRAINT:
-                throw newSQLException(statusCode);
-            default:
-                stmt.pointer.close();
-                throw newSQLException(statusCode);
+    public final boolean execute(CoreStatement stmt, ParameterBuffer vals) throws SQLException {
+        lock.lock();
+        try {
+            stmt.pointer.safeRunConsume(DB::flushGroup);
+            return executeNow(stmt, vals);
+        } finally {
+            lock.unlock();
         }
     }
 
-    private synchronized int execute(long ptr, Object[] vals) throws SQLException {
-        if (vals != null) {
-            final int params = bind_parameter_count(ptr);
-            if (params > vals.length) {
-                throw new SQLException(
-                        "assertion failure: param count ("
-                                + params
-                                + ") > value count ("
-                                + vals.length
-                                + ")");
+    /** Executes a statement like {@link #execute(CoreStatement, ParameterBuffer)}, in the group. */
+    private boolean executeNow(CoreStatement stmt, ParameterBuffer vals) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                stmt.pointer.safeRunConsume((db, ptr) -> beginWrite(ptr, stmt.sql));
+                int statusCode = stmt.pointer.safeRunInt((db, ptr) -> execute(ptr, vals));
+                switch (statusCode & 0xFF) {
+                    case SQLITE_DONE:
+                        ensureAutoCommit(stmt.conn.getAutoCommit());
+                        return false;
+                    case SQLITE_ROW:
+                        return true;
+                    case SQLITE_BUSY:
+                    case SQLITE_LOCKED:
+                    case SQLITE_MISUSE:
+                    case SQLITE_CONSTRAINT:
+                        throw newSQLException(statusCode);
+                    default:
+                        stmt.pointer.close();
+                        throw newSQLException(statusCode);
+                }
+            } finally {
+                endWrite();
             }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            for (int i = 0; i < params; i++) {
-                int rc = sqlbind(ptr, i, vals[i]);
-                if (rc != SQLITE_OK) {
-                    throwex(rc);
+    private int execute(long ptr, ParameterBuffer vals) throws SQLException {
+        lock.lock();
+        try {
+            if (vals != null) {
+                final int params = bind_parameter_count(ptr);
+                if (params > vals.size()) {
+                    throw new SQLException(
+                            "assertion failure: param count ("
+                                    + params
+                                    + ") > value count ("
+                                    + vals.size()
+                                    + ")");
+                }
+
+                for (int i = 0; i < params; i++) {
+                    int rc = sqlbind(ptr, i, vals, i);
+                    if (rc != SQLITE_OK) {
+                        throwex(rc);
+                    }
                 }
             }
-        }
 
-        int statusCode = step(ptr);
-        if ((statusCode & 0xFF) == SQLITE_DONE) reset(ptr);
-        return statusCode;
+            int statusCode = step(ptr);
+            if ((statusCode & 0xFF) == SQLITE_DONE) reset(ptr);
+            return statusCode;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Executes the given SQL statement using the one-step query execution interface.
+     * Executes the given SQL statement using the one-step query execution interface. The SQL is
+     * not classified, so this waits for the write queue of the file first if it is enabled.
      *
      * @param sql SQL statement to be executed.
      * @return True if a row of ResultSet is ready; false otherwise.
@@ -1023,18 +2009,52 @@ public abstract class DB implements Codes {
      * @see <a
      *     href="https://www.sqlite.org/c3ref/exec.html">https://www.sqlite.org/c3ref/exec.html</a>
      */
-    final synchronized boolean execute(String sql, boolean autoCommit) throws SQLException {
-        int statusCode = _exec(sql);
-        switch (statusCode) {
-            case SQLITE_OK:
-                return false;
-            case SQLITE_DONE:
-                ensureAutoCommit(autoCommit);
-                return false;
-            case SQLITE_ROW:
-                return true;
-            default:
-                throw newSQLException(statusCode);
+    final boolean execute(String sql, boolean autoCommit) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                flushGroup();
+                beginWrite();
+                int statusCode = _exec(sql);
+                switch (statusCode) {
+                    case SQLITE_OK:
+                        return false;
+                    case SQLITE_DONE:
+                        ensureAutoCommit(autoCommit);
+                        return false;
+                    case SQLITE_ROW:
+                        return true;
+                    default:
+                        throw newSQLException(statusCode);
+                }
+            } finally {
+                endWrite();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes one or more SQL statements with {@link #_exec(String)}, waiting for the write queue
+     * of the file first if it is enabled, as the statements may write.
+     *
+     * @param sql The SQL statements.
+     * @return The result code of sqlite3_exec.
+     * @throws SQLException
+     */
+    public final int execScript(String sql) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                flushGroup();
+                beginWrite();
+                return _exec(sql);
+            } finally {
+                endWrite();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1042,59 +2062,336 @@ public abstract class DB implements Codes {
      * Execute an SQL INSERT, UPDATE or DELETE statement with the Stmt object and an array of
      * parameter values of the SQL statement..
      *
+     * <p>With group commit, an update in auto-commit mode joins the transaction of a group and is
+     * not committed yet: the caller must call {@link #awaitCommit(CoreStatement)} once it has
+     * released the lock.
+     *
      * @param stmt Stmt object.
-     * @param vals Array of parameter values.
+     * @param vals The parameter values, or null if the statement has no parameters.
      * @return Number of database rows that were changed or inserted or deleted by the most recently
      *     completed SQL.
      * @throws SQLException
      */
-    public final synchronized long executeUpdate(CoreStatement stmt, Object[] vals)
+    public final long executeUpdate(CoreStatement stmt, ParameterBuffer vals) throws SQLException {
+        if (groupCommit == null || !stmt.conn.getAutoCommit()) {
+            return executeUpdateNow(stmt, vals);
+        }
+
+        lock.lock();
+        try {
+            GroupCommit.Group group = joinGroup();
+            if (group != null) {
+                stmt.pendingCommit = group;
+            }
+            try {
+                return executeUpdateNow(stmt, vals);
+            } catch (SQLException e) {
+                if (group != null && get_autocommit()) {
+                    // the error rolled back the transaction, with the updates of the group
+                    group.abort(e);
+                    groupCommit.close(group);
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the group commit joined by the last update of a statement has committed it, see
+     * {@link org.sqlite.SQLiteConfig#setGroupCommitWindow(int)}. Returns at once if the update did
+     * not join a group. Must be called without holding the lock, as the other updates of the group
+     * need it.
+     *
+     * @param stmt the statement
+     * @throws SQLException if the transaction of the group was not committed
+     */
+    public final void awaitCommit(CoreStatement stmt) throws SQLException {
+        GroupCommit.Group group = stmt.pendingCommit;
+        if (group != null) {
+            stmt.pendingCommit = null;
+            awaitGroup(group);
+        }
+    }
+
+    private long executeUpdateNow(CoreStatement stmt, ParameterBuffer vals) throws SQLException {
+        lock.lock();
+        try {
+            try {
+                if (executeNow(stmt, vals)) {
+                    throw new SQLException("query returns results");
+                }
+            } finally {
+                if (!stmt.pointer.isClosed()) {
+                    stmt.pointer.safeRunInt(DB::reset);
+                }
+            }
+            return changes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes an INSERT prepared with a RETURNING clause for its generated keys, see {@link
+     * CoreStatement#addReturning(String, String[])}, keeping the rows it returns in the statement.
+     *
+     * @param stmt Stmt object.
+     * @param vals The parameter values, or null if the statement has no parameters.
+     * @return Number of rows inserted.
+     * @throws SQLException
+     */
+    public final long executeReturning(CoreStatement stmt, ParameterBuffer vals)
             throws SQLException {
+        lock.lock();
         try {
-            if (execute(stmt, vals)) {
-                throw new SQLException("query returns results");
+            List<Object[]> keys = new ArrayList<>();
+            try {
+                flushGroup();
+                stmt.pointer.safeRunConsume((db, ptr) -> beginWrite(ptr, stmt.sql));
+                int rc =
+                        stmt.pointer.safeRunInt(
+                                (db, ptr) -> stepReturning(ptr, execute(ptr, vals), keys));
+                if (rc != SQLITE_DONE) {
+                    throwex(rc);
+                }
+                ensureAutoCommit(stmt.conn.getAutoCommit());
+            } finally {
+                if (!stmt.pointer.isClosed()) {
+                    stmt.pointer.safeRunInt(DB::reset);
+                }
+                endWrite();
             }
+            stmt.setGeneratedKeys(keys);
+            return changes();
         } finally {
-            if (!stmt.pointer.isClosed()) {
-                stmt.pointer.safeRunInt(DB::reset);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Steps a statement through the rows it returns. All changes of a statement with a RETURNING
+     * clause are made by its first step, and its rows are buffered by SQLite.
+     *
+     * @param stmt Pointer to the statement.
+     * @param rc The result code of its first step.
+     * @param rows The list receiving the values of the rows.
+     * @return The result code of the last step; SQLITE_DONE if all rows were read.
+     */
+    private int stepReturning(long stmt, int rc, List<Object[]> rows) throws SQLException {
+        while ((rc & 0xFF) == SQLITE_ROW) {
+            Object[] row = new Object[column_count(stmt)];
+            for (int i = 0; i < row.length; i++) {
+                switch (column_type(stmt, i)) {
+                    case SQLITE_INTEGER:
+                        row[i] = column_long(stmt, i);
+                        break;
+                    case SQLITE_FLOAT:
+                        row[i] = column_double(stmt, i);
+                        break;
+                    case SQLITE_TEXT:
+                        row[i] = column_text(stmt, i);
+                        break;
+                    case SQLITE_BLOB:
+                        row[i] = column_blob(stmt, i);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            rows.add(row);
+            rc = step(stmt);
+        }
+        return rc & 0xFF;
+    }
+
+    /**
+     * Joins the open group of auto-commit updates, or begins the transaction of a new group.
+     *
+     * @return the group, or null if a transaction was begun explicitly, which the update is part of
+     */
+    private GroupCommit.Group joinGroup() throws SQLException {
+        GroupCommit.Group group = groupCommit.open();
+        if (group != null) {
+            return group;
+        }
+        if (!get_autocommit()) {
+            return null;
+        }
+        beginWrite();
+        execPrepared(control("begin immediate;"), false);
+        return groupCommit.start();
+    }
+
+    /**
+     * Waits for a group to end, committing it if its window has passed first.
+     *
+     * @throws SQLException if the transaction of the group was not committed
+     */
+    private void awaitGroup(GroupCommit.Group group) throws SQLException {
+        if (!group.await()) {
+            lock.lock();
+            try {
+                commitGroup(group);
+            } finally {
+                lock.unlock();
+            }
+        }
+        group.checkCommitted();
+    }
+
+    /** Commits the open group of auto-commit updates, if any. */
+    private void flushGroup() throws SQLException {
+        if (groupCommit != null && groupCommit.open() != null) {
+            commitGroup(groupCommit.open());
+        }
+    }
+
+    /**
+     * Commits the open group of auto-commit updates before a statement that does not join it,
+     * unless the statement only reads. A write would otherwise be made in the transaction of the
+     * group, and be lost without its caller knowing if the commit of the group failed.
+     */
+    private void flushGroup(long stmt) throws SQLException {
+        if (groupCommit != null && groupCommit.open() != null) {
+            // transaction control statements count as read-only too, but return no columns
+            if (!stmt_readonly(stmt) || column_count(stmt) == 0) {
+                commitGroup(groupCommit.open());
+            }
+        }
+    }
+
+    /** Ends the transaction of a group, unless another member did, and wakes its members. */
+    private void commitGroup(GroupCommit.Group group) throws SQLException {
+        if (group.isDone()) {
+            return;
+        }
+        groupCommit.close(group);
+        SQLException failure = group.aborted();
+        if (failure == null) {
+            try {
+                execPrepared(control("commit;"), false);
+            } catch (SQLException e) {
+                failure = e;
+                try {
+                    if (!get_autocommit()) {
+                        execPrepared(control("rollback;"), false);
+                    }
+                } catch (SQLException rollback) {
+                    e.addSuppressed(rollback);
+                }
+            }
+        }
+        group.complete(failure);
+        endWrite();
+    }
+
+    /**
+     * Takes the write permit of the file, unless this connection holds it already, see {@link
+     * WriteQueue}. A connection that holds a read transaction does not wait for the permit, as its
+     * holder could not commit until the read transaction ends.
+     */
+    private void beginWrite() throws SQLException {
+        if (writeQueue != null && !writing) {
+            if (txn_state() == SQLITE_TXN_READ) {
+                writeQueue.acquireNow();
+            } else {
+                writeQueue.acquire(config.getBusyTimeout());
             }
+            writing = true;
+        }
+    }
+
+    /**
+     * Takes the write permit of the file before a statement that may change the database, or that
+     * begins a transaction holding the write lock of the file.
+     *
+     * @param stmt Pointer to the statement.
+     * @param sql The SQL the statement was prepared from.
+     */
+    private void beginWrite(long stmt, String sql) throws SQLException {
+        if (writeQueue != null && !writing && (!stmt_readonly(stmt) || beginsWrite(sql))) {
+            beginWrite();
+        }
+    }
+
+    /**
+     * @return whether the SQL is a BEGIN IMMEDIATE or EXCLUSIVE, which takes the write lock of the
+     *     file without changing the database. It is told from the text, so as not to depend on how
+     *     sqlite3_stmt_readonly() classifies transaction control.
+     */
+    private static boolean beginsWrite(String sql) {
+        return sql != null && BEGIN_WRITE.matcher(sql).lookingAt();
+    }
+
+    /**
+     * Gives the write permit of the file back once this connection has no write transaction open,
+     * after a statement was executed, reset or committed.
+     */
+    void endWrite() throws SQLException {
+        if (writing && txn_state() != SQLITE_TXN_WRITE) {
+            writing = false;
+            writeQueue.release();
         }
-        return changes();
     }
 
     abstract void set_commit_listener(boolean enabled);
 
     abstract void set_update_listener(boolean enabled);
 
-    public synchronized void addUpdateListener(SQLiteUpdateListener listener) {
-        if (updateListeners.add(listener) && updateListeners.size() == 1) {
-            set_update_listener(true);
+    public void addUpdateListener(SQLiteUpdateListener listener) {
+        lock.lock();
+        try {
+            if (updateListeners.add(listener) && updateListeners.size() == 1) {
+                set_update_listener(true);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void addCommitListener(SQLiteCommitListener listener) {
-        if (commitListeners.add(listener) && commitListeners.size() == 1) {
-            set_commit_listener(true);
+    public void addCommitListener(SQLiteCommitListener listener) {
+        lock.lock();
+        try {
+            if (commitListeners.add(listener) && commitListeners.size() == 1) {
+                set_commit_listener(true);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void removeUpdateListener(SQLiteUpdateListener listener) {
-        if (updateListeners.remove(listener) && updateListeners.isEmpty()) {
-            set_update_listener(false);
+    public void removeUpdateListener(SQLiteUpdateListener listener) {
+        lock.lock();
+        try {
+            if (updateListeners.remove(listener) && updateListeners.isEmpty()) {
+                set_update_listener(false);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void removeCommitListener(SQLiteCommitListener listener) {
-        if (commitListeners.remove(listener) && commitListeners.isEmpty()) {
-            set_commit_listener(false);
+    public void removeCommitListener(SQLiteCommitListener listener) {
+        lock.lock();
+        try {
+            if (commitListeners.remove(listener) && commitListeners.isEmpty()) {
+                set_commit_listener(false);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     void onUpdate(int type, String database, String table, long rowId) {
         Set<SQLiteUpdateListener> listeners;
 
-        synchronized (this) {
+        lock.lock();
+        try {
             listeners = new HashSet<>(updateListeners);
+        } finally {
+            lock.unlock();
         }
 
         for (SQLiteUpdateListener listener : listeners) {
@@ -1121,8 +2418,11 @@ public abstract class DB implements Codes {
     void onCommit(boolean commit) {
         Set<SQLiteCommitListener> listeners;
 
-        synchronized (this) {
+        lock.lock();
+        try {
             listeners = new HashSet<>(commitListeners);
+        } finally {
+            lock.unlock();
         }
 
         for (SQLiteCommitListener listener : listeners) {
@@ -1209,7 +2509,11 @@ public abstract class DB implements Codes {
      *
      * <p>Results in the data never being written to disk.
      *
-     * <p>As a solution, we call "commit" after every statement in auto-commit mode.
+     * <p>As a solution, we call "commit" after every statement in auto-commit mode. That is only
+     * needed while such an implicit transaction has pending writes: with no transaction open the
+     * statement was already committed, and a transaction begun with BEGIN is the application's to
+     * commit, so those common cases cost two cheap calls instead of stepping "begin" and "commit".
+     * A backend without those calls, see {@link #supportsExtendedApi()}, always steps them.
      *
      * @throws SQLException
      */
@@ -1218,30 +2522,33 @@ public abstract class DB implements Codes {
             return;
         }
 
-        ensureBeginAndCommit();
+        lock.lock();
+        try {
+            if (supportsExtendedApi()
+                    && (!get_autocommit() || txn_state() != SQLITE_TXN_WRITE)) {
+                return;
+            }
 
-        begin.safeRunConsume(
-                (db, beginPtr) -> {
-                    commit.safeRunConsume(
-                            (db2, commitPtr) -> ensureAutocommit(beginPtr, commitPtr));
-                });
+            SafeStmtPtr begin = control("begin;");
+            SafeStmtPtr commit = control("commit;");
+            begin.safeRunConsume(
+                    (db, beginPtr) -> {
+                        commit.safeRunConsume(
+                                (db2, commitPtr) -> ensureAutocommit(beginPtr, commitPtr));
+                    });
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private void ensureBeginAndCommit() throws SQLException {
-        if (begin == null) {
-            synchronized (this) {
-                if (begin == null) {
-                    begin = prepare("begin;");
-                }
-            }
-        }
-        if (commit == null) {
-            synchronized (this) {
-                if (commit == null) {
-                    commit = prepare("commit;");
-                }
-            }
+    /** @return the kept statement of a transaction control statement, see {@link #execControl} */
+    private SafeStmtPtr control(String sql) throws SQLException {
+        SafeStmtPtr pointer = controls.get(sql);
+        if (pointer == null) {
+            pointer = prepare(sql, SQLITE_PREPARE_PERSISTENT);
+            controls.put(sql, pointer);
         }
+        return pointer;
     }
 
     private void ensureAutocommit(long beginPtr, long commitPtr) throws SQLException {
@@ -0,0 +1,168 @@
+package org.sqlite.core;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.sqlite.SQLiteException;
+
+/**
+ * The groups of a connection whose auto-commit updates share one transaction, see {@link
+ * org.sqlite.SQLiteConfig#setGroupCommitWindow(int)}.
+ *
+ * <p>At most one group is open at a time: its transaction was begun by the first update and is
+ * joined by the updates that follow until the group is committed. The open group is only read and
+ * changed while the database is locked; the members wait for their group without the lock.
+ */
+final class GroupCommit {
+    private final long windowNanos;
+    private Group open;
+
+    /** @param windowMicros how long a group accepts updates after it was begun */
+    GroupCommit(int windowMicros) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+    }
+
+    /** @return the group whose transaction is open, or null */
+    Group open() {
+        return open;
+    }
+
+    /**
+     * Starts a group, after its transaction was begun.
+     *
+     * @return the group, committed once the window has passed
+     */
+    Group start() {
+        open = new Group(System.nanoTime() + windowNanos);
+        return open;
+    }
+
+    /**
+     * Closes a group to new updates, before its transaction ends.
+     *
+     * @param group the group
+     */
+    void close(Group group) {
+        if (open == group) {
+            open = null;
+        }
+    }
+
+    /**
+     * The updates that share a transaction, and the outcome of its commit. Its members wait on a
+     * {@link Condition} rather than a monitor, so that virtual threads waiting for the commit do
+     * not pin their carrier.
+     */
+    static final class Group {
+        private final long deadline;
+        private final Lock lock = new ReentrantLock();
+        private final Condition ended = lock.newCondition();
+        private boolean done = false;
+        private SQLException failure;
+
+        private Group(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Fails the group without committing it, as its transaction was rolled back.
+         *
+         * @param cause the error that rolled back the transaction
+         */
+        void abort(SQLException cause) {
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failure = cause;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** @return the error that rolled back the transaction of the group, or null */
+        SQLException aborted() {
+            lock.lock();
+            try {
+                return failure;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** @return whether the transaction of the group has ended */
+        boolean isDone() {
+            lock.lock();
+            try {
+                return done;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ends the group and wakes its members.
+         *
+         * @param failure the error that ended the transaction without committing it, or null if it
+         *     was committed
+         */
+        void complete(SQLException failure) {
+            lock.lock();
+            try {
+                this.done = true;
+                this.failure = failure;
+                ended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until the group has ended or its window has passed. An interrupt ends the wait
+         * early and is kept for the caller.
+         *
+         * @return whether the group has ended; if not, the caller commits it
+         */
+        boolean await() {
+            lock.lock();
+            try {
+                long remaining;
+                while (!done && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        ended.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                return done;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @throws SQLException if the transaction of the group was not committed, with the error
+         *     that ended it as cause
+         */
+        void checkCommitted() throws SQLException {
+            SQLException failure = aborted();
+            if (failure == null) {
+                return;
+            }
+            SQLException exception =
+                    failure instanceof SQLiteException
+                            ? new SQLiteException(
+                                    failure.getMessage(),
+                                    ((SQLiteException) failure).getResultCode())
+                            : new SQLException(
+                                    failure.getMessage(),
+                                    failure.getSQLState(),
+                                    failure.getErrorCode());
+            exception.initCause(failure);
+            throw exception;
+        }
+    }
+}
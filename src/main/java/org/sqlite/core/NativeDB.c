@@ -764,6 +764,19 @@ JNIEXPORT jlong JNICALL Java_org_sqlite_core_NativeDB_changes(
     return sqlite3_changes64(db);
 }
 
+JNIEXPORT jlong JNICALL Java_org_sqlite_core_NativeDB_last_1insert_1rowid(
+        JNIEnv *env, jobject this)
+{
+    sqlite3 *db = gethandle(env, this);
+    if (!db)
+    {
+        throwex_db_closed(env);
+        return 0;
+    }
+
+    return sqlite3_last_insert_rowid(db);
+}
+
 JNIEXPORT jlong JNICALL Java_org_sqlite_core_NativeDB_total_1changes(
         JNIEnv *env, jobject this)
 {
@@ -777,6 +790,32 @@ JNIEXPORT jlong JNICALL Java_org_sqlite_core_NativeDB_total_1changes(
     return sqlite3_total_changes64(db);
 }
 
+JNIEXPORT jboolean JNICALL Java_org_sqlite_core_NativeDB_get_1autocommit(
+        JNIEnv *env, jobject this)
+{
+    sqlite3 *db = gethandle(env, this);
+    if (!db)
+    {
+        throwex_db_closed(env);
+        return JNI_FALSE;
+    }
+
+    return sqlite3_get_autocommit(db) ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_txn_1state(
+        JNIEnv *env, jobject this)
+{
+    sqlite3 *db = gethandle(env, this);
+    if (!db)
+    {
+        throwex_db_closed(env);
+        return 0;
+    }
+
+    return sqlite3_txn_state(db, NULL);
+}
+
 JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_finalize(
         JNIEnv *env, jobject this, jlong stmt)
 {
@@ -837,6 +876,18 @@ JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_bind_1parameter_1count(
     return sqlite3_bind_parameter_count(toref(stmt));
 }
 
+JNIEXPORT jboolean JNICALL Java_org_sqlite_core_NativeDB_stmt_1readonly(
+        JNIEnv *env, jobject this, jlong stmt)
+{
+    if (!stmt)
+    {
+        throwex_stmt_finalized(env);
+        return JNI_FALSE;
+    }
+
+    return sqlite3_stmt_readonly(toref(stmt)) ? JNI_TRUE : JNI_FALSE;
+}
+
 JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_column_1count(
         JNIEnv *env, jobject this, jlong stmt)
 {
@@ -1120,6 +1171,18 @@ JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_bind_1blob(
     return rc;
 }
 
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_bind_1zeroblob(
+        JNIEnv *env, jobject this, jlong stmt, jint pos, jlong length)
+{
+    if (!stmt)
+    {
+        throwex_stmt_finalized(env);
+        return SQLITE_MISUSE;
+    }
+
+    return sqlite3_bind_zeroblob64(toref(stmt), pos, (sqlite3_uint64) length);
+}
+
 JNIEXPORT void JNICALL Java_org_sqlite_core_NativeDB_result_1null(
         JNIEnv *env, jobject this, jlong context)
 {
@@ -1416,6 +1479,127 @@ JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_limit(JNIEnv *env, jobject
 
 // COMPOUND FUNCTIONS ///////////////////////////////////////////////
 
+JNIEXPORT jlong JNICALL Java_org_sqlite_core_NativeDB_blob_1open_1utf8(
+        JNIEnv *env, jobject this, jbyteArray jschema, jbyteArray jtable, jbyteArray jcolumn,
+        jlong rowid, jboolean write)
+{
+    sqlite3 *db;
+    sqlite3_blob *blob = 0;
+    char *schema_bytes;
+    char *table_bytes;
+    char *column_bytes;
+    int status;
+
+    db = gethandle(env, this);
+    if (!db)
+    {
+        throwex_db_closed(env);
+        return 0;
+    }
+
+    utf8JavaByteArrayToUtf8Bytes(env, jschema, &schema_bytes, NULL);
+    if (!schema_bytes) return fromref(0);
+    utf8JavaByteArrayToUtf8Bytes(env, jtable, &table_bytes, NULL);
+    if (!table_bytes)
+    {
+        freeUtf8Bytes(schema_bytes);
+        return fromref(0);
+    }
+    utf8JavaByteArrayToUtf8Bytes(env, jcolumn, &column_bytes, NULL);
+    if (!column_bytes)
+    {
+        freeUtf8Bytes(schema_bytes);
+        freeUtf8Bytes(table_bytes);
+        return fromref(0);
+    }
+
+    status = sqlite3_blob_open(db, schema_bytes, table_bytes, column_bytes, rowid, write ? 1 : 0, &blob);
+    freeUtf8Bytes(schema_bytes);
+    freeUtf8Bytes(table_bytes);
+    freeUtf8Bytes(column_bytes);
+
+    if (status != SQLITE_OK)
+    {
+        throwex_errorcode(env, this, status);
+        return fromref(0);
+    }
+    return fromref(blob);
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_blob_1bytes(
+        JNIEnv *env, jobject this, jlong blob)
+{
+    if (!blob)
+    {
+        throwex_msg(env, "The blob handle is closed");
+        return 0;
+    }
+
+    return sqlite3_blob_bytes(toref(blob));
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_blob_1read(
+        JNIEnv *env, jobject this, jlong blob, jbyteArray b, jint off, jint len, jint offset)
+{
+    jint rc;
+    void *buf;
+
+    if (!blob)
+    {
+        throwex_msg(env, "The blob handle is closed");
+        return SQLITE_MISUSE;
+    }
+
+    // read into native memory first, sqlite may do I/O which must not happen in a critical region
+    buf = sqlite3_malloc(len > 0 ? len : 1);
+    if (!buf) { throwex_outofmemory(env); return SQLITE_NOMEM; }
+    rc = sqlite3_blob_read(toref(blob), buf, len, offset);
+    if (rc == SQLITE_OK)
+    {
+        (*env)->SetByteArrayRegion(env, b, off, len, (const jbyte*) buf);
+    }
+    sqlite3_free(buf);
+    return rc;
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_blob_1write(
+        JNIEnv *env, jobject this, jlong blob, jbyteArray b, jint off, jint len, jint offset)
+{
+    jint rc;
+    void *buf;
+
+    if (!blob)
+    {
+        throwex_msg(env, "The blob handle is closed");
+        return SQLITE_MISUSE;
+    }
+
+    buf = sqlite3_malloc(len > 0 ? len : 1);
+    if (!buf) { throwex_outofmemory(env); return SQLITE_NOMEM; }
+    (*env)->GetByteArrayRegion(env, b, off, len, (jbyte*) buf);
+    rc = sqlite3_blob_write(toref(blob), buf, len, offset);
+    sqlite3_free(buf);
+    return rc;
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_blob_1reopen(
+        JNIEnv *env, jobject this, jlong blob, jlong rowid)
+{
+    if (!blob)
+    {
+        throwex_msg(env, "The blob handle is closed");
+        return SQLITE_MISUSE;
+    }
+
+    return sqlite3_blob_reopen(toref(blob), rowid);
+}
+
+JNIEXPORT jint JNICALL Java_org_sqlite_core_NativeDB_blob_1close(
+        JNIEnv *env, jobject this, jlong blob)
+{
+    return sqlite3_blob_close(toref(blob));
+}
+
 JNIEXPORT jobjectArray JNICALL Java_org_sqlite_core_NativeDB_column_1metadata(
         JNIEnv *env, jobject this, jlong stmt)
 {
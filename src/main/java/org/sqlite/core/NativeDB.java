@@ -27,6 +27,7 @@ import org.sqlite.Function;
 import org.sqlite.ProgressHandler;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteJDBCLoader;
+import org.sqlite.SQLiteLimits;
 
 /** This class provides a thin JNI layer over the SQLite3 C API. */
 public final class NativeDB extends DB {
@@ -41,6 +42,9 @@ public final class NativeDB extends DB {
     private static boolean isLoaded;
     private static boolean loadSucceeded;
 
+    /** Whether the loaded library supports the extended API, null until probed. */
+    private static volatile Boolean extendedApi;
+
     static {
         if ("The Android Project".equals(System.getProperty("java.vm.vendor"))) {
             System.loadLibrary("sqlitejdbc");
@@ -158,6 +162,18 @@ public final class NativeDB extends DB {
     @Override
     public synchronized native long total_changes();
 
+    /** @see org.sqlite.core.DB#last_insert_rowid() */
+    @Override
+    synchronized native long last_insert_rowid();
+
+    /** @see org.sqlite.core.DB#get_autocommit() */
+    @Override
+    synchronized native boolean get_autocommit();
+
+    /** @see org.sqlite.core.DB#txn_state() */
+    @Override
+    synchronized native int txn_state();
+
     /** @see org.sqlite.core.DB#finalize(long) */
     @Override
     protected synchronized native int finalize(long stmt);
@@ -178,6 +194,38 @@ public final class NativeDB extends DB {
     @Override
     synchronized native int bind_parameter_count(long stmt);
 
+    /** @see org.sqlite.core.DB#stmt_readonly(long) */
+    @Override
+    synchronized native boolean stmt_readonly(long stmt) throws SQLException;
+
+    /**
+     * Probes the loaded library once for the functions of the extended API, which a library built
+     * from an older NativeDB.c lacks altogether.
+     *
+     * @see org.sqlite.core.DB#supportsExtendedApi()
+     */
+    @Override
+    boolean supportsExtendedApi() {
+        Boolean supported = extendedApi;
+        if (supported == null) {
+            try {
+                // answered without a database: fails on the null statement if the function exists
+                stmt_readonly(0);
+                supported = true;
+            } catch (SQLException e) {
+                supported = true;
+            } catch (UnsatisfiedLinkError e) {
+                logger.warn(
+                        "The native library predates this driver: generated keys are read with"
+                                + " SQL, and group commit, the write queue and incremental blob"
+                                + " I/O are unavailable");
+                supported = false;
+            }
+            extendedApi = supported;
+        }
+        return supported;
+    }
+
     /** @see org.sqlite.core.DB#column_count(long) */
     @Override
     public synchronized native int column_count(long stmt);
@@ -218,6 +266,25 @@ public final class NativeDB extends DB {
 
     synchronized native ByteBuffer column_text_utf8(long stmt, int col);
 
+    /** @see org.sqlite.core.DB#column_text(long, int, StringDictionary) */
+    @Override
+    public synchronized String column_text(long stmt, int col, StringDictionary dictionary) {
+        ByteBuffer utf8 = column_text_utf8(stmt, col);
+        if (utf8 == null) {
+            return null;
+        }
+        int length = utf8.remaining();
+        byte[] bytes = dictionary.scratch(length);
+        utf8.get(bytes, 0, length);
+        return dictionary.get(bytes, 0, length);
+    }
+
+    /** @see org.sqlite.core.DB#fetchText(long, int, RowBuffer, int) */
+    @Override
+    protected void fetchText(long stmt, int col, RowBuffer rows, int cell) {
+        rows.setText(cell, column_text_utf8(stmt, col));
+    }
+
     /** @see org.sqlite.core.DB#column_blob(long, int) */
     @Override
     public synchronized native byte[] column_blob(long stmt, int col);
@@ -262,6 +329,23 @@ public final class NativeDB extends DB {
     @Override
     synchronized native int bind_blob(long stmt, int pos, byte[] v);
 
+    /** @see org.sqlite.core.DB#bind_zeroblob(long, int, long) */
+    @Override
+    synchronized native int bind_zeroblob(long stmt, int pos, long length);
+
+    /**
+     * Binds the UTF-8 bytes of a text stream as they are read, without decoding them into a
+     * string first.
+     *
+     * @see org.sqlite.core.DB#bind_stream(long, int, ParameterStream)
+     */
+    @Override
+    synchronized int bind_stream(long stmt, int pos, ParameterStream stream)
+            throws SQLException {
+        byte[] bytes = stream.readAll(limit(SQLiteLimits.SQLITE_LIMIT_LENGTH.getId(), -1));
+        return stream.isText() ? bind_text_utf8(stmt, pos, bytes) : bind_blob(stmt, pos, bytes);
+    }
+
     /** @see org.sqlite.core.DB#result_null(long) */
     @Override
     public synchronized native void result_null(long context);
@@ -363,6 +447,43 @@ public final class NativeDB extends DB {
     @Override
     public synchronized native int limit(int id, int value) throws SQLException;
 
+    /** @see org.sqlite.core.DB#blob_open(String, String, String, long, boolean) */
+    @Override
+    synchronized long blob_open(
+            String schema, String table, String column, long rowid, boolean write)
+            throws SQLException {
+        return blob_open_utf8(
+                nameToUtf8ByteArray("schema", schema),
+                nameToUtf8ByteArray("table", table),
+                nameToUtf8ByteArray("column", column),
+                rowid,
+                write);
+    }
+
+    synchronized native long blob_open_utf8(
+            byte[] schemaUtf8, byte[] tableUtf8, byte[] columnUtf8, long rowid, boolean write)
+            throws SQLException;
+
+    /** @see org.sqlite.core.DB#blob_bytes(long) */
+    @Override
+    synchronized native int blob_bytes(long blob);
+
+    /** @see org.sqlite.core.DB#blob_read(long, byte[], int, int, int) */
+    @Override
+    synchronized native int blob_read(long blob, byte[] b, int off, int len, int offset);
+
+    /** @see org.sqlite.core.DB#blob_write(long, byte[], int, int, int) */
+    @Override
+    synchronized native int blob_write(long blob, byte[] b, int off, int len, int offset);
+
+    /** @see org.sqlite.core.DB#blob_reopen(long, long) */
+    @Override
+    synchronized native int blob_reopen(long blob, long rowid);
+
+    /** @see org.sqlite.core.DB#blob_close(long) */
+    @Override
+    synchronized native int blob_close(long blob);
+
     private byte[] nameToUtf8ByteArray(String nameType, String name) throws SQLException {
         final byte[] nameUtf8 = stringToUtf8ByteArray(name);
         if (name == null || "".equals(name) || nameUtf8.length > 255) {
@@ -513,7 +634,7 @@ public final class NativeDB extends DB {
         }
         byte[] buff = new byte[buffer.remaining()];
         buffer.get(buff);
-        return new String(buff, StandardCharsets.UTF_8);
+        return Utf8.decode(buff, 0, buff.length);
     }
 
     /** handler pointer to JNI global progressHandler reference. */
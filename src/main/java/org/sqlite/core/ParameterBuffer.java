@@ -0,0 +1,251 @@
+package org.sqlite.core;
+
+import java.util.Arrays;
+
+/**
+ * The parameter values of a prepared statement and of the rows of its batch.
+ *
+ * <p>Values are stored in parallel arrays with a type tag per slot: integers and floats in
+ * primitive slots, text, blobs and other values as objects. Setting and binding an <code>int
+ * </code>, <code>long</code> or <code>double</code> therefore does not box it, which matters for
+ * large batches.
+ *
+ * <p>Slot <code>i</code> holds parameter <code>i % parameterCount</code> of batch row <code>
+ * i / parameterCount</code>, like the <code>Object[]</code> it replaces.
+ */
+public final class ParameterBuffer {
+    static final byte NULL = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte FLOAT = 3;
+    static final byte DOUBLE = 4;
+    static final byte TEXT = 5;
+    static final byte BLOB = 6;
+    /** a value of an unexpected class, rejected when it is bound */
+    static final byte OBJECT = 7;
+    /** a blob of zeros whose length is stored in the long slot */
+    static final byte ZEROBLOB = 8;
+    /** a text or blob value read from a {@link ParameterStream} when it is bound */
+    static final byte STREAM = 9;
+
+    private byte[] types;
+    /** int and long values, and the length of zero blobs */
+    private long[] longs;
+    /** float and double values */
+    private double[] doubles;
+    /** text (String), blob (byte[]), streamed and other values */
+    private Object[] objects;
+
+    /**
+     * Creates a buffer with all slots set to NULL.
+     *
+     * @param size the initial number of slots
+     */
+    public ParameterBuffer(int size) {
+        types = new byte[size];
+        longs = new long[size];
+        doubles = new double[size];
+        objects = new Object[size];
+    }
+
+    /** @return the number of slots. */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Grows the buffer to at least the given number of slots; new slots are NULL.
+     *
+     * @param size the required number of slots
+     */
+    public void ensureSize(int size) {
+        if (size > types.length) {
+            int grown = Math.max(size, types.length * 2);
+            types = Arrays.copyOf(types, grown);
+            longs = Arrays.copyOf(longs, grown);
+            doubles = Arrays.copyOf(doubles, grown);
+            objects = Arrays.copyOf(objects, grown);
+        }
+    }
+
+    /**
+     * Copies a range of slots, e.g. the parameters of a batch row to the next row.
+     *
+     * @see System#arraycopy(Object, int, Object, int, int)
+     */
+    public void copy(int from, int to, int length) {
+        System.arraycopy(types, from, types, to, length);
+        System.arraycopy(longs, from, longs, to, length);
+        System.arraycopy(doubles, from, doubles, to, length);
+        System.arraycopy(objects, from, objects, to, length);
+    }
+
+    /**
+     * Sets a range of slots to NULL.
+     *
+     * @param from the first slot, inclusive
+     * @param to the last slot, exclusive
+     */
+    public void clear(int from, int to) {
+        Arrays.fill(types, from, to, NULL);
+        Arrays.fill(objects, from, to, null);
+    }
+
+    // WRITING //////////////////////////////////////////////////////
+
+    public void setNull(int index) {
+        types[index] = NULL;
+        objects[index] = null;
+    }
+
+    public void setInt(int index, int value) {
+        types[index] = INT;
+        longs[index] = value;
+        objects[index] = null;
+    }
+
+    public void setLong(int index, long value) {
+        types[index] = LONG;
+        longs[index] = value;
+        objects[index] = null;
+    }
+
+    public void setFloat(int index, float value) {
+        types[index] = FLOAT;
+        doubles[index] = value;
+        objects[index] = null;
+    }
+
+    public void setDouble(int index, double value) {
+        types[index] = DOUBLE;
+        doubles[index] = value;
+        objects[index] = null;
+    }
+
+    public void setText(int index, String value) {
+        if (value == null) {
+            setNull(index);
+            return;
+        }
+        types[index] = TEXT;
+        objects[index] = value;
+    }
+
+    public void setBlob(int index, byte[] value) {
+        if (value == null) {
+            setNull(index);
+            return;
+        }
+        types[index] = BLOB;
+        objects[index] = value;
+    }
+
+    /**
+     * Stores a blob of zeros, which is bound without allocating it.
+     *
+     * @param index the slot
+     * @param length the length of the blob
+     */
+    public void setZeroBlob(int index, long length) {
+        types[index] = ZEROBLOB;
+        longs[index] = length;
+        objects[index] = null;
+    }
+
+    /**
+     * Stores a value that is read from a stream when it is bound.
+     *
+     * @param index the slot
+     * @param value the stream
+     */
+    void setStream(int index, ParameterStream value) {
+        types[index] = STREAM;
+        objects[index] = value;
+    }
+
+    /**
+     * Stores a value given as object, unboxing numbers.
+     *
+     * @param index the slot
+     * @param value null, an Integer, Short, Long, Float, Double, String or byte[]
+     */
+    public void setObject(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Integer) {
+            setInt(index, (Integer) value);
+        } else if (value instanceof Short) {
+            setInt(index, ((Short) value).intValue());
+        } else if (value instanceof Long) {
+            setLong(index, (Long) value);
+        } else if (value instanceof Float) {
+            setFloat(index, (Float) value);
+        } else if (value instanceof Double) {
+            setDouble(index, (Double) value);
+        } else if (value instanceof String) {
+            setText(index, (String) value);
+        } else if (value instanceof byte[]) {
+            setBlob(index, (byte[]) value);
+        } else {
+            types[index] = OBJECT;
+            objects[index] = value;
+        }
+    }
+
+    // READING //////////////////////////////////////////////////////
+
+    /**
+     * @param index the slot
+     * @return the type tag of the slot
+     */
+    byte getType(int index) {
+        return types[index];
+    }
+
+    /** @return the int or long value of the slot. */
+    long getLong(int index) {
+        return longs[index];
+    }
+
+    /** @return the float or double value of the slot. */
+    double getDouble(int index) {
+        return doubles[index];
+    }
+
+    /** @return the text, blob or other value of the slot. */
+    Object getValue(int index) {
+        return objects[index];
+    }
+
+    /**
+     * @param index the slot
+     * @return the value of the slot as object, boxing numbers
+     */
+    public Object getObject(int index) {
+        switch (types[index]) {
+            case INT:
+                return (int) longs[index];
+            case LONG:
+                return longs[index];
+            case FLOAT:
+                return (float) doubles[index];
+            case DOUBLE:
+                return doubles[index];
+            default:
+                return objects[index];
+        }
+    }
+
+    /** Same format as {@link Arrays#toString(Object[])} of the values. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getObject(i));
+        }
+        return sb.append(']').toString();
+    }
+}
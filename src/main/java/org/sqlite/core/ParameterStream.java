@@ -0,0 +1,228 @@
+package org.sqlite.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A text or blob parameter given as a stream, which is read when the statement is executed. The
+ * stream is read in chunks into the buffer that is bound, so that it is not first copied into a
+ * byte array and a string. Characters of a {@link Reader} are encoded to UTF-8 on the fly; the
+ * bytes of an {@link InputStream} are taken as they are, so text must be UTF-8 (or ASCII).
+ *
+ * <p>A stream can be read only once: executing the statement again without setting the parameter
+ * again binds what is left of it.
+ */
+final class ParameterStream {
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Reader reader;
+    private final InputStream input;
+    private final boolean text;
+    private final long length;
+    // the characters or bytes left to read, or -1 to read to the end of the stream
+    private long remaining;
+    private boolean endOfInput = false;
+    private boolean done = false;
+
+    private CharsetEncoder encoder;
+    private CharBuffer chars;
+    private byte[] bytes;
+
+    /**
+     * @param reader the characters of a text value
+     * @param length the number of characters to read, or -1 to read to the end of the stream
+     */
+    ParameterStream(Reader reader, long length) {
+        this(reader, null, true, length);
+    }
+
+    /**
+     * @param input the bytes of the value
+     * @param text whether the bytes are UTF-8 text, otherwise they are a blob
+     * @param length the number of bytes to read, or -1 to read to the end of the stream
+     */
+    ParameterStream(InputStream input, boolean text, long length) {
+        this(null, input, text, length);
+    }
+
+    private ParameterStream(Reader reader, InputStream input, boolean text, long length) {
+        this.reader = reader;
+        this.input = input;
+        this.text = text;
+        this.length = length;
+        this.remaining = length;
+    }
+
+    /** @return whether the value is text, otherwise it is a blob. */
+    boolean isText() {
+        return text;
+    }
+
+    /**
+     * @return the expected number of bytes of the value, to size the buffer it is read into: the
+     *     declared length, which is exact for bytes and for ASCII characters, or a chunk if the
+     *     length is unknown
+     */
+    int sizeHint() {
+        return length < 0 ? CHUNK_SIZE : (int) Math.min(length, MAX_ARRAY_SIZE);
+    }
+
+    /**
+     * Reads the next bytes of the value. A buffer with room for less than 4 bytes may receive none,
+     * as a character is not split.
+     *
+     * @param dst the buffer receiving the bytes, from its position on
+     * @return the number of bytes read, or -1 at the end of the value
+     * @throws SQLException if the stream cannot be read, or ends before the declared length
+     */
+    int read(ByteBuffer dst) throws SQLException {
+        if (done) {
+            return -1;
+        }
+        try {
+            return reader != null ? encode(dst) : copy(dst);
+        } catch (IOException cause) {
+            SQLException exception = new SQLException("Error reading stream");
+            exception.initCause(cause);
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads the whole value.
+     *
+     * @param maxLength the maximum number of bytes of a value, the SQLITE_LIMIT_LENGTH of the
+     *     connection
+     * @return the bytes of the value
+     * @throws SQLException if the stream cannot be read, ends before the declared length, or is
+     *     longer than the maximum length
+     */
+    byte[] readAll(int maxLength) throws SQLException {
+        // room for a chunk past the limit, to tell a value that is too long
+        int capacity = (int) Math.min((long) maxLength + 16, MAX_ARRAY_SIZE);
+        byte[] all = new byte[Math.min(Math.max(sizeHint(), 16), capacity)];
+        int size = 0;
+        while (true) {
+            if (all.length - size < 16) {
+                if (all.length == capacity) {
+                    throw tooBig(maxLength);
+                }
+                all = Arrays.copyOf(all, (int) Math.min(all.length * 2L, capacity));
+            }
+            ByteBuffer dst = ByteBuffer.wrap(all, size, all.length - size);
+            int n = read(dst);
+            if (n < 0) {
+                return size == all.length ? all : Arrays.copyOf(all, size);
+            }
+            size += n;
+            if (size > maxLength) {
+                throw tooBig(maxLength);
+            }
+        }
+    }
+
+    /**
+     * @param maxLength the maximum number of bytes of a value
+     * @return the error of a value that is longer than the maximum length
+     */
+    static SQLException tooBig(long maxLength) {
+        return DB.newSQLException(
+                Codes.SQLITE_TOOBIG, "stream is longer than " + maxLength + " bytes");
+    }
+
+    private int copy(ByteBuffer dst) throws IOException {
+        if (bytes == null) {
+            bytes = new byte[CHUNK_SIZE];
+        }
+        int max = Math.min(dst.remaining(), bytes.length);
+        if (remaining >= 0) {
+            max = (int) Math.min(max, remaining);
+        }
+        if (max == 0 && remaining == 0) {
+            done = true;
+            return -1;
+        }
+        int n = input.read(bytes, 0, max);
+        if (n < 0) {
+            checkEnd();
+            done = true;
+            return -1;
+        }
+        dst.put(bytes, 0, n);
+        if (remaining >= 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    private int encode(ByteBuffer dst) throws IOException {
+        if (encoder == null) {
+            // replace unpaired surrogates, as String.getBytes does
+            encoder =
+                    StandardCharsets.UTF_8
+                            .newEncoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars = CharBuffer.allocate(CHUNK_SIZE);
+            chars.flip();
+        }
+        int start = dst.position();
+        while (true) {
+            if (!chars.hasRemaining() && !endOfInput) {
+                fill();
+            }
+            CoderResult result = encoder.encode(chars, dst, endOfInput);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (endOfInput && !chars.hasRemaining()) {
+                if (encoder.flush(dst).isOverflow()) {
+                    break;
+                }
+                done = true;
+                break;
+            }
+            if (chars.hasRemaining() && !endOfInput) {
+                // a surrogate pair split across two reads
+                fill();
+            }
+        }
+        int n = dst.position() - start;
+        return n == 0 && done ? -1 : n;
+    }
+
+    private void fill() throws IOException {
+        chars.compact();
+        int max = chars.remaining();
+        if (remaining >= 0) {
+            max = (int) Math.min(max, remaining);
+        }
+        int n = max == 0 ? -1 : reader.read(chars.array(), chars.position(), max);
+        if (n < 0) {
+            checkEnd();
+            endOfInput = true;
+        } else {
+            chars.position(chars.position() + n);
+            if (remaining >= 0) {
+                remaining -= n;
+            }
+        }
+        chars.flip();
+    }
+
+    private void checkEnd() throws IOException {
+        if (remaining > 0) {
+            throw new IOException("End of stream has been reached");
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package org.sqlite.core;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A block of rows fetched from a statement with {@link DB#fetch(long, RowBuffer, int, boolean)}.
+ *
+ * <p>Every cell is stored with the type reported by <code>sqlite3_column_type()</code> and its
+ * value in that type: integers and floats in a primitive slot, text and blobs as bytes in an arena
+ * shared by all cells, with their offset and length in the primitive slot. Text stays UTF-8 encoded
+ * until a getter asks for it. Getters convert between types the way the <code>sqlite3_column_*()
+ * </code> functions do, so that a result set can be served from the buffer after the statement has
+ * moved on to the next rows.
+ *
+ * <p>The arrays are kept when the buffer is cleared, so a result set reuses them for every block
+ * and every execution of its statement.
+ */
+public final class RowBuffer implements Codes {
+    private static final MathContext SQLITE_DIGITS = new MathContext(15, RoundingMode.HALF_UP);
+    /** slot of a blob for which <code>sqlite3_column_blob()</code> returned NULL */
+    private static final long NULL_BLOB = -1L;
+
+    private final int columns;
+
+    private int[] types;
+    /** integer values, the raw bits of float values, or the arena offset and length of others */
+    private long[] primitives;
+    /** UTF-8 text and blob values, one after the other */
+    private byte[] arena;
+    /** number of bytes used in the arena */
+    private int arenaSize = 0;
+
+    /** number of rows in the buffer */
+    private int size = 0;
+    /** row the getters read from, -1 if none */
+    private int position = -1;
+    /** whether the statement has returned SQLITE_DONE */
+    private boolean done = false;
+    /** error raised while stepping ahead, reported once the buffered rows are consumed */
+    private SQLException error;
+    /** whether the bytes of an empty text are null, as the backend's column_blob returns them */
+    private boolean emptyTextBlobNull = false;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param columns the number of columns of the statement
+     * @param capacity the initial number of rows the buffer can hold
+     */
+    public RowBuffer(int columns, int capacity) {
+        this.columns = columns;
+        int cells = Math.max(columns * Math.max(capacity, 1), 1);
+        this.types = new int[cells];
+        this.primitives = new long[cells];
+        this.arena = new byte[256];
+    }
+
+    /** @return the number of columns per row. */
+    public int columnCount() {
+        return columns;
+    }
+
+    /** @return the number of rows in the buffer. */
+    public int size() {
+        return size;
+    }
+
+    /** @return whether the last row of the statement has been fetched. */
+    public boolean isDone() {
+        return done;
+    }
+
+    /** Marks the statement as finished, i.e. <code>sqlite3_step()</code> returned SQLITE_DONE. */
+    void done() {
+        done = true;
+    }
+
+    /**
+     * Records an error raised while stepping ahead; the rows fetched before it remain readable.
+     *
+     * @param e the error
+     */
+    void fail(SQLException e) {
+        error = e;
+        done = true;
+    }
+
+    /**
+     * Throws the error raised while stepping ahead, if any.
+     *
+     * @throws SQLException the recorded error
+     */
+    public void throwIfFailed() throws SQLException {
+        if (error != null) {
+            SQLException e = error;
+            error = null;
+            throw e;
+        }
+    }
+
+    /**
+     * @param emptyTextBlobNull whether {@link #getBlob(int)} returns null for an empty text, see
+     *     {@link DB#isEmptyTextBlobNull()}
+     */
+    void setEmptyTextBlobNull(boolean emptyTextBlobNull) {
+        this.emptyTextBlobNull = emptyTextBlobNull;
+    }
+
+    /** Empties the buffer so it can be filled with the next block of rows. */
+    public void clear() {
+        size = 0;
+        arenaSize = 0;
+        position = -1;
+        done = false;
+        error = null;
+    }
+
+    /**
+     * Moves the read position to the next buffered row.
+     *
+     * @return false if all buffered rows have been read
+     */
+    public boolean next() {
+        if (position + 1 >= size) {
+            position = size;
+            return false;
+        }
+        position++;
+        return true;
+    }
+
+    /** Moves the read position back to the previous row, so that it is returned again by next(). */
+    public void previous() {
+        if (position >= 0) {
+            position--;
+        }
+    }
+
+    /** @return whether the read position is on a buffered row. */
+    public boolean hasRow() {
+        return position >= 0 && position < size;
+    }
+
+    // WRITING //////////////////////////////////////////////////////
+
+    /**
+     * Appends a row to the buffer, growing it if needed.
+     *
+     * @return the index of the first cell of the new row
+     */
+    int addRow() {
+        int offset = size * columns;
+        int required = offset + columns;
+        if (required > types.length) {
+            int cells = Math.max(required, types.length * 2);
+            types = Arrays.copyOf(types, cells);
+            primitives = Arrays.copyOf(primitives, cells);
+        }
+        size++;
+        return offset;
+    }
+
+    void setNull(int cell) {
+        types[cell] = SQLITE_NULL;
+    }
+
+    void setLong(int cell, long value) {
+        types[cell] = SQLITE_INTEGER;
+        primitives[cell] = value;
+    }
+
+    void setDouble(int cell, double value) {
+        types[cell] = SQLITE_FLOAT;
+        primitives[cell] = Double.doubleToRawLongBits(value);
+    }
+
+    void setText(int cell, String value) {
+        if (value == null) {
+            // sqlite3_column_text() returns NULL when it runs out of memory
+            types[cell] = SQLITE_NULL;
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int offset = reserve(cell, SQLITE_TEXT, utf8.length);
+        System.arraycopy(utf8, 0, arena, offset, utf8.length);
+    }
+
+    /**
+     * @param cell the cell
+     * @param utf8 the text, from its position to its limit, or null if there is none
+     */
+    void setText(int cell, ByteBuffer utf8) {
+        if (utf8 == null) {
+            types[cell] = SQLITE_NULL;
+            return;
+        }
+        int length = utf8.remaining();
+        int offset = reserve(cell, SQLITE_TEXT, length);
+        utf8.get(arena, offset, length);
+    }
+
+    void setBlob(int cell, byte[] value) {
+        if (value == null) {
+            types[cell] = SQLITE_BLOB;
+            primitives[cell] = NULL_BLOB;
+            return;
+        }
+        int offset = reserve(cell, SQLITE_BLOB, value.length);
+        System.arraycopy(value, 0, arena, offset, value.length);
+    }
+
+    /**
+     * Stores a text or blob value in the arena, growing it if needed. The caller copies the value
+     * to {@link #arena()} at the returned offset, so that it is copied only once.
+     *
+     * @param cell the cell
+     * @param type SQLITE_TEXT or SQLITE_BLOB
+     * @param length the length of the value in bytes
+     * @return the offset of the value in the arena
+     */
+    int reserve(int cell, int type, int length) {
+        int offset = arenaSize;
+        if (length > arena.length - offset) {
+            if (length > Integer.MAX_VALUE - 8 - offset) {
+                throw new OutOfMemoryError("row buffer arena exceeds 2 GB");
+            }
+            int grown = (int) Math.min(2L * arena.length, Integer.MAX_VALUE - 8);
+            arena = Arrays.copyOf(arena, Math.max(offset + length, grown));
+        }
+        arenaSize = offset + length;
+        types[cell] = type;
+        primitives[cell] = (long) offset << 32 | length;
+        return offset;
+    }
+
+    /** @return the arena, which is replaced when {@link #reserve(int, int, int)} grows it. */
+    byte[] arena() {
+        return arena;
+    }
+
+    // READING //////////////////////////////////////////////////////
+
+    private int cell(int col) {
+        return position * columns + col;
+    }
+
+    private int offset(int cell) {
+        return (int) (primitives[cell] >>> 32);
+    }
+
+    private int length(int cell) {
+        return (int) primitives[cell];
+    }
+
+    /** @return the UTF-8 text of a SQLITE_TEXT cell */
+    private String text(int cell) {
+        return Utf8.decode(arena, offset(cell), length(cell));
+    }
+
+    /** @return a SQLITE_BLOB cell read as text */
+    private String blobText(int cell) {
+        if (primitives[cell] == NULL_BLOB) {
+            return "";
+        }
+        return Utf8.decode(arena, offset(cell), length(cell));
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the datatype code of the value in the current row
+     * @see DB#column_type(long, int)
+     */
+    public int getType(int col) {
+        return types[cell(col)];
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as long
+     * @see DB#column_long(long, int)
+     */
+    public long getLong(int col) {
+        int cell = cell(col);
+        switch (types[cell]) {
+            case SQLITE_INTEGER:
+                return primitives[cell];
+            case SQLITE_FLOAT:
+                // saturating conversion, as sqlite3VdbeIntValue()
+                return (long) Double.longBitsToDouble(primitives[cell]);
+            case SQLITE_TEXT:
+                return parseLong(text(cell));
+            case SQLITE_BLOB:
+                return parseLong(blobText(cell));
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as int
+     * @see DB#column_int(long, int)
+     */
+    public int getInt(int col) {
+        return (int) getLong(col);
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as double
+     * @see DB#column_double(long, int)
+     */
+    public double getDouble(int col) {
+        int cell = cell(col);
+        switch (types[cell]) {
+            case SQLITE_INTEGER:
+                return primitives[cell];
+            case SQLITE_FLOAT:
+                return Double.longBitsToDouble(primitives[cell]);
+            case SQLITE_TEXT:
+                return parseDouble(text(cell));
+            case SQLITE_BLOB:
+                return parseDouble(blobText(cell));
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as String
+     * @see DB#column_text(long, int)
+     */
+    public String getText(int col) {
+        int cell = cell(col);
+        switch (types[cell]) {
+            case SQLITE_INTEGER:
+                return Long.toString(primitives[cell]);
+            case SQLITE_FLOAT:
+                return formatDouble(Double.longBitsToDouble(primitives[cell]));
+            case SQLITE_TEXT:
+                return text(cell);
+            case SQLITE_BLOB:
+                return blobText(cell);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @param dictionary the dictionary of the column
+     * @return the value of the current row as String, deduplicated by the dictionary
+     * @see DB#column_text(long, int, StringDictionary)
+     */
+    public String getText(int col, StringDictionary dictionary) {
+        int cell = cell(col);
+        if (types[cell] == SQLITE_TEXT) {
+            return dictionary.get(arena, offset(cell), length(cell));
+        }
+        return getText(col);
+    }
+
+    /**
+     * Appends the value of the current row as text to a builder.
+     *
+     * @param col the column in [0,x-1] form
+     * @param dest the builder
+     * @return false if the value is NULL and nothing was appended
+     * @see DB#column_text(long, int, StringBuilder)
+     */
+    public boolean appendText(int col, StringBuilder dest) {
+        int cell = cell(col);
+        if (types[cell] == SQLITE_TEXT) {
+            Utf8.decode(arena, offset(cell), length(cell), dest);
+            return true;
+        }
+        String text = getText(col);
+        if (text == null) {
+            return false;
+        }
+        dest.append(text);
+        return true;
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as byte array
+     * @see DB#column_blob(long, int)
+     */
+    public byte[] getBlob(int col) {
+        int cell = cell(col);
+        switch (types[cell]) {
+            case SQLITE_BLOB:
+                if (primitives[cell] == NULL_BLOB) {
+                    return null;
+                }
+                return Arrays.copyOfRange(arena, offset(cell), offset(cell) + length(cell));
+            case SQLITE_TEXT:
+                int length = length(cell);
+                if (length == 0) {
+                    return emptyTextBlobNull ? null : new byte[0];
+                }
+                return Arrays.copyOfRange(arena, offset(cell), offset(cell) + length);
+            case SQLITE_NULL:
+                return null;
+            default:
+                String text = getText(col);
+                // sqlite3_column_blob() returns NULL for a zero-length value
+                return text.isEmpty() ? null : text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @return the value of the current row as read-only buffer over the buffered bytes, or null if
+     *     it is NULL
+     * @see DB#column_blob_buffer(long, int)
+     */
+    public ByteBuffer getBlobBuffer(int col) {
+        int cell = cell(col);
+        switch (types[cell]) {
+            case SQLITE_NULL:
+                return null;
+            case SQLITE_BLOB:
+            case SQLITE_TEXT:
+                if (primitives[cell] == NULL_BLOB) {
+                    return ByteBuffer.allocate(0).asReadOnlyBuffer();
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(arena, offset(cell), length(cell));
+                return bytes.slice().asReadOnlyBuffer();
+            default:
+                byte[] text = getBlob(col);
+                return ByteBuffer.wrap(text == null ? new byte[0] : text).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * @param col the column in [0,x-1] form
+     * @param dest the buffer receiving as many bytes of the value as fit
+     * @return the length of the value, or -1 if it is NULL
+     * @see DB#column_blob(long, int, ByteBuffer)
+     */
+    public int getBlob(int col, ByteBuffer dest) {
+        ByteBuffer blob = getBlobBuffer(col);
+        if (blob == null) {
+            return -1;
+        }
+        int length = blob.remaining();
+        if (length > dest.remaining()) {
+            blob.limit(blob.position() + dest.remaining());
+        }
+        dest.put(blob);
+        return length;
+    }
+
+    // CONVERSIONS //////////////////////////////////////////////////
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 0x0b;
+    }
+
+    /** Parses the integer prefix of a text value, as sqlite3Atoi64(). */
+    static long parseLong(String text) {
+        int i = 0;
+        int length = text.length();
+        while (i < length && isSpace(text.charAt(i))) {
+            i++;
+        }
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            int digit = c - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /** Parses the real number prefix of a text value, as sqlite3AtoF(). */
+    static double parseDouble(String text) {
+        int length = text.length();
+        int start = 0;
+        while (start < length && isSpace(text.charAt(start))) {
+            start++;
+        }
+        int i = start;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+            digits++;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return 0;
+        }
+        int end = i;
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                i++;
+            }
+            if (i > exponentStart) {
+                end = i;
+            }
+        }
+        return Double.parseDouble(text.substring(start, end));
+    }
+
+    /**
+     * Formats a float value the way sqlite renders it as text (<code>"%!.15g"</code>), e.g. 1.0,
+     * 0.1 or 1.0e+20.
+     */
+    static String formatDouble(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Inf" : "-Inf";
+        }
+        if (value == 0) {
+            return "0.0";
+        }
+        BigDecimal rounded = new BigDecimal(value).round(SQLITE_DIGITS);
+        String digits = rounded.unscaledValue().abs().toString();
+        int exponent = digits.length() - 1 - rounded.scale();
+        // strip trailing zeros, keeping at least one digit
+        int end = digits.length();
+        while (end > 1 && digits.charAt(end - 1) == '0') {
+            end--;
+        }
+        digits = digits.substring(0, end);
+
+        StringBuilder sb = new StringBuilder(24);
+        if (value < 0) {
+            sb.append('-');
+        }
+        if (exponent < -4 || exponent >= SQLITE_DIGITS.getPrecision()) {
+            sb.append(digits.charAt(0)).append('.');
+            sb.append(digits.length() > 1 ? digits.substring(1) : "0");
+            sb.append(exponent < 0 ? "e-" : "e+");
+            int abs = Math.abs(exponent);
+            if (abs < 10) {
+                sb.append('0');
+            }
+            sb.append(abs);
+        } else if (exponent < 0) {
+            sb.append("0.");
+            for (int i = -1; i > exponent; i--) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        } else {
+            if (digits.length() > exponent + 1) {
+                sb.append(digits, 0, exponent + 1).append('.').append(digits.substring(exponent + 1));
+            } else {
+                sb.append(digits);
+                for (int i = digits.length(); i <= exponent; i++) {
+                    sb.append('0');
+                }
+                sb.append(".0");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package org.sqlite.core;
+
+import java.sql.SQLException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A class for safely wrapping calls to a native pointer to a BLOB handle, ensuring no other thread
+ * uses the connection while it is run. The handle reads and writes a BLOB value in place, see <a
+ * href="https://www.sqlite.org/c3ref/blob.html">https://www.sqlite.org/c3ref/blob.html</a>.
+ */
+public class SafeBlobPtr {
+    // the lock of the DB, as for statements: all calls with a raw pointer of the connection are
+    // serialized by it
+    private final DB db;
+    private final Lock lock;
+    private final long ptr;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param db the database that opened the handle
+     * @param ptr the raw pointer
+     */
+    SafeBlobPtr(DB db, long ptr) {
+        this.db = db;
+        this.lock = db.getLock();
+        this.ptr = ptr;
+    }
+
+    /**
+     * Check whether this pointer has been closed
+     *
+     * @return whether this pointer has been closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the handle. A handle that may write commits the write transaction it opened, if the
+     * connection is in auto-commit mode.
+     *
+     * @throws SQLException if closing fails, e.g. the commit
+     */
+    public void close() throws SQLException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            checked(db.closeBlob(this, ptr));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the length of the BLOB in bytes, which cannot change through the handle
+     * @throws SQLException if the pointer is closed
+     */
+    public int bytes() throws SQLException {
+        lock.lock();
+        try {
+            ensureOpen();
+            return db.blob_bytes(ptr);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads bytes of the BLOB.
+     *
+     * @param b the array receiving the bytes
+     * @param off the index in the array of the first byte read
+     * @param len the number of bytes to read
+     * @param offset the offset in the BLOB of the first byte read
+     * @throws SQLException if the range is not within the BLOB, or the row was changed or deleted
+     */
+    public void read(byte[] b, int off, int len, int offset) throws SQLException {
+        lock.lock();
+        try {
+            ensureOpen();
+            checked(db.blob_read(ptr, b, off, len, offset));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Overwrites bytes of the BLOB.
+     *
+     * @param b the array holding the bytes
+     * @param off the index in the array of the first byte written
+     * @param len the number of bytes to write
+     * @param offset the offset in the BLOB of the first byte written
+     * @throws SQLException if the handle is read-only, the range is not within the BLOB, or the row
+     *     was changed or deleted
+     */
+    public void write(byte[] b, int off, int len, int offset) throws SQLException {
+        lock.lock();
+        try {
+            ensureOpen();
+            checked(db.blob_write(ptr, b, off, len, offset));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the handle to the same column of another row, which is faster than opening a new one.
+     *
+     * @param rowid the rowid of the row
+     * @throws SQLException if the row does not exist or its value is not a BLOB or text; the handle
+     *     can then only be closed
+     */
+    public void reopen(long rowid) throws SQLException {
+        lock.lock();
+        try {
+            ensureOpen();
+            checked(db.blob_reopen(ptr, rowid));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checked(int rc) throws SQLException {
+        if (rc != Codes.SQLITE_OK) {
+            db.throwex(rc);
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("blob pointer is closed");
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package org.sqlite.core;
 
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
+import java.util.concurrent.locks.Lock;
 
 /**
  * A class for safely wrapping calls to a native pointer to a statement, ensuring no other thread
  * has access to the pointer while it is run
  */
 public class SafeStmtPtr {
-    // store a reference to the DB, to lock it before any safe function is called. This avoids
-    // deadlocking by locking the DB. All calls with the raw pointer are synchronized with the DB
-    // anyways, so making a separate lock would be pointless
+    // store a reference to the DB, to take its lock before any safe function is called. This
+    // avoids deadlocking by locking the DB. All calls with the raw pointer are serialized by the
+    // lock of the DB anyways, so making a separate lock would be pointless
     private final DB db;
+    private final Lock lock;
     private final long ptr;
+    // the SQL text of a statement that is returned to the statement cache of the DB instead of
+    // being finalized when closed, null if it is not cacheable
+    private String cacheKey;
 
     private volatile boolean closed = false;
     // to return on subsequent calls to close() after this ptr has been closed
@@ -29,9 +35,18 @@ public class SafeStmtPtr {
      */
     public SafeStmtPtr(DB db, long ptr) {
         this.db = db;
+        this.lock = db.getLock();
         this.ptr = ptr;
     }
 
+    String getCacheKey() {
+        return cacheKey;
+    }
+
+    void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     /**
      * Check whether this pointer has been closed
      *
@@ -49,8 +64,11 @@ public class SafeStmtPtr {
      *     elsewhere
      */
     public int close() throws SQLException {
-        synchronized (db) {
+        lock.lock();
+        try {
             return internalClose();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -79,9 +97,12 @@ public class SafeStmtPtr {
      * @throws SQLException if the pointer is utilized elsewhere
      */
     public <E extends Throwable> int safeRunInt(SafePtrIntFunction<E> run) throws SQLException, E {
-        synchronized (db) {
+        lock.lock();
+        try {
             this.ensureOpen();
             return run.run(db, ptr);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -94,9 +115,12 @@ public class SafeStmtPtr {
      */
     public <E extends Throwable> long safeRunLong(SafePtrLongFunction<E> run)
             throws SQLException, E {
-        synchronized (db) {
+        lock.lock();
+        try {
             this.ensureOpen();
             return run.run(db, ptr);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -109,9 +133,12 @@ public class SafeStmtPtr {
      */
     public <E extends Throwable> double safeRunDouble(SafePtrDoubleFunction<E> run)
             throws SQLException, E {
-        synchronized (db) {
+        lock.lock();
+        try {
             this.ensureOpen();
             return run.run(db, ptr);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -123,9 +150,12 @@ public class SafeStmtPtr {
      * @throws SQLException if the pointer is utilized elsewhere
      */
     public <T, E extends Throwable> T safeRun(SafePtrFunction<T, E> run) throws SQLException, E {
-        synchronized (db) {
+        lock.lock();
+        try {
             this.ensureOpen();
             return run.run(db, ptr);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -137,9 +167,198 @@ public class SafeStmtPtr {
      */
     public <E extends Throwable> void safeRunConsume(SafePtrConsumer<E> run)
             throws SQLException, E {
-        synchronized (db) {
+        lock.lock();
+        try {
             this.ensureOpen();
             run.run(db, ptr);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // direct access to the columns of the current row. Unlike the safeRun functions these take no
+    // callback, so the getters of a result set do not allocate a capturing lambda per value
+
+    /**
+     * @param col the zero-based column index
+     * @return the datatype code of the column in the current row
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_type(long, int)
+     */
+    public int columnType(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_type(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the datatype codes of all columns of the current row while holding the lock once.
+     *
+     * @param types receives the type of each column, its length is the number of columns
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_type(long, int)
+     */
+    public void columnTypes(int[] types) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            for (int col = 0; col < types.length; col++) {
+                types[col] = db.column_type(ptr, col);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return the value of the column in the current row as an int
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_int(long, int)
+     */
+    public int columnInt(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_int(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return the value of the column in the current row as a long
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_long(long, int)
+     */
+    public long columnLong(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_long(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return the value of the column in the current row as a double
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_double(long, int)
+     */
+    public double columnDouble(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_double(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return the value of the column in the current row as a String
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_text(long, int)
+     */
+    public String columnText(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_text(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @param dictionary the dictionary of the column
+     * @return the value of the column in the current row as a String
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_text(long, int, StringDictionary)
+     */
+    public String columnText(int col, StringDictionary dictionary) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_text(ptr, col, dictionary);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @param dest receives the value of the column in the current row as text
+     * @return false if the value is NULL
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_text(long, int, StringBuilder)
+     */
+    public boolean columnText(int col, StringBuilder dest) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_text(ptr, col, dest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return the value of the column in the current row as a byte array
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_blob(long, int)
+     */
+    public byte[] columnBlob(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_blob(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @return a read-only view of the value of the column in the current row, valid until the
+     *     statement moves on
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_blob_buffer(long, int)
+     */
+    public ByteBuffer columnBlobBuffer(int col) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_blob_buffer(ptr, col);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param col the zero-based column index
+     * @param dest receives the value of the column in the current row
+     * @return the length of the value, or -1 if it is NULL
+     * @throws SQLException if the pointer is closed
+     * @see DB#column_blob(long, int, ByteBuffer)
+     */
+    public int columnBlob(int col, ByteBuffer dest) throws SQLException {
+        lock.lock();
+        try {
+            this.ensureOpen();
+            return db.column_blob(ptr, col, dest);
+        } finally {
+            lock.unlock();
         }
     }
 
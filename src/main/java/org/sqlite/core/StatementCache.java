@@ -0,0 +1,122 @@
+package org.sqlite.core;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the idle prepared statements of a connection, keyed by their SQL text.
+ *
+ * <p>When a cached prepared statement is closed, its native statement is reset, its bindings are
+ * cleared and it is kept here instead of being finalized. Preparing the same SQL again takes it
+ * out of the cache, skipping <code>sqlite3_prepare()</code>. The least recently used statement is
+ * finalized when the cache holds more than its capacity.
+ *
+ * <p>All methods except the counters are called while the database is locked.
+ *
+ * @see org.sqlite.SQLiteConfig#setStatementCacheSize(int)
+ */
+public class StatementCache {
+    private final DB db;
+    private final int capacity;
+    /** raw pointers of idle statements, in least recently used order */
+    private final LinkedHashMap<String, Long> idle;
+
+    private volatile long hits = 0;
+    private volatile long misses = 0;
+    private volatile long evictions = 0;
+
+    /**
+     * @param db the database the statements belong to
+     * @param capacity the maximum number of idle statements
+     */
+    StatementCache(DB db, int capacity) {
+        this.db = db;
+        this.capacity = capacity;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Takes the idle statement prepared for the SQL out of the cache.
+     *
+     * @param sql the SQL text
+     * @return the raw pointer to the statement, or 0 if none is cached
+     */
+    long acquire(String sql) {
+        Long ptr = idle.remove(sql);
+        if (ptr == null) {
+            misses++;
+            return 0;
+        }
+        hits++;
+        return ptr;
+    }
+
+    /**
+     * Returns an idle statement to the cache, evicting the least recently used statement if the
+     * cache is full. The statement must have been reset.
+     *
+     * @param sql the SQL text the statement was prepared for
+     * @param ptr the raw pointer to the statement
+     * @throws SQLException if finalizing an evicted statement fails
+     */
+    void release(String sql, long ptr) throws SQLException {
+        Long previous = idle.put(sql, ptr);
+        if (previous != null) {
+            // another statement for the same SQL was closed before, keep the most recent one
+            db.finalize(previous);
+        }
+        if (idle.size() > capacity) {
+            Iterator<Map.Entry<String, Long>> eldest = idle.entrySet().iterator();
+            long evicted = eldest.next().getValue();
+            eldest.remove();
+            evictions++;
+            db.finalize(evicted);
+        }
+    }
+
+    /**
+     * Finalizes all idle statements.
+     *
+     * @throws SQLException if finalizing a statement fails
+     */
+    void clear() throws SQLException {
+        Iterator<Long> statements = idle.values().iterator();
+        while (statements.hasNext()) {
+            long ptr = statements.next();
+            statements.remove();
+            db.finalize(ptr);
+        }
+    }
+
+    /** @return the maximum number of idle statements. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** @return the number of idle statements in the cache. */
+    public int size() {
+        db.getLock().lock();
+        try {
+            return idle.size();
+        } finally {
+            db.getLock().unlock();
+        }
+    }
+
+    /** @return the number of prepared statements that were taken from the cache. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return the number of prepared statements that were not found in the cache. */
+    public long getMisses() {
+        return misses;
+    }
+
+    /** @return the number of idle statements finalized because the cache was full. */
+    public long getEvictions() {
+        return evictions;
+    }
+}
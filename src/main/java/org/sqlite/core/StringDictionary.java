@@ -0,0 +1,153 @@
+package org.sqlite.core;
+
+/**
+ * Deduplicates the strings read from a text column with few distinct values, such as a status or a
+ * country code. The UTF-8 bytes of each value are looked up in a small open-addressing table, and
+ * a value seen before is returned as the same String instance, without being decoded again.
+ *
+ * <p>The table holds at most {@value #MAX_ENTRIES} values; other values are decoded as usual. A
+ * dictionary created for {@link #automatic() automatic} use checks the first {@value #SAMPLE}
+ * lookups and turns itself off if less than half of them were hits, as it would only add the cost
+ * of hashing to a column of mostly distinct values.
+ *
+ * <p>A dictionary belongs to one column of one result set and is not thread-safe.
+ *
+ * @see org.sqlite.SQLiteResultSet#setStringDictionary(int, boolean)
+ */
+public final class StringDictionary {
+    static final int MAX_ENTRIES = 256;
+    static final int SAMPLE = 1024;
+    // twice the number of entries, so that probe sequences stay short
+    private static final int SLOTS = MAX_ENTRIES * 2;
+
+    private final boolean automatic;
+    private boolean enabled = true;
+
+    private int[] hashes;
+    private byte[][] keys;
+    private String[] values;
+    private int size = 0;
+
+    private long lookups = 0;
+    private long hits = 0;
+
+    /** a buffer for the bytes of the value being looked up */
+    private byte[] scratch = new byte[64];
+
+    private StringDictionary(boolean automatic) {
+        this.automatic = automatic;
+    }
+
+    /** @return a dictionary that stays on for all values of the column */
+    public static StringDictionary forColumn() {
+        return new StringDictionary(false);
+    }
+
+    /** @return a dictionary that turns itself off if the column has many distinct values */
+    public static StringDictionary automatic() {
+        return new StringDictionary(true);
+    }
+
+    /** @return false if the sampled values were mostly distinct and lookups were turned off. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return the number of values looked up. */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /** @return the number of values found in the dictionary. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return the number of distinct values in the dictionary. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param length the number of bytes needed
+     * @return a buffer to copy the bytes of a value into before calling {@link #get(byte[], int,
+     *     int)}, reused across calls
+     */
+    byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    /**
+     * Returns the string for UTF-8 bytes, decoding them only if they are not in the dictionary.
+     *
+     * @param utf8 the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return the decoded text
+     */
+    String get(byte[] utf8, int offset, int length) {
+        if (!enabled) {
+            return Utf8.decode(utf8, offset, length);
+        }
+        if (automatic && lookups == SAMPLE && hits < SAMPLE / 2) {
+            // the sampled values were mostly distinct, release the table
+            enabled = false;
+            hashes = null;
+            keys = null;
+            values = null;
+            size = 0;
+            return Utf8.decode(utf8, offset, length);
+        }
+        lookups++;
+        if (values == null) {
+            hashes = new int[SLOTS];
+            keys = new byte[SLOTS][];
+            values = new String[SLOTS];
+        }
+
+        int hash = hash(utf8, offset, length);
+        int slot = hash & (SLOTS - 1);
+        while (values[slot] != null) {
+            if (hashes[slot] == hash && equals(keys[slot], utf8, offset, length)) {
+                hits++;
+                return values[slot];
+            }
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+
+        String value = Utf8.decode(utf8, offset, length);
+        if (size < MAX_ENTRIES) {
+            byte[] key = new byte[length];
+            System.arraycopy(utf8, offset, key, 0, length);
+            hashes[slot] = hash;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+        return value;
+    }
+
+    private static int hash(byte[] utf8, int offset, int length) {
+        int hash = length;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + utf8[i];
+        }
+        // spread the high bits, as HashMap does
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(byte[] key, byte[] utf8, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != utf8[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
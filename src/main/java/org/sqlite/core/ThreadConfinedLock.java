@@ -0,0 +1,73 @@
+package org.sqlite.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The lock of a thread-confined connection, which does not lock anything. The application uses
+ * the connection from one thread at a time, so serializing the calls again would only add cost.
+ *
+ * <p>When assertions are enabled for this class, it records the thread that holds it and fails
+ * with an {@link AssertionError} when another thread uses the connection at the same time. The
+ * check is best effort, a race may go unnoticed. Without assertions, every method is empty.
+ *
+ * @see org.sqlite.SQLiteConfig#setThreadConfined(boolean)
+ */
+final class ThreadConfinedLock implements Lock {
+    private static final boolean CHECK_OWNER = ThreadConfinedLock.class.desiredAssertionStatus();
+
+    // the thread that holds the lock and how many times, only tracked when CHECK_OWNER is set
+    private Thread owner;
+    private int holds;
+
+    @Override
+    public void lock() {
+        if (CHECK_OWNER) {
+            acquire();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() {
+        lock();
+    }
+
+    @Override
+    public boolean tryLock() {
+        lock();
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) {
+        return tryLock();
+    }
+
+    @Override
+    public void unlock() {
+        if (CHECK_OWNER && --holds == 0) {
+            owner = null;
+        }
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("thread-confined connections have no lock");
+    }
+
+    private void acquire() {
+        Thread current = Thread.currentThread();
+        Thread holder = owner;
+        if (holder != null && holder != current) {
+            throw new AssertionError(
+                    "thread-confined connection used by "
+                            + current
+                            + " while "
+                            + holder
+                            + " is using it");
+        }
+        owner = current;
+        holds++;
+    }
+}
@@ -0,0 +1,49 @@
+package org.sqlite.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the UTF-8 text returned by <code>sqlite3_column_text()</code>, whose length is known.
+ *
+ * <p>Most text in a database is ASCII. Such text is copied into a string as Latin-1, which the JVM
+ * stores compactly without running a charset decoder; other text is decoded as UTF-8.
+ */
+final class Utf8 {
+    private Utf8() {}
+
+    /**
+     * @param utf8 the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes, without a zero-terminator
+     * @return the decoded text
+     */
+    static String decode(byte[] utf8, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (utf8[i] < 0) {
+                return new String(utf8, offset, length, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(utf8, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decodes text and appends it to a builder, without creating a string for ASCII text.
+     *
+     * @param utf8 the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes, without a zero-terminator
+     * @param dest the builder
+     */
+    static void decode(byte[] utf8, int offset, int length, StringBuilder dest) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = utf8[i];
+            if (b < 0) {
+                dest.append(new String(utf8, i, end - i, StandardCharsets.UTF_8));
+                return;
+            }
+            dest.append((char) b);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.sqlite.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The queue of the writers of one database file within this JVM, shared by all connections to the
+ * file that enable it.
+ *
+ * <p>A connection takes the write permit of the file before a statement that may change the
+ * database, or before BEGIN IMMEDIATE or EXCLUSIVE, and gives it back once its write transaction
+ * has ended. Writers thus wait here in arrival order instead of polling in the busy handler of
+ * SQLite, which sleeps between attempts and does not serve them in order. A writer gives up with
+ * SQLITE_BUSY after the busy timeout of its connection, as it would in the busy handler. Writers
+ * in other processes, or on connections without the queue, are still only resolved by the busy
+ * handler.
+ *
+ * <p>Queues are keyed by the canonical path of the file and kept for the life of the driver, so
+ * that their counters cover the connections that come and go in a pool.
+ *
+ * @see org.sqlite.SQLiteConfig#setWriteQueue(boolean)
+ */
+public final class WriteQueue {
+    private static final ConcurrentHashMap<String, WriteQueue> queues = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final Semaphore permit = new Semaphore(1, true);
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private WriteQueue(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @param fileName the file name the database was opened with
+     * @return the queue of the file, or null if the database is not a file
+     */
+    static WriteQueue forFile(String fileName) {
+        String path = fileName;
+        if (path.startsWith("file:")) {
+            int query = path.indexOf('?');
+            if (query >= 0 && path.indexOf("mode=memory", query) >= 0) {
+                return null;
+            }
+            path = path.substring("file:".length(), query >= 0 ? query : path.length());
+            if (path.startsWith("///")) {
+                path = path.substring(2);
+            }
+        }
+        if (path.isEmpty() || ":memory:".equals(path)) {
+            return null;
+        }
+
+        File file = new File(path);
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        return queues.computeIfAbsent(path, WriteQueue::new);
+    }
+
+    /**
+     * Waits for the write permit of the file.
+     *
+     * @param timeoutMillis how long to wait before failing with SQLITE_BUSY
+     * @throws SQLException if the permit is not granted within the timeout, or the thread is
+     *     interrupted
+     */
+    void acquire(int timeoutMillis) throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            // honors the order of the writers already waiting, unlike tryAcquire()
+            granted = permit.tryAcquire(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DB.newSQLException(
+                    Codes.SQLITE_INTERRUPT, "interrupted waiting to write to " + path);
+        }
+
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!granted) {
+            timeouts.increment();
+            throw DB.newSQLException(Codes.SQLITE_BUSY, "timed out waiting to write to " + path);
+        }
+        acquired.increment();
+    }
+
+    /**
+     * Takes the write permit of the file if it is free and no writer is waiting for it, for a
+     * connection that holds a read transaction. Such a connection keeps the holder of the permit
+     * from committing in rollback-journal mode, and would find its snapshot outdated in WAL mode,
+     * so waiting for the permit cannot succeed.
+     *
+     * @throws SQLException with SQLITE_BUSY if the permit is taken
+     */
+    void acquireNow() throws SQLException {
+        boolean granted;
+        try {
+            // honors the order of the writers already waiting, unlike tryAcquire()
+            granted = permit.tryAcquire(0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DB.newSQLException(
+                    Codes.SQLITE_INTERRUPT, "interrupted waiting to write to " + path);
+        }
+        if (!granted) {
+            timeouts.increment();
+            throw DB.newSQLException(
+                    Codes.SQLITE_BUSY,
+                    "cannot write to " + path + " within a read transaction while it is written");
+        }
+        acquired.increment();
+    }
+
+    /** Gives the write permit back to the writer that has waited longest. */
+    void release() {
+        permit.release();
+    }
+
+    /** @return the canonical path of the file. */
+    public String getPath() {
+        return path;
+    }
+
+    /** @return an estimate of the number of writers waiting for the permit. */
+    public int getQueueLength() {
+        return permit.getQueueLength();
+    }
+
+    /** @return the number of times the write permit was granted. */
+    public long getAcquireCount() {
+        return acquired.sum();
+    }
+
+    /**
+     * @return the number of writers that gave up after their busy timeout, or at once within a
+     *     read transaction.
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /** @return the total time writers have waited for the permit, in nanoseconds. */
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /** @return the longest time a writer has waited for the permit, in nanoseconds. */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+}
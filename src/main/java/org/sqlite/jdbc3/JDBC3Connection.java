@@ -17,6 +17,7 @@ import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteConfig.TransactionMode;
 import org.sqlite.SQLiteConnection;
 import org.sqlite.SQLiteOpenMode;
+import org.sqlite.core.CoreStatement;
 
 public abstract class JDBC3Connection extends SQLiteConnection {
     private final AtomicInteger savePoint = new AtomicInteger(0);
@@ -55,7 +56,7 @@ public abstract class JDBC3Connection extends SQLiteConnection {
                 // this is a read-only transaction, make sure all writing operations are rejected by
                 // the DB
                 // (note: this pragma is evaluated on a per-transaction basis by SQLite)
-                getDatabase()._exec("PRAGMA query_only = true;");
+                getDatabase().execControl("PRAGMA query_only = true;", false);
             } else {
                 if (getCurrentTransactionMode() == TransactionMode.DEFERRED) {
                     if (isFirstStatementExecuted()) {
@@ -66,12 +67,11 @@ public abstract class JDBC3Connection extends SQLiteConnection {
                     } else {
                         // this is the first statement in the transaction; close and create an
                         // immediate one
-                        getDatabase()._exec("commit; /* need to explicitly upgrade transaction */");
+                        getDatabase().execControl("commit;", false);
 
-                        // start the write transaction
-                        getDatabase()._exec("PRAGMA query_only = false;");
-                        getDatabase()
-                                ._exec("BEGIN IMMEDIATE; /* explicitly upgrade transaction */");
+                        // start the write transaction, explicitly upgrading it
+                        getDatabase().execControl("PRAGMA query_only = false;", false);
+                        getDatabase().execControl("begin immediate;", false);
                         setCurrentTransactionMode(TransactionMode.IMMEDIATE);
                     }
                 }
@@ -207,7 +207,11 @@ public abstract class JDBC3Connection extends SQLiteConnection {
 
     /** @see java.sql.Connection#prepareStatement(java.lang.String, int) */
     public PreparedStatement prepareStatement(String sql, int autoC) throws SQLException {
-        return prepareStatement(sql);
+        PreparedStatement prep = prepareStatement(sql);
+        if (autoC == Statement.NO_GENERATED_KEYS) {
+            ((CoreStatement) prep).setReturnGeneratedKeys(false);
+        }
+        return prep;
     }
 
     /** @see java.sql.Connection#prepareStatement(java.lang.String, int[]) */
@@ -217,7 +221,13 @@ public abstract class JDBC3Connection extends SQLiteConnection {
 
     /** @see java.sql.Connection#prepareStatement(java.lang.String, java.lang.String[]) */
     public PreparedStatement prepareStatement(String sql, String[] colNames) throws SQLException {
-        return prepareStatement(sql);
+        String returning = CoreStatement.addReturning(sql, colNames);
+        if (returning == null) {
+            return prepareStatement(sql);
+        }
+        PreparedStatement prep = prepareStatement(returning);
+        ((CoreStatement) prep).setReturningGeneratedKeys();
+        return prep;
     }
 
     /** @see java.sql.Connection#prepareStatement(java.lang.String, int, int) */
@@ -240,7 +250,7 @@ public abstract class JDBC3Connection extends SQLiteConnection {
             getConnectionConfig().setAutoCommit(false);
         }
         Savepoint sp = new JDBC3Savepoint(savePoint.incrementAndGet());
-        getDatabase().exec(String.format("SAVEPOINT %s", sp.getSavepointName()), false);
+        getDatabase().execSavepoint(String.format("SAVEPOINT %s", sp.getSavepointName()), false);
         return sp;
     }
 
@@ -255,7 +265,7 @@ public abstract class JDBC3Connection extends SQLiteConnection {
             getConnectionConfig().setAutoCommit(false);
         }
         Savepoint sp = new JDBC3Savepoint(savePoint.incrementAndGet(), name);
-        getDatabase().exec(String.format("SAVEPOINT %s", sp.getSavepointName()), false);
+        getDatabase().execSavepoint(String.format("SAVEPOINT %s", sp.getSavepointName()), false);
         return sp;
     }
 
@@ -266,7 +276,9 @@ public abstract class JDBC3Connection extends SQLiteConnection {
             throw new SQLException("database in auto-commit mode");
         }
         getDatabase()
-                .exec(String.format("RELEASE SAVEPOINT %s", savepoint.getSavepointName()), false);
+                .execSavepoint(
+                        String.format("RELEASE SAVEPOINT %s", savepoint.getSavepointName()),
+                        false);
     }
 
     /** @see java.sql.Connection#rollback(java.sql.Savepoint) */
@@ -276,7 +288,7 @@ public abstract class JDBC3Connection extends SQLiteConnection {
             throw new SQLException("database in auto-commit mode");
         }
         getDatabase()
-                .exec(
+                .execSavepoint(
                         String.format("ROLLBACK TO SAVEPOINT %s", savepoint.getSavepointName()),
                         getAutoCommit());
     }
@@ -1,9 +1,7 @@
 package org.sqlite.jdbc3;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.Array;
@@ -25,6 +23,7 @@ import java.util.Calendar;
 import org.sqlite.SQLiteConnection;
 import org.sqlite.core.CorePreparedStatement;
 import org.sqlite.core.DB;
+import org.sqlite.core.ParameterBuffer;
 
 public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
 
@@ -36,7 +35,7 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
     public void clearParameters() throws SQLException {
         checkOpen();
         pointer.safeRunConsume(DB::clear_bindings);
-        if (batch != null) for (int i = batchPos; i < batchPos + paramCount; i++) batch[i] = null;
+        if (parameters != null) parameters.clear(batchPos, batchPos + paramCount);
     }
 
     /** @see java.sql.PreparedStatement#execute() */
@@ -54,12 +53,24 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
                 () -> {
                     boolean success = false;
                     try {
-                        synchronized (conn) {
+                        conn.getDatabase().getLock().lock();
+                        try {
+                            if (returningGeneratedKeys) {
+                                // the rows returned are the generated keys, not a result set
+                                updateCount =
+                                        conn.getDatabase()
+                                                .executeReturning(
+                                                        JDBC3PreparedStatement.this, parameters);
+                                success = true;
+                                return false;
+                            }
                             resultsWaiting =
-                                    conn.getDatabase().execute(JDBC3PreparedStatement.this, batch);
+                                    conn.getDatabase().execute(JDBC3PreparedStatement.this, parameters);
                             updateGeneratedKeys();
                             success = true;
                             updateCount = getDatabase().changes();
+                        } finally {
+                            conn.getDatabase().getLock().unlock();
                         }
                         return 0 != columnCount;
                     } finally {
@@ -89,7 +100,7 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
                     boolean success = false;
                     try {
                         resultsWaiting =
-                                conn.getDatabase().execute(JDBC3PreparedStatement.this, batch);
+                                conn.getDatabase().execute(JDBC3PreparedStatement.this, parameters);
                         success = true;
                     } finally {
                         if (!success && !pointer.isClosed()) {
@@ -109,7 +120,7 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
     public long executeLargeUpdate() throws SQLException {
         checkOpen();
 
-        if (columnCount != 0) {
+        if (columnCount != 0 && !returningGeneratedKeys) {
             throw new SQLException("Query returns results");
         }
 
@@ -123,12 +134,23 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
 
         return this.withConnectionTimeout(
                 () -> {
-                    synchronized (conn) {
-                        long rc =
-                                conn.getDatabase()
-                                        .executeUpdate(JDBC3PreparedStatement.this, batch);
-                        updateGeneratedKeys();
-                        return rc;
+                    try {
+                        conn.getDatabase().getLock().lock();
+                        try {
+                            DB db = conn.getDatabase();
+                            long rc =
+                                    returningGeneratedKeys
+                                            ? db.executeReturning(
+                                                    JDBC3PreparedStatement.this, parameters)
+                                            : db.executeUpdate(
+                                                    JDBC3PreparedStatement.this, parameters);
+                            updateGeneratedKeys();
+                            return rc;
+                        } finally {
+                            conn.getDatabase().getLock().unlock();
+                        }
+                    } finally {
+                        conn.getDatabase().awaitCommit(JDBC3PreparedStatement.this);
                     }
                 });
     }
@@ -138,15 +160,11 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
         checkOpen();
         batchPos += paramCount;
         batchQueryCount++;
-        if (batch == null) {
-            batch = new Object[paramCount];
-        }
-        if (batchPos + paramCount > batch.length) {
-            Object[] nb = new Object[batch.length * 2];
-            System.arraycopy(batch, 0, nb, 0, batch.length);
-            batch = nb;
+        if (parameters == null) {
+            parameters = new ParameterBuffer(paramCount);
         }
-        System.arraycopy(batch, batchPos - paramCount, batch, batchPos, paramCount);
+        parameters.ensureSize(batchPos + paramCount);
+        parameters.copy(batchPos - paramCount, batchPos, paramCount);
     }
 
     // ParameterMetaData FUNCTIONS //////////////////////////////////
@@ -177,7 +195,7 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
     /** @see java.sql.ParameterMetaData#getParameterType(int) */
     public int getParameterType(int pos) throws SQLException {
         checkIndex(pos);
-        Object paramValue = batch[pos - 1];
+        Object paramValue = parameters.getObject(pos - 1);
 
         if (paramValue == null) {
             return Types.NULL;
@@ -230,48 +248,26 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
     }
 
     /**
-     * Reads given number of bytes from an input stream.
+     * Checks the declared length of a stream.
      *
-     * @param istream The input stream.
-     * @param length The number of bytes to read.
-     * @return byte array.
-     * @throws SQLException
+     * @param length the number of bytes or characters of the stream
+     * @throws SQLException if the length is negative
      */
-    private byte[] readBytes(InputStream istream, int length) throws SQLException {
+    protected static void checkLength(long length) throws SQLException {
         if (length < 0) {
             throw new SQLException("Error reading stream. Length should be non-negative");
         }
-
-        byte[] bytes = new byte[length];
-
-        try {
-            int bytesRead;
-            int totalBytesRead = 0;
-
-            while (totalBytesRead < length) {
-                bytesRead = istream.read(bytes, totalBytesRead, length - totalBytesRead);
-                if (bytesRead == -1) {
-                    throw new IOException("End of stream has been reached");
-                }
-                totalBytesRead += bytesRead;
-            }
-
-            return bytes;
-        } catch (IOException cause) {
-            SQLException exception = new SQLException("Error reading stream");
-
-            exception.initCause(cause);
-            throw exception;
-        }
     }
 
-    /** @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int) */
+    /**
+     * The stream is read when the statement is executed, straight into the memory bound to the
+     * parameter, so it must stay open until then.
+     *
+     * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int)
+     */
     public void setBinaryStream(int pos, InputStream istream, int length) throws SQLException {
-        if (istream == null && length == 0) {
-            setBytes(pos, null);
-        }
-
-        setBytes(pos, readBytes(istream, length));
+        checkLength(length);
+        batchStream(pos, istream, false, length);
     }
 
     /** @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, int) */
@@ -279,20 +275,15 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
         setUnicodeStream(pos, istream, length);
     }
 
-    /** @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int) */
+    /**
+     * The bytes are taken as UTF-8 text. The stream is read when the statement is executed, so it
+     * must stay open until then.
+     *
+     * @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int)
+     */
     public void setUnicodeStream(int pos, InputStream istream, int length) throws SQLException {
-        if (istream == null && length == 0) {
-            setString(pos, null);
-        }
-
-        try {
-            setString(pos, new String(readBytes(istream, length), "UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            SQLException exception = new SQLException("UTF-8 is not supported");
-
-            exception.initCause(e);
-            throw exception;
-        }
+        checkLength(length);
+        batchStream(pos, istream, true, length);
     }
 
     /** @see java.sql.PreparedStatement#setBoolean(int, boolean) */
@@ -310,24 +301,40 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
         batch(pos, value);
     }
 
+    /**
+     * Sets a parameter to a BLOB of zeros of the given length, without allocating it. The value is
+     * then written in place with {@link org.sqlite.SQLiteConnection#openBlob(String, String,
+     * long, boolean)}, so that a large BLOB is stored without holding it in memory.
+     *
+     * @param pos the first parameter is 1, the second is 2, ...
+     * @param length the length of the BLOB in bytes
+     * @throws SQLException
+     */
+    public void setZeroBlob(int pos, long length) throws SQLException {
+        if (length < 0) {
+            throw new SQLException("Length of a zero blob should be non-negative");
+        }
+        batchZeroBlob(pos, length);
+    }
+
     /** @see java.sql.PreparedStatement#setDouble(int, double) */
     public void setDouble(int pos, double value) throws SQLException {
-        batch(pos, new Double(value));
+        batch(pos, value);
     }
 
     /** @see java.sql.PreparedStatement#setFloat(int, float) */
     public void setFloat(int pos, float value) throws SQLException {
-        batch(pos, new Float(value));
+        batch(pos, value);
     }
 
     /** @see java.sql.PreparedStatement#setInt(int, int) */
     public void setInt(int pos, int value) throws SQLException {
-        batch(pos, new Integer(value));
+        batch(pos, value);
     }
 
     /** @see java.sql.PreparedStatement#setLong(int, long) */
     public void setLong(int pos, long value) throws SQLException {
-        batch(pos, new Long(value));
+        batch(pos, value);
     }
 
     /** @see java.sql.PreparedStatement#setNull(int, int) */
@@ -347,15 +354,15 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
         } else if (value instanceof java.util.Date) {
             setDateByMilliseconds(pos, ((java.util.Date) value).getTime(), Calendar.getInstance());
         } else if (value instanceof Long) {
-            batch(pos, value);
+            batch(pos, ((Long) value).longValue());
         } else if (value instanceof Integer) {
-            batch(pos, value);
+            batch(pos, ((Integer) value).intValue());
         } else if (value instanceof Short) {
-            batch(pos, new Integer(((Short) value).intValue()));
+            batch(pos, ((Short) value).intValue());
         } else if (value instanceof Float) {
-            batch(pos, value);
+            batch(pos, ((Float) value).floatValue());
         } else if (value instanceof Double) {
-            batch(pos, value);
+            batch(pos, ((Double) value).doubleValue());
         } else if (value instanceof Boolean) {
             setBoolean(pos, ((Boolean) value).booleanValue());
         } else if (value instanceof byte[]) {
@@ -387,24 +394,14 @@ public abstract class JDBC3PreparedStatement extends CorePreparedStatement {
         batch(pos, value);
     }
 
-    /** @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int) */
+    /**
+     * The reader is read to its end, whatever the length, when the statement is executed; its
+     * characters are encoded to UTF-8 straight into the memory bound to the parameter.
+     *
+     * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int)
+     */
     public void setCharacterStream(int pos, Reader reader, int length) throws SQLException {
-        try {
-            // copy chars from reader to StringBuffer
-            StringBuffer sb = new StringBuffer();
-            char[] cbuf = new char[8192];
-            int cnt;
-
-            while ((cnt = reader.read(cbuf)) > 0) {
-                sb.append(cbuf, 0, cnt);
-            }
-
-            // set as string
-            setString(pos, sb.toString());
-        } catch (IOException e) {
-            throw new SQLException(
-                    "Cannot read from character stream, exception message: " + e.getMessage());
-        }
+        batchStream(pos, reader, -1);
     }
 
     /** @see java.sql.PreparedStatement#setDate(int, java.sql.Date) */
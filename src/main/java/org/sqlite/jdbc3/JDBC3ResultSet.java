@@ -5,6 +5,8 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -23,6 +25,8 @@ import java.util.regex.Pattern;
 import org.sqlite.core.CoreResultSet;
 import org.sqlite.core.CoreStatement;
 import org.sqlite.core.DB;
+import org.sqlite.core.RowBuffer;
+import org.sqlite.core.StringDictionary;
 import org.sqlite.date.FastDateFormat;
 
 public abstract class JDBC3ResultSet extends CoreResultSet {
@@ -57,9 +61,14 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
             return false; // finished ResultSet
         }
         lastCol = -1;
+        columnTypesValid = false;
 
         // first row is loaded by execute(), so do not step() again
-        if (row == 0) {
+        if (row == 0 || pendingRow) {
+            pendingRow = false;
+            if (limitRows > 1) {
+                fetchRows(false);
+            }
             row++;
             return true;
         }
@@ -69,6 +78,25 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
             return false;
         }
 
+        // serve the rows fetched ahead, then fetch the next block
+        if (rows != null || limitRows > 1) {
+            if (rows != null && rows.next()) {
+                row++;
+                return true;
+            }
+            if (rows != null && rows.isDone()) {
+                pastLastRow = true;
+                rows.throwIfFailed();
+                return false;
+            }
+            if (fetchRows(true) == 0) {
+                pastLastRow = true;
+                return false;
+            }
+            row++;
+            return true;
+        }
+
         // do the real work
         int statusCode = stmt.pointer.safeRunInt(DB::step);
         switch (statusCode) {
@@ -85,6 +113,163 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
         }
     }
 
+    /**
+     * Fetches the next block of up to fetch size rows into {@link #rows} and positions it on the
+     * first of them.
+     *
+     * @param step false if the statement is already on the first row to fetch
+     * @return the number of rows fetched
+     */
+    private int fetchRows(boolean step) throws SQLException {
+        if (rows == null) {
+            // reuse the arrays of the previous execution if the statement has the same columns
+            rows =
+                    spareRows != null && spareRows.columnCount() == colsMeta.length
+                            ? spareRows
+                            : new RowBuffer(colsMeta.length, limitRows);
+            spareRows = null;
+        }
+        final int limit =
+                maxRows != 0
+                        ? (int) Math.min(Math.max(limitRows, 1), maxRows - row)
+                        : Math.max(limitRows, 1);
+        int fetched = stmt.pointer.safeRunInt((db, ptr) -> db.fetch(ptr, rows, limit, step));
+        rows.next();
+        return fetched;
+    }
+
+    /** @return whether the current row is served from {@link #rows}. */
+    private boolean isBuffered() {
+        return rows != null && rows.hasRow();
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#readLongColumn(int, long[], long[]) */
+    public int readLongColumn(int col, long[] values, long[] nulls) throws SQLException {
+        checkOpen();
+        final int c = checkCol(col);
+        return readColumn(
+                values.length,
+                (rows, index) -> {
+                    values[index] = rows.getLong(c);
+                    DB.setNull(nulls, index, rows.getType(c) == SQLITE_NULL);
+                    return true;
+                },
+                (db, ptr, step, offset, length) ->
+                        db.readLongColumn(ptr, c, step, values, nulls, offset, length));
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#readDoubleColumn(int, double[], long[]) */
+    public int readDoubleColumn(int col, double[] values, long[] nulls) throws SQLException {
+        checkOpen();
+        final int c = checkCol(col);
+        return readColumn(
+                values.length,
+                (rows, index) -> {
+                    values[index] = rows.getDouble(c);
+                    DB.setNull(nulls, index, rows.getType(c) == SQLITE_NULL);
+                    return true;
+                },
+                (db, ptr, step, offset, length) ->
+                        db.readDoubleColumn(ptr, c, step, values, nulls, offset, length));
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#readTextColumnOffsets(int, ByteBuffer, int[], long[]) */
+    public int readTextColumnOffsets(int col, ByteBuffer data, int[] offsets, long[] nulls)
+            throws SQLException {
+        checkOpen();
+        final int c = checkCol(col);
+        offsets[0] = data.position();
+        return readColumn(
+                offsets.length - 1,
+                (rows, index) -> {
+                    String text = rows.getText(c);
+                    if (text != null) {
+                        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                        if (bytes.length > data.remaining()) {
+                            return false;
+                        }
+                        data.put(bytes);
+                    }
+                    DB.setNull(nulls, index, text == null);
+                    offsets[index + 1] = data.position();
+                    return true;
+                },
+                (db, ptr, step, offset, length) ->
+                        db.readTextColumn(ptr, c, step, data, offsets, nulls, offset, length));
+    }
+
+    /** Reads the value of a column in the current row of {@link #rows}. */
+    private interface BufferedColumnReader {
+        /**
+         * @param rows the buffer, on the row to read
+         * @param index the index of the row in the destination
+         * @return false if the value does not fit in the destination
+         */
+        boolean read(RowBuffer rows, int index);
+    }
+
+    /** Reads a column of the next rows from the statement with one of the DB.read*Column. */
+    private interface StatementColumnReader {
+        int read(DB db, long ptr, boolean step, int offset, int length) throws SQLException;
+    }
+
+    /**
+     * Reads a column of the next rows: first the rows fetched ahead, then rows from the statement.
+     *
+     * @param length the maximum number of rows to read
+     * @return the number of rows read
+     */
+    private int readColumn(
+            int length, BufferedColumnReader buffered, StatementColumnReader statement)
+            throws SQLException {
+        if (emptyResultSet || pastLastRow) {
+            return 0;
+        }
+        lastCol = -1;
+        if (maxRows != 0) {
+            length = (int) Math.min(length, maxRows - row);
+        }
+        if (length <= 0) {
+            return 0;
+        }
+
+        int n = 0;
+        if (rows != null) {
+            while (n < length && rows.next()) {
+                if (!buffered.read(rows, n)) {
+                    rows.previous();
+                    return n;
+                }
+                row++;
+                n++;
+            }
+            if (n == length) {
+                return n;
+            }
+            if (rows.isDone()) {
+                pastLastRow = true;
+                rows.throwIfFailed();
+                return n;
+            }
+        }
+
+        // the first row is loaded by execute(), other rows are stepped to unless pending
+        final boolean step = row != 0 && !pendingRow;
+        final int offset = n;
+        final int remaining = length - n;
+        int read =
+                stmt.pointer.safeRunInt(
+                        (db, ptr) -> statement.read(db, ptr, step, offset, remaining));
+        pendingRow = read < 0;
+        if (pendingRow) {
+            read = ~read;
+        } else if (read < remaining) {
+            pastLastRow = true;
+        }
+        row += read;
+        return n + read;
+    }
+
     /** @see java.sql.ResultSet#getType() */
     public int getType() {
         return ResultSet.TYPE_FORWARD_ONLY;
@@ -213,7 +398,31 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
 
     /** @see java.sql.ResultSet#getBytes(int) */
     public byte[] getBytes(int col) throws SQLException {
-        return stmt.pointer.safeRun((db, ptr) -> db.column_blob(ptr, markCol(col)));
+        if (isBuffered()) {
+            return rows.getBlob(markCol(col));
+        }
+        return stmt.pointer.columnBlob(markCol(col));
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#getBlobBuffer(int) */
+    public ByteBuffer getBlobBuffer(int col) throws SQLException {
+        if (isBuffered()) {
+            return rows.getBlobBuffer(markCol(col));
+        }
+        return stmt.pointer.columnBlobBuffer(markCol(col));
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#getBytes(int, ByteBuffer) */
+    public int getBytes(int col, ByteBuffer dest) throws SQLException {
+        if (isBuffered()) {
+            return rows.getBlob(markCol(col), dest);
+        }
+        return stmt.pointer.columnBlob(markCol(col), dest);
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#getBytes(int, byte[], int) */
+    public int getBytes(int col, byte[] dest, int offset) throws SQLException {
+        return getBytes(col, ByteBuffer.wrap(dest, offset, dest.length - offset));
     }
 
     /** @see java.sql.ResultSet#getBytes(java.lang.String) */
@@ -328,7 +537,10 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
 
     /** @see java.sql.ResultSet#getInt(int) */
     public int getInt(int col) throws SQLException {
-        return stmt.pointer.safeRunInt((db, ptr) -> db.column_int(ptr, markCol(col)));
+        if (isBuffered()) {
+            return rows.getInt(markCol(col));
+        }
+        return stmt.pointer.columnInt(markCol(col));
     }
 
     /** @see java.sql.ResultSet#getInt(java.lang.String) */
@@ -361,6 +573,28 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
         return safeGetColumnText(col);
     }
 
+    /** @see org.sqlite.SQLiteResultSet#appendString(int, StringBuilder) */
+    public boolean appendString(int col, StringBuilder dest) throws SQLException {
+        if (isBuffered()) {
+            return rows.appendText(markCol(col), dest);
+        }
+        return stmt.pointer.columnText(markCol(col), dest);
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#setStringDictionary(int, boolean) */
+    public void setStringDictionary(int col, boolean enabled) throws SQLException {
+        int c = checkCol(col);
+        if (dictionaries == null) {
+            initDictionaries();
+        }
+        dictionaries[c] = enabled ? StringDictionary.forColumn() : null;
+    }
+
+    /** @see org.sqlite.SQLiteResultSet#getStringDictionary(int) */
+    public StringDictionary getStringDictionary(int col) throws SQLException {
+        return stringDictionary(checkCol(col));
+    }
+
     /** @see java.sql.ResultSet#getString(java.lang.String) */
     public String getString(String col) throws SQLException {
         return getString(findColumn(col));
@@ -963,19 +1197,64 @@ public abstract class JDBC3ResultSet extends CoreResultSet {
     }
 
     protected int safeGetColumnType(int col) throws SQLException {
-        return stmt.pointer.safeRunInt((db, ptr) -> db.column_type(ptr, col));
+        if (isBuffered()) {
+            return rows.getType(col);
+        }
+        // the getters and wasNull() ask for the types of the same row repeatedly, so read them
+        // all in one go. This also keeps the types from before any conversion of a value
+        if (!columnTypesValid) {
+            if (columnTypes == null) {
+                columnTypes = new int[colsMeta.length];
+            }
+            stmt.pointer.columnTypes(columnTypes);
+            columnTypesValid = true;
+        }
+        return columnTypes[col];
     }
 
     private long safeGetLongCol(int col) throws SQLException {
-        return stmt.pointer.safeRunLong((db, ptr) -> db.column_long(ptr, markCol(col)));
+        if (isBuffered()) {
+            return rows.getLong(markCol(col));
+        }
+        return stmt.pointer.columnLong(markCol(col));
     }
 
     private double safeGetDoubleCol(int col) throws SQLException {
-        return stmt.pointer.safeRunDouble((db, ptr) -> db.column_double(ptr, markCol(col)));
+        if (isBuffered()) {
+            return rows.getDouble(markCol(col));
+        }
+        return stmt.pointer.columnDouble(markCol(col));
     }
 
     private String safeGetColumnText(int col) throws SQLException {
-        return stmt.pointer.safeRun((db, ptr) -> db.column_text(ptr, markCol(col)));
+        int c = markCol(col);
+        StringDictionary dictionary = stringDictionary(c);
+        if (isBuffered()) {
+            return dictionary == null ? rows.getText(c) : rows.getText(c, dictionary);
+        }
+        return dictionary == null
+                ? stmt.pointer.columnText(c)
+                : stmt.pointer.columnText(c, dictionary);
+    }
+
+    /** @return the dictionary of a column in [0,x-1] form, or null if it has none */
+    private StringDictionary stringDictionary(int col) {
+        if (dictionaries == null) {
+            if (!getDatabase().getConfig().isStringDictionary()) {
+                return null;
+            }
+            initDictionaries();
+        }
+        return dictionaries[col];
+    }
+
+    private void initDictionaries() {
+        dictionaries = new StringDictionary[colsMeta.length];
+        if (getDatabase().getConfig().isStringDictionary()) {
+            for (int i = 0; i < dictionaries.length; i++) {
+                dictionaries[i] = StringDictionary.automatic();
+            }
+        }
     }
 
     private String safeGetColumnTableName(int col) throws SQLException {
@@ -50,20 +50,28 @@ public abstract class JDBC3Statement extends CoreStatement {
                     }
 
                     JDBC3Statement.this.sql = sql;
-                    synchronized (conn) {
+                    conn.getDatabase().getLock().lock();
+                    try {
                         conn.getDatabase().prepare(JDBC3Statement.this);
                         boolean result = exec();
                         updateGeneratedKeys();
                         updateCount = getDatabase().changes();
                         exhaustedResults = false;
                         return result;
+                    } finally {
+                        conn.getDatabase().getLock().unlock();
                     }
                 });
     }
 
     /** @see java.sql.Statement#execute(java.lang.String, int) */
     public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
-        return execute(sql);
+        returnGeneratedKeys = autoGeneratedKeys != Statement.NO_GENERATED_KEYS;
+        try {
+            return execute(sql);
+        } finally {
+            returnGeneratedKeys = true;
+        }
     }
 
     /**
@@ -111,7 +119,7 @@ public abstract class JDBC3Statement extends CoreStatement {
 
     /** @see java.sql.Statement#executeUpdate(java.lang.String, int) */
     public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
-        return executeUpdate(sql);
+        return (int) executeLargeUpdate(sql, autoGeneratedKeys);
     }
 
     /** @see java.sql.Statement#executeLargeUpdate(java.lang.String) */
@@ -129,14 +137,17 @@ public abstract class JDBC3Statement extends CoreStatement {
                         ext.execute(db);
                     } else {
                         try {
-                            synchronized (db) {
+                            db.getLock().lock();
+                            try {
                                 changes = db.total_changes();
                                 // directly invokes the exec API to support multiple SQL statements
-                                int statusCode = db._exec(sql);
+                                int statusCode = db.execScript(sql);
                                 if (statusCode != SQLITE_OK)
                                     throw DB.newSQLException(statusCode, "");
                                 updateGeneratedKeys();
                                 changes = db.total_changes() - changes;
+                            } finally {
+                                db.getLock().unlock();
                             }
 
                         } finally {
@@ -149,7 +160,12 @@ public abstract class JDBC3Statement extends CoreStatement {
 
     /** @see java.sql.Statement#executeLargeUpdate(java.lang.String, int) */
     public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
-        return executeLargeUpdate(sql);
+        returnGeneratedKeys = autoGeneratedKeys != Statement.NO_GENERATED_KEYS;
+        try {
+            return executeLargeUpdate(sql);
+        } finally {
+            returnGeneratedKeys = true;
+        }
     }
 
     /** @see java.sql.Statement#getResultSet() */
@@ -199,7 +215,8 @@ public abstract class JDBC3Statement extends CoreStatement {
         if (!pointer.isClosed()
                 && !rs.isOpen()
                 && !resultsWaiting
-                && pointer.safeRunInt(DB::column_count) == 0) return updateCount;
+                && (returningGeneratedKeys || pointer.safeRunInt(DB::column_count) == 0))
+            return updateCount;
         return -1;
     }
 
@@ -233,23 +250,34 @@ public abstract class JDBC3Statement extends CoreStatement {
 
         long[] changes = new long[batchPos];
         DB db = conn.getDatabase();
-        synchronized (db) {
+        try {
+            db.getLock().lock();
             try {
-                for (int i = 0; i < changes.length; i++) {
-                    try {
-                        this.sql = (String) batch[i];
-                        db.prepare(this);
-                        changes[i] = db.executeUpdate(this, null);
-                    } catch (SQLException e) {
-                        throw new BatchUpdateException(
-                                "batch entry " + i + ": " + e.getMessage(), null, 0, changes, e);
-                    } finally {
-                        if (pointer != null) pointer.close();
+                try {
+                    for (int i = 0; i < changes.length; i++) {
+                        try {
+                            this.sql = (String) batch[i];
+                            db.prepare(this);
+                            changes[i] = db.executeUpdate(this, null);
+                        } catch (SQLException e) {
+                            throw new BatchUpdateException(
+                                    "batch entry " + i + ": " + e.getMessage(),
+                                    null,
+                                    0,
+                                    changes,
+                                    e);
+                        } finally {
+                            if (pointer != null) pointer.close();
+                        }
                     }
+                } finally {
+                    clearBatch();
                 }
             } finally {
-                clearBatch();
+                db.getLock().unlock();
             }
+        } finally {
+            db.awaitCommit(this);
         }
 
         return changes;
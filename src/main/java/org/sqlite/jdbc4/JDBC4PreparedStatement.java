@@ -9,7 +9,6 @@ import java.sql.RowId;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLXML;
-import java.util.Arrays;
 import org.sqlite.SQLiteConnection;
 import org.sqlite.jdbc3.JDBC3PreparedStatement;
 
@@ -18,7 +17,7 @@ public class JDBC4PreparedStatement extends JDBC3PreparedStatement
 
     @Override
     public String toString() {
-        return sql + " \n parameters=" + Arrays.toString(batch);
+        return sql + " \n parameters=" + parameters;
     }
 
     public JDBC4PreparedStatement(SQLiteConnection conn, String sql) throws SQLException {
@@ -38,8 +37,7 @@ public class JDBC4PreparedStatement extends JDBC3PreparedStatement
 
     public void setNCharacterStream(int parameterIndex, Reader value, long length)
             throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        setCharacterStream(parameterIndex, value, length);
     }
 
     public void setNClob(int parameterIndex, NClob value) throws SQLException {
@@ -69,40 +67,36 @@ public class JDBC4PreparedStatement extends JDBC3PreparedStatement
     }
 
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        checkLength(length);
+        batchStream(parameterIndex, x, true, length);
     }
 
     public void setBinaryStream(int parameterIndex, InputStream x, long length)
             throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        checkLength(length);
+        batchStream(parameterIndex, x, false, length);
     }
 
     public void setCharacterStream(int parameterIndex, Reader reader, long length)
             throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        checkLength(length);
+        batchStream(parameterIndex, reader, length);
     }
 
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        batchStream(parameterIndex, x, true, -1);
     }
 
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        batchStream(parameterIndex, x, false, -1);
     }
 
     public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        batchStream(parameterIndex, reader, -1);
     }
 
     public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
-        // TODO Support this
-        throw new SQLFeatureNotSupportedException();
+        setCharacterStream(parameterIndex, value);
     }
 
     public void setClob(int parameterIndex, Reader reader) throws SQLException {
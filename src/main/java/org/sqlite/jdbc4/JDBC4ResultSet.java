@@ -27,10 +27,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Map;
+import org.sqlite.SQLiteResultSet;
 import org.sqlite.core.CoreStatement;
 import org.sqlite.jdbc3.JDBC3ResultSet;
 
-public class JDBC4ResultSet extends JDBC3ResultSet implements ResultSet, ResultSetMetaData {
+public class JDBC4ResultSet extends JDBC3ResultSet
+        implements ResultSet, ResultSetMetaData, SQLiteResultSet {
 
     public JDBC4ResultSet(CoreStatement stmt) {
         super(stmt);
@@ -9,11 +9,19 @@ import java.lang.foreign.ValueLayout;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import static java.lang.foreign.Linker.nativeLinker;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sqlite.core.ForeignFunctionHandler.xFuncMethodType;
+import static org.sqlite.core.ForeignSqlite3.SQLITE_STATIC;
 import static org.sqlite.core.ForeignSqlite3.SQLITE_TRANSIENT;
 
 public class ForeignDB extends DB {
@@ -28,11 +36,45 @@ public class ForeignDB extends DB {
      */
     private BusyHandler busyHandler;
 
+    /**
+     * Reusable memory for marshalling call arguments, see {@link ForeignScratchArena}.
+     */
+    private final ForeignScratchArena scratch = new ForeignScratchArena(ForeignScratchArena.DEFAULT_SIZE);
+
+    /**
+     * Maximum number of batch rows whose parameters are marshalled together.
+     */
+    private static final int BATCH_CHUNK_ROWS = 256;
+
+    /** the value of a zero-length blob, for which sqlite3_column_blob() returns NULL */
+    private static final MemorySegment EMPTY_BLOB = MemorySegment.ofArray(new byte[0]);
+
+    /**
+     * The arenas of the blob views of the current row of each statement, see {@link #column_blob_buffer(long, int)}.
+     * An arena is closed as soon as its statement is stepped, reset or finalized, which makes its views throw
+     * instead of reading memory that sqlite has freed.
+     */
+    private final Map<Long, RowArena> rowArenas = new HashMap<>();
+
+    /**
+     * The statements whose rows were left by another thread than the one that read their blob views, which take
+     * shared arenas from then on.
+     */
+    private final Set<Long> sharedRows = new HashSet<>();
+
+    /**
+     * The arena of the blob views of a row, and the thread it is confined to, or null if it is shared. Closing a
+     * confined arena is cheap, while closing a shared one waits for a handshake with every thread of the JVM, so
+     * shared arenas are only used for statements that move between threads.
+     */
+    private record RowArena(Arena arena, Thread owner) {
+    }
+
     private MemorySegment sqlite3Handle() {
         return ref(sqlite3Handle);
     }
 
-    private static MemorySegment ptr(Long address) {
+    private static MemorySegment ptr(long address) {
         return MemorySegment.ofAddress(address);
     }
 
@@ -44,86 +86,66 @@ public class ForeignDB extends DB {
         return MemorySegment.ofAddress(ptr);
     }
 
-    private Object invokeExact(MethodHandle handle, Object... args) throws SQLException {
-        try {
-            return handle.invokeWithArguments(args);
-        } catch (Throwable t) {
-            throw new SQLException(t);
-        }
-    }
-
     /**
-     * Convenience method to invoke a {@link MethodHandle} with the signature `int -> args ...`
+     * Converts the {@link Throwable} raised by a downcall into a {@link SQLException}.
+     * <p/>
+     * {@link MethodHandle#invokeExact} is declared to throw {@link Throwable}; exceptions raised by
+     * this class itself (e.g. via {@link #throwex(int)}) are passed through as is.
      *
-     * @param handle the {@link MethodHandle} to invoke
-     * @param args   the arguments to the <code>handle</code>
-     * @return the return value as int
+     * @param t the {@link Throwable} to convert
+     * @return the {@link SQLException} to throw
      */
-    private int invokeIntExact(MethodHandle handle, Object... args) throws SQLException {
-        try {
-            return (int) handle.invokeWithArguments(args);
-        } catch (Throwable t) {
-            throw new SQLException(t);
-        }
+    private static SQLException sqlException(Throwable t) {
+        return t instanceof SQLException e ? e : new SQLException(t);
     }
 
     /**
-     * Convenience method to invoke a {@link MethodHandle} with the signature `int -> args ...` with
-     * result code check.
+     * Checks the result code of a native call.
      * <p/>
      * This implementation throws a {@link SQLException} if the result code of the method call
      * is not {@link Codes#SQLITE_OK}.
      *
-     * @param handle the {@link MethodHandle} to invoke
-     * @param args   the arguments to the <code>handle</code>
-     * @return the return value as int
+     * @param resultCode the result code returned by sqlite
+     * @return the result code
      */
-    private int invokeIntExactChecked(MethodHandle handle, Object... args) throws SQLException {
-        try {
-            var resultCode = (int) handle.invokeWithArguments(args);
-            if (resultCode != SQLITE_OK) {
-                throwex(resultCode);
-            }
-            return resultCode;
-        } catch (Throwable t) {
-            throw new SQLException("Failed to invoke method " + handle, t);
+    private int checked(int resultCode) throws SQLException {
+        if (resultCode != SQLITE_OK) {
+            throwex(resultCode);
         }
+        return resultCode;
     }
 
     /**
-     * Convenience method to invoke a {@link MethodHandle} with the signature `const char* -> args ...`.
+     * Reads a zero-terminated UTF-8 string returned by sqlite.
      *
-     * @param handle the {@link MethodHandle} to invoke
-     * @param args   the arguments to the <code>handle</code>
-     * @return the return value as String
+     * @param cString the <code>const char*</code> returned by sqlite
+     * @return the string, or <code>null</code> if sqlite returned a NULL pointer
      */
-    private String invokeStringExact(MethodHandle handle, Object... args) throws SQLException {
-        try {
-            var result = (MemorySegment) handle.invokeWithArguments(args);
-            return result
-                    .reinterpret(Integer.MAX_VALUE)
-                    .getString(0);
-        } catch (Throwable t) {
-            throw new SQLException(t);
+    private static String string(MemorySegment cString) {
+        if (cString.equals(MemorySegment.NULL)) {
+            return null;
         }
+        return cString
+                .reinterpret(Integer.MAX_VALUE)
+                .getString(0);
     }
 
-    private void invokeVoidExact(MethodHandle handle, Object... args) throws SQLException {
+    @Override
+    public void interrupt() throws SQLException {
         try {
-            handle.invokeWithArguments(args);
+            ForeignSqlite3.interrupt.invokeExact(sqlite3Handle());
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
-    @Override
-    public void interrupt() throws SQLException {
-        invokeVoidExact(ForeignSqlite3.interrupt, sqlite3Handle());
-    }
-
     @Override
     public void busy_timeout(int ms) throws SQLException {
-        invokeIntExactChecked(ForeignSqlite3.busyTimeout, sqlite3Handle(), ms);
+        try {
+            checked((int) ForeignSqlite3.busyTimeout.invokeExact(sqlite3Handle(), ms));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
@@ -139,16 +161,13 @@ public class ForeignDB extends DB {
             var callbackHandle = nativeLinker()
                     .upcallStub(callback, callbackDescriptor, Arena.global());
 
-            var resultCode = (int) ForeignSqlite3.busyHandler.invokeExact(
+            checked((int) ForeignSqlite3.busyHandler.invokeExact(
                     sqlite3Handle(),
                     callbackHandle,
                     MemorySegment.NULL
-            );
-            if (resultCode != SQLITE_OK) {
-                throwex(resultCode);
-            }
-        } catch (Throwable e) {
-            throw new SQLException(e);
+            ));
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
@@ -161,32 +180,83 @@ public class ForeignDB extends DB {
 
     @Override
     String errmsg() throws SQLException {
-        return invokeStringExact(ForeignSqlite3.errmsg, sqlite3Handle());
+        try {
+            return string((MemorySegment) ForeignSqlite3.errmsg.invokeExact(sqlite3Handle()));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public String libversion() throws SQLException {
-        return invokeStringExact(ForeignSqlite3.libversion);
+        try {
+            return string((MemorySegment) ForeignSqlite3.libversion.invokeExact());
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public long changes() throws SQLException {
-        return invokeIntExact(ForeignSqlite3.changes, sqlite3Handle());
+        try {
+            return (int) ForeignSqlite3.changes.invokeExact(sqlite3Handle());
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    long last_insert_rowid() throws SQLException {
+        try {
+            return (long) ForeignSqlite3.lastInsertRowid.invokeExact(sqlite3Handle());
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public long total_changes() throws SQLException {
-        return invokeIntExact(ForeignSqlite3.totalChanges, sqlite3Handle());
+        try {
+            return (int) ForeignSqlite3.totalChanges.invokeExact(sqlite3Handle());
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    boolean get_autocommit() throws SQLException {
+        try {
+            return (int) ForeignSqlite3.getAutocommit.invokeExact(sqlite3Handle()) != 0;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int txn_state() throws SQLException {
+        try {
+            return (int) ForeignSqlite3.txnState.invokeExact(sqlite3Handle(), MemorySegment.NULL);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int shared_cache(boolean enable) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.enableSharedCache, enable ? 1 : 0);
+        try {
+            return checked((int) ForeignSqlite3.enableSharedCache.invokeExact(enable ? 1 : 0));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int enable_load_extension(boolean enable) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.enableLoadExtension, sqlite3Handle(), enable ? 1 : 0);
+        try {
+            return checked((int) ForeignSqlite3.enableLoadExtension.invokeExact(sqlite3Handle(), enable ? 1 : 0));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
@@ -205,15 +275,13 @@ public class ForeignDB extends DB {
                     openFlags,
                     MemorySegment.NULL
             );
-            if (resultCode != SQLITE_OK) {
-                throwex(resultCode);
-            }
 
             // store the pointer value to the sqlite3 db struct
             this.sqlite3Handle = nativeDbHandle.get(ValueLayout.JAVA_LONG, 0);
 
+            checked(resultCode);
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
@@ -226,13 +294,17 @@ public class ForeignDB extends DB {
         clear_update_listener(env, nativeDB);
          */
 
-        invokeIntExactChecked(ForeignSqlite3.closeV2, sqlite3Handle());
+        try {
+            checked((int) ForeignSqlite3.closeV2.invokeExact(sqlite3Handle()));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int _exec(String sql) throws SQLException {
-        // Use try-with-resources to manage the lifetime of off-heap memory
-        try (var arena = Arena.ofConfined()) {
+        // Use try-with-resources to release the scratch memory
+        try (var arena = scratch.acquire()) {
             var nativeSql = arena.allocateFrom(sql);
             return (int) ForeignSqlite3.exec.invokeExact(
                     sqlite3Handle(),
@@ -242,266 +314,870 @@ public class ForeignDB extends DB {
                     MemorySegment.NULL
             );
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
     @Override
     protected SafeStmtPtr prepare(String sql) throws SQLException {
-        // Use try-with-resources to manage the lifetime of off-heap memory
-        try (var arena = Arena.ofConfined()) {
+        return prepare(sql, 0);
+    }
+
+    @Override
+    protected SafeStmtPtr prepare(String sql, int prepFlags) throws SQLException {
+        // Use try-with-resources to release the scratch memory
+        try (var arena = scratch.acquire()) {
             var nativeSql = arena.allocateFrom(sql);
             var nativeStatementHandle = arena.allocate(ValueLayout.ADDRESS);
-            invokeIntExactChecked(ForeignSqlite3.prepareV2,
+            checked((int) ForeignSqlite3.prepareV3.invokeExact(
                     sqlite3Handle(),
                     nativeSql,
                     (int) nativeSql.byteSize(),
+                    prepFlags,
                     nativeStatementHandle,
                     MemorySegment.NULL
-            );
+            ));
             return new SafeStmtPtr(this, nativeStatementHandle.get(ValueLayout.JAVA_LONG, 0));
-        } catch (Throwable e) {
-            throw new SQLException(e);
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
     @Override
     public int step(long stmt) throws SQLException {
+        endRow(stmt);
         try {
-            var resultCode = invokeIntExact(ForeignSqlite3.step, ptr(stmt));
+            var resultCode = (int) ForeignSqlite3.step.invokeExact(ptr(stmt));
             if (!(resultCode == SQLITE_ROW || resultCode == SQLITE_DONE)) {
                 throwex(resultCode);
             }
             return resultCode;
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
     @Override
     int bind_parameter_count(long stmt) throws SQLException {
-        return invokeIntExact(ForeignSqlite3.bindParameterCount, ptr(stmt));
+        try {
+            return (int) ForeignSqlite3.bindParameterCount.invokeExact(ptr(stmt));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    boolean stmt_readonly(long stmt) throws SQLException {
+        try {
+            return (int) ForeignSqlite3.stmtReadonly.invokeExact(ptr(stmt)) != 0;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int clear_bindings(long stmt) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.clearBindings, ptr(stmt));
+        try {
+            return checked((int) ForeignSqlite3.clearBindings.invokeExact(ptr(stmt)));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int reset(long stmt) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.reset, ptr(stmt));
+        // like the JNI backend, the result code is returned as is: sqlite3_reset() repeats the
+        // error of the last sqlite3_step(), which has already been reported by step().
+        endRow(stmt);
+        try {
+            return (int) ForeignSqlite3.reset.invokeExact(ptr(stmt));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     protected int finalize(long stmt) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.finalize, ptr(stmt));
+        // see reset(long)
+        endRow(stmt);
+        sharedRows.remove(stmt);
+        try {
+            return (int) ForeignSqlite3.finalize.invokeExact(ptr(stmt));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int column_count(long stmt) throws SQLException {
-        return invokeIntExact(ForeignSqlite3.columnCount, ptr(stmt));
+        try {
+            return (int) ForeignSqlite3.columnCount.invokeExact(ptr(stmt));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int column_type(long stmt, int col) throws SQLException {
-        return invokeIntExact(ForeignSqlite3.columnType, ptr(stmt), col);
+        try {
+            return (int) ForeignSqlite3.columnType.invokeExact(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public String column_decltype(long stmt, int col) throws SQLException {
-        return invokeStringExact(ForeignSqlite3.columnDecltype, ptr(stmt), col);
+        try {
+            return string((MemorySegment) ForeignSqlite3.columnDecltype.invokeExact(ptr(stmt), col));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public String column_table_name(long stmt, int col) throws SQLException {
-        return invokeStringExact(ForeignSqlite3.columnTableName, ptr(stmt), col);
+        try {
+            return string((MemorySegment) ForeignSqlite3.columnTableName.invokeExact(ptr(stmt), col));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public String column_name(long stmt, int col) throws SQLException {
-        return invokeStringExact(ForeignSqlite3.columnName, ptr(stmt), col);
+        try {
+            return string((MemorySegment) ForeignSqlite3.columnName.invokeExact(ptr(stmt), col));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public String column_text(long stmt, int col) throws SQLException {
         try {
-            /*
-            The safest policy is to invoke these routines in one of the following ways:
-              - sqlite3_column_text() followed by sqlite3_column_bytes()
-              - sqlite3_column_blob() followed by sqlite3_column_bytes()
-             */
-            var result = (MemorySegment) invokeExact(ForeignSqlite3.columnText, ptr(stmt), col);
+            return text(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
 
+    @Override
+    public boolean column_text(long stmt, int col, StringBuilder dest) throws SQLException {
+        try {
+            return text(ptr(stmt), col, dest);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    public String column_text(long stmt, int col, StringDictionary dictionary) throws SQLException {
+        try {
+            var statement = ptr(stmt);
+            var result = (MemorySegment) ForeignSqlite3.columnText.invokeExact(statement, col);
             if (result.equals(MemorySegment.NULL)) {
                 return null;
-            } else {
-                return result
-                        .reinterpret(getBytes(stmt, col) + 1) // include the \0
-                        .getString(0);
             }
-
+            // compare the bytes in the scratch buffer of the dictionary, a known value is not decoded
+            var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+            var bytes = dictionary.scratch(length);
+            MemorySegment.copy(result.reinterpret(length), ValueLayout.JAVA_BYTE, 0, bytes, 0, length);
+            return dictionary.get(bytes, 0, length);
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
     @Override
     public byte[] column_blob(long stmt, int col) throws SQLException {
         try {
-            /*
-            The safest policy is to invoke these routines in one of the following ways:
-              - sqlite3_column_text() followed by sqlite3_column_bytes()
-              - sqlite3_column_blob() followed by sqlite3_column_bytes()
-             */
-            var result = (MemorySegment) invokeExact(ForeignSqlite3.columnBlob, ptr(stmt), col);
+            return blob(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
 
-            if (result.equals(MemorySegment.NULL)) {
+    @Override
+    boolean isEmptyTextBlobNull() {
+        return true;
+    }
+
+    @Override
+    public ByteBuffer column_blob_buffer(long stmt, int col) throws SQLException {
+        try {
+            var result = blobSegment(ptr(stmt), col);
+            if (result == null) {
                 return null;
+            }
+            if (result != EMPTY_BLOB) {
+                var rowArena = rowArenas.get(stmt);
+                if (rowArena == null) {
+                    rowArena = sharedRows.contains(stmt)
+                            ? new RowArena(Arena.ofShared(), null)
+                            : new RowArena(Arena.ofConfined(), Thread.currentThread());
+                    rowArenas.put(stmt, rowArena);
+                } else if (rowArena.owner() != null && rowArena.owner() != Thread.currentThread()) {
+                    // the views of this row are confined to another thread: copy, and share the views of the next rows
+                    sharedRows.add(stmt);
+                    return ByteBuffer.wrap(result.toArray(ValueLayout.JAVA_BYTE)).asReadOnlyBuffer();
+                }
+                result = result.reinterpret(rowArena.arena(), null);
+            }
+            return result.asByteBuffer().asReadOnlyBuffer();
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    /**
+     * Ends the blob views of the current row of a statement, before it moves on. A confined arena can only be closed
+     * by its thread: if another thread moves the statement on, the views of that row stay open, and the statement
+     * takes shared arenas for its next rows.
+     */
+    private void endRow(long stmt) {
+        if (!rowArenas.isEmpty()) {
+            var rowArena = rowArenas.remove(stmt);
+            if (rowArena == null) {
+                return;
+            }
+            if (rowArena.owner() == null || rowArena.owner() == Thread.currentThread()) {
+                rowArena.arena().close();
             } else {
-                return result
-                        .reinterpret(getBytes(stmt, col))
-                        .asSlice(0)
-                        .toArray(ValueLayout.JAVA_BYTE);
+                sharedRows.add(stmt);
+            }
+        }
+    }
+
+    @Override
+    public int column_blob(long stmt, int col, ByteBuffer dest) throws SQLException {
+        try {
+            var result = blobSegment(ptr(stmt), col);
+            if (result == null) {
+                return -1;
+            }
+            var length = (int) result.byteSize();
+            var copied = Math.min(length, dest.remaining());
+            MemorySegment.ofBuffer(dest).copyFrom(result.asSlice(0, copied));
+            dest.position(dest.position() + copied);
+            return length;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    /**
+     * @return the native memory of a blob value, valid until the statement moves on, or null if the
+     *     value is NULL
+     */
+    private static MemorySegment blobSegment(MemorySegment statement, int col) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnBlob.invokeExact(statement, col);
+        if (result.equals(MemorySegment.NULL)) {
+            // sqlite3_column_blob() returns NULL for a zero-length value too
+            var type = (int) ForeignSqlite3.columnType.invokeExact(statement, col);
+            return type == SQLITE_NULL ? null : EMPTY_BLOB;
+        }
+        var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+        return result.reinterpret(length);
+    }
+
+    /*
+    The safest policy is to invoke these routines in one of the following ways:
+      - sqlite3_column_text() followed by sqlite3_column_bytes()
+      - sqlite3_column_blob() followed by sqlite3_column_bytes()
+     */
+
+    private static String text(MemorySegment statement, int col) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnText.invokeExact(statement, col);
+
+        if (result.equals(MemorySegment.NULL)) {
+            return null;
+        } else {
+            // the length is known, so copy the bytes once instead of scanning for the \0
+            var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+            var bytes = new byte[length];
+            MemorySegment.copy(result.reinterpret(length), ValueLayout.JAVA_BYTE, 0, bytes, 0, length);
+            return Utf8.decode(bytes, 0, length);
+        }
+    }
+
+    /** Decodes ASCII text straight from native memory into the builder. */
+    private static boolean text(MemorySegment statement, int col, StringBuilder dest) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnText.invokeExact(statement, col);
+        if (result.equals(MemorySegment.NULL)) {
+            return false;
+        }
+        var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+        var text = result.reinterpret(length);
+        dest.ensureCapacity(dest.length() + length);
+        for (int i = 0; i < length; i++) {
+            var b = text.get(ValueLayout.JAVA_BYTE, i);
+            if (b < 0) {
+                var rest = text.asSlice(i).toArray(ValueLayout.JAVA_BYTE);
+                Utf8.decode(rest, 0, rest.length, dest);
+                break;
             }
+            dest.append((char) b);
+        }
+        return true;
+    }
+
+    private static byte[] blob(MemorySegment statement, int col) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnBlob.invokeExact(statement, col);
+
+        if (result.equals(MemorySegment.NULL)) {
+            return null;
+        } else {
+            var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+            return result
+                    .reinterpret(length)
+                    .toArray(ValueLayout.JAVA_BYTE);
+        }
+    }
 
+    @Override
+    protected void fetchRow(long stmt, RowBuffer rows, int cell) throws SQLException {
+        // decode the whole row in one loop, without a SQLException wrapper per value
+        var statement = ptr(stmt);
+        var columns = rows.columnCount();
+        try {
+            for (int col = 0; col < columns; col++, cell++) {
+                switch ((int) ForeignSqlite3.columnType.invokeExact(statement, col)) {
+                    case SQLITE_INTEGER ->
+                            rows.setLong(cell, (long) ForeignSqlite3.columnInt64.invokeExact(statement, col));
+                    case SQLITE_FLOAT ->
+                            rows.setDouble(cell, (double) ForeignSqlite3.columnDouble.invokeExact(statement, col));
+                    case SQLITE_TEXT -> fetchText(statement, col, rows, cell);
+                    case SQLITE_BLOB -> fetchBlob(statement, col, rows, cell);
+                    default -> rows.setNull(cell);
+                }
+            }
         } catch (Throwable t) {
-            throw new SQLException(t);
+            throw sqlException(t);
         }
     }
 
-    private int getBytes(long stmt, int col) throws SQLException {
-        return invokeIntExact(ForeignSqlite3.columnBytes, ptr(stmt), col);
+    /** Copies the UTF-8 bytes of a text value straight into the arena of the buffer. */
+    private static void fetchText(MemorySegment statement, int col, RowBuffer rows, int cell) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnText.invokeExact(statement, col);
+        if (result.equals(MemorySegment.NULL)) {
+            rows.setNull(cell);
+        } else {
+            var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+            var offset = rows.reserve(cell, SQLITE_TEXT, length);
+            MemorySegment.copy(result.reinterpret(length), ValueLayout.JAVA_BYTE, 0, rows.arena(), offset, length);
+        }
+    }
+
+    /** Copies the bytes of a blob value straight into the arena of the buffer. */
+    private static void fetchBlob(MemorySegment statement, int col, RowBuffer rows, int cell) throws Throwable {
+        var result = (MemorySegment) ForeignSqlite3.columnBlob.invokeExact(statement, col);
+        if (result.equals(MemorySegment.NULL)) {
+            rows.setBlob(cell, null);
+        } else {
+            var length = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+            var offset = rows.reserve(cell, SQLITE_BLOB, length);
+            MemorySegment.copy(result.reinterpret(length), ValueLayout.JAVA_BYTE, 0, rows.arena(), offset, length);
+        }
+    }
+
+    /**
+     * Steps the statement to its next row, ending the blob views of the current one like {@link #step(long)}.
+     *
+     * @return false if the statement is done
+     */
+    private boolean stepRow(long stmt, MemorySegment statement) throws Throwable {
+        endRow(stmt);
+        var resultCode = (int) ForeignSqlite3.step.invokeExact(statement);
+        if (resultCode == SQLITE_ROW) {
+            return true;
+        } else if (resultCode != SQLITE_DONE) {
+            throwex(resultCode);
+        }
+        return false;
+    }
+
+    @Override
+    public int readLongColumn(long stmt, int col, boolean step, long[] values, long[] nulls, int offset, int length) throws SQLException {
+        getLock().lock();
+        try {
+            var statement = ptr(stmt);
+            var n = 0;
+            while (n < length && (!(step || n > 0) || stepRow(stmt, statement))) {
+                var isNull = (int) ForeignSqlite3.columnType.invokeExact(statement, col) == SQLITE_NULL;
+                values[offset + n] = isNull ? 0 : (long) ForeignSqlite3.columnInt64.invokeExact(statement, col);
+                setNull(nulls, offset + n, isNull);
+                n++;
+            }
+            return n;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    @Override
+    public int readDoubleColumn(long stmt, int col, boolean step, double[] values, long[] nulls, int offset, int length) throws SQLException {
+        getLock().lock();
+        try {
+            var statement = ptr(stmt);
+            var n = 0;
+            while (n < length && (!(step || n > 0) || stepRow(stmt, statement))) {
+                var isNull = (int) ForeignSqlite3.columnType.invokeExact(statement, col) == SQLITE_NULL;
+                values[offset + n] = isNull ? 0 : (double) ForeignSqlite3.columnDouble.invokeExact(statement, col);
+                setNull(nulls, offset + n, isNull);
+                n++;
+            }
+            return n;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    @Override
+    public int readTextColumn(long stmt, int col, boolean step, ByteBuffer data, int[] offsets, long[] nulls, int offset, int length) throws SQLException {
+        getLock().lock();
+        try {
+            var statement = ptr(stmt);
+            var n = 0;
+            offsets[offset] = data.position();
+            while (n < length && (!(step || n > 0) || stepRow(stmt, statement))) {
+                var isNull = (int) ForeignSqlite3.columnType.invokeExact(statement, col) == SQLITE_NULL;
+                if (!isNull) {
+                    // copy the UTF-8 bytes straight from sqlite's buffer, without decoding them
+                    var text = (MemorySegment) ForeignSqlite3.columnText.invokeExact(statement, col);
+                    var bytes = (int) ForeignSqlite3.columnBytes.invokeExact(statement, col);
+                    if (bytes > data.remaining()) {
+                        return ~n;
+                    }
+                    data.put(text.reinterpret(bytes).asByteBuffer());
+                }
+                setNull(nulls, offset + n, isNull);
+                offsets[offset + n + 1] = data.position();
+                n++;
+            }
+            return n;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        } finally {
+            getLock().unlock();
+        }
     }
 
     @Override
     public double column_double(long stmt, int col) throws SQLException {
-        return (double) invokeExact(ForeignSqlite3.columnDouble, ptr(stmt), col);
+        try {
+            return (double) ForeignSqlite3.columnDouble.invokeExact(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public long column_long(long stmt, int col) throws SQLException {
-        return (long) invokeExact(ForeignSqlite3.columnInt64, ptr(stmt), col);
+        try {
+            return (long) ForeignSqlite3.columnInt64.invokeExact(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public int column_int(long stmt, int col) throws SQLException {
-        return (int) invokeExact(ForeignSqlite3.columnInt, ptr(stmt), col);
+        try {
+            return (int) ForeignSqlite3.columnInt.invokeExact(ptr(stmt), col);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     int bind_null(long stmt, int pos) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.bindNull, ptr(stmt), pos);
+        try {
+            return checked((int) ForeignSqlite3.bindNull.invokeExact(ptr(stmt), pos));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     int bind_int(long stmt, int pos, int v) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.bindInt, ptr(stmt), pos, v);
+        try {
+            return checked((int) ForeignSqlite3.bindInt.invokeExact(ptr(stmt), pos, v));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     int bind_long(long stmt, int pos, long v) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.bindLong, ptr(stmt), pos, v);
+        try {
+            return checked((int) ForeignSqlite3.bindLong.invokeExact(ptr(stmt), pos, v));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     int bind_double(long stmt, int pos, double v) throws SQLException {
-        return invokeIntExactChecked(ForeignSqlite3.bindDouble, ptr(stmt), pos, v);
+        try {
+            return checked((int) ForeignSqlite3.bindDouble.invokeExact(ptr(stmt), pos, v));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     int bind_text(long stmt, int pos, String v) throws SQLException {
-        // Use try-with-resources to manage the lifetime of off-heap memory
-        try (var arena = Arena.ofConfined()) {
+        if (ForeignSqlite3.HEAP_ACCESS && v != null) {
+            // sqlite copies the text (SQLITE_TRANSIENT), so it can be read straight from the heap
+            var bytes = v.getBytes(UTF_8);
+            try {
+                return checked((int) ForeignSqlite3.bindText.invokeExact(
+                        ptr(stmt),
+                        pos,
+                        MemorySegment.ofArray(bytes),
+                        bytes.length,
+                        SQLITE_TRANSIENT
+                ));
+            } catch (Throwable t) {
+                throw sqlException(t);
+            }
+        }
+
+        // Use try-with-resources to release the scratch memory
+        try (var arena = scratch.acquire()) {
             var nativeText = v != null ? arena.allocateFrom(v) : MemorySegment.NULL;
-            var nativeTextSize = (int) nativeText.byteSize(); // TODO validate size
+            var nativeTextSize = (int) Math.max(nativeText.byteSize() - 1, 0); // exclude the \0
 
-            return invokeIntExactChecked(ForeignSqlite3.bindText,
+            return checked((int) ForeignSqlite3.bindText.invokeExact(
                     ptr(stmt),
                     pos,
                     nativeText,
                     nativeTextSize,
                     SQLITE_TRANSIENT
-            );
+            ));
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
     @Override
     int bind_blob(long stmt, int pos, byte[] v) throws SQLException {
-        // Use try-with-resources to manage the lifetime of off-heap memory
-        try (var arena = Arena.ofConfined()) {
+        if (ForeignSqlite3.HEAP_ACCESS) {
+            // sqlite copies the blob (SQLITE_TRANSIENT), so it can be read straight from the heap
+            try {
+                return checked((int) ForeignSqlite3.bindBlob.invokeExact(
+                        ptr(stmt),
+                        pos,
+                        MemorySegment.ofArray(v),
+                        v.length,
+                        SQLITE_TRANSIENT
+                ));
+            } catch (Throwable t) {
+                throw sqlException(t);
+            }
+        }
+
+        // Use try-with-resources to release the scratch memory
+        try (var arena = scratch.acquire()) {
             var nativeByteArray = arena.allocate(v.length);
             nativeByteArray.asByteBuffer().put(v);
 
             // int sqlite3_bind_blob(sqlite3_stmt*, int, const void*, int n, void(*)(void*));
-            return invokeIntExactChecked(ForeignSqlite3.bindBlob,
+            return checked((int) ForeignSqlite3.bindBlob.invokeExact(
                     ptr(stmt),
                     pos,
                     nativeByteArray,
                     (int) nativeByteArray.byteSize(),
                     SQLITE_TRANSIENT
-            );
+            ));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int bind_zeroblob(long stmt, int pos, long length) throws SQLException {
+        try {
+            return checked((int) ForeignSqlite3.bindZeroblob64.invokeExact(ptr(stmt), pos, length));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    /**
+     * Reads the stream in chunks straight into memory from <code>sqlite3_realloc64</code>, sized from
+     * the declared length and grown if the value turns out longer, and hands that memory over to
+     * sqlite with <code>sqlite3_free</code> as destructor: the value is neither held in a Java array
+     * nor copied by sqlite. A value longer than the SQLITE_LIMIT_LENGTH of the connection fails with
+     * SQLITE_TOOBIG as soon as the limit is passed, without reading the rest of the stream.
+     */
+    @Override
+    int bind_stream(long stmt, int pos, ParameterStream stream) throws SQLException {
+        var maxLength = limit(SQLiteLimits.SQLITE_LIMIT_LENGTH.getId(), -1);
+        // room for a chunk past the limit, to tell a value that is too long
+        var maxCapacity = Math.min((long) maxLength + 16, Integer.MAX_VALUE);
+        var capacity = Math.min(Math.max(stream.sizeHint(), 16), maxCapacity);
+        var buffer = MemorySegment.NULL;
+        try {
+            buffer = allocate(MemorySegment.NULL, capacity);
+            var size = 0;
+            while (true) {
+                if (capacity - size < 16) {
+                    if (capacity == maxCapacity) {
+                        throw ParameterStream.tooBig(maxLength);
+                    }
+                    capacity = Math.min(capacity * 2, maxCapacity);
+                    buffer = allocate(buffer, capacity);
+                }
+                var n = stream.read(buffer.reinterpret(capacity).asSlice(size).asByteBuffer());
+                if (n < 0) {
+                    break;
+                }
+                size += n;
+                if (size > maxLength) {
+                    throw ParameterStream.tooBig(maxLength);
+                }
+            }
+            // sqlite frees the buffer once it is done with it, even if binding fails
+            var value = buffer;
+            buffer = MemorySegment.NULL;
+            return checked(stream.isText()
+                    ? (int) ForeignSqlite3.bindText.invokeExact(ptr(stmt), pos, value, size, ForeignSqlite3.SQLITE_FREE)
+                    : (int) ForeignSqlite3.bindBlob.invokeExact(ptr(stmt), pos, value, size, ForeignSqlite3.SQLITE_FREE));
+        } catch (Throwable t) {
+            if (!buffer.equals(MemorySegment.NULL)) {
+                try {
+                    ForeignSqlite3.free.invokeExact(buffer);
+                } catch (Throwable suppressed) {
+                    t.addSuppressed(suppressed);
+                }
+            }
+            throw sqlException(t);
         }
     }
 
+    /**
+     * (Re)allocates memory with <code>sqlite3_realloc64</code>, which allocates if the old memory is
+     * NULL.
+     */
+    private static MemorySegment allocate(MemorySegment old, long size) throws Throwable {
+        var buffer = (MemorySegment) ForeignSqlite3.realloc64.invokeExact(old, size);
+        if (buffer.equals(MemorySegment.NULL)) {
+            throw newSQLException(SQLiteErrorCode.SQLITE_NOMEM.code, "cannot allocate " + size + " bytes");
+        }
+        return buffer;
+    }
+
+    /**
+     * Runs the batch with direct downcalls under a single lock.
+     * <p/>
+     * The text and blob parameters of a chunk of rows are marshalled into one off-heap buffer taken
+     * from the scratch memory, and bound with <code>SQLITE_STATIC</code>, so sqlite neither copies
+     * nor frees them. The buffer of a chunk stays valid until its last row has been stepped; the
+     * bindings are cleared once the batch is done.
+     */
+    @Override
+    protected void executeBatchRows(long stmt, ParameterBuffer vals, long[] changes) throws SQLException {
+        var statement = ptr(stmt);
+        try {
+            var params = (int) ForeignSqlite3.bindParameterCount.invokeExact(statement);
+            var encoded = new byte[params][];
+            var row = 0;
+            while (row < changes.length) {
+                // encode the text and blob values of the rows that fit in the scratch memory
+                var first = row * params;
+                var end = row;
+                var size = 0L;
+                do {
+                    for (int j = 0; j < params; j++) {
+                        var index = end * params + j;
+                        if (index - first >= encoded.length) {
+                            encoded = Arrays.copyOf(encoded, encoded.length * 2);
+                        }
+                        var bytes = switch (vals.getType(index)) {
+                            case ParameterBuffer.TEXT -> ((String) vals.getValue(index)).getBytes(UTF_8);
+                            case ParameterBuffer.BLOB -> (byte[]) vals.getValue(index);
+                            default -> null;
+                        };
+                        encoded[index - first] = bytes;
+                        size += bytes != null ? bytes.length : 0;
+                    }
+                    end++;
+                } while (end < changes.length && end - row < BATCH_CHUNK_ROWS && size < ForeignScratchArena.DEFAULT_SIZE);
+
+                try (var arena = scratch.acquire()) {
+                    var buffer = arena.allocate(Math.max(size, 1));
+                    var offset = 0L;
+                    for (; row < end; row++) {
+                        reset(stmt);
+                        for (int j = 0; j < params; j++) {
+                            var index = row * params + j;
+                            var bytes = encoded[index - first];
+                            if (bytes != null) {
+                                MemorySegment.copy(bytes, 0, buffer, ValueLayout.JAVA_BYTE, offset, bytes.length);
+                            }
+                            checked(switch (vals.getType(index)) {
+                                case ParameterBuffer.NULL -> (int) ForeignSqlite3.bindNull.invokeExact(statement, j + 1);
+                                case ParameterBuffer.INT ->
+                                        (int) ForeignSqlite3.bindInt.invokeExact(statement, j + 1, (int) vals.getLong(index));
+                                case ParameterBuffer.LONG ->
+                                        (int) ForeignSqlite3.bindLong.invokeExact(statement, j + 1, vals.getLong(index));
+                                case ParameterBuffer.FLOAT, ParameterBuffer.DOUBLE ->
+                                        (int) ForeignSqlite3.bindDouble.invokeExact(statement, j + 1, vals.getDouble(index));
+                                case ParameterBuffer.TEXT ->
+                                        (int) ForeignSqlite3.bindText.invokeExact(statement, j + 1, buffer.asSlice(offset), bytes.length, SQLITE_STATIC);
+                                case ParameterBuffer.BLOB ->
+                                        (int) ForeignSqlite3.bindBlob.invokeExact(statement, j + 1, buffer.asSlice(offset), bytes.length, SQLITE_STATIC);
+                                case ParameterBuffer.ZEROBLOB ->
+                                        (int) ForeignSqlite3.bindZeroblob64.invokeExact(statement, j + 1, vals.getLong(index));
+                                case ParameterBuffer.STREAM -> bind_stream(stmt, j + 1, (ParameterStream) vals.getValue(index));
+                                default -> throw new SQLException("unexpected param type: " + vals.getValue(index).getClass());
+                            });
+                            offset += bytes != null ? bytes.length : 0;
+                        }
+
+                        endRow(stmt);
+                        var resultCode = (int) ForeignSqlite3.step.invokeExact(statement);
+                        if (resultCode != SQLITE_DONE) {
+                            reset(stmt);
+                            if (resultCode == SQLITE_ROW) {
+                                throw new BatchUpdateException(
+                                        "batch entry " + row + ": query returns results", null, 0, changes, null);
+                            }
+                            throwex(resultCode);
+                        }
+
+                        changes[row] = (int) ForeignSqlite3.changes.invokeExact(sqlite3Handle());
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            var failure = sqlException(t);
+            try {
+                clear_bindings(stmt);
+            } catch (SQLException suppressed) {
+                failure.addSuppressed(suppressed);
+            }
+            throw failure;
+        }
+        // do not leave the statement pointing to the released scratch memory
+        clear_bindings(stmt);
+    }
+
     @Override
     public void result_null(long context) throws SQLException {
-        invokeVoidExact(ForeignSqlite3.resultNull, ptr(context));
+        try {
+            ForeignSqlite3.resultNull.invokeExact(ptr(context));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public void result_text(long context, String val) throws SQLException {
-        try (var arena = Arena.ofConfined()) {
+        if (ForeignSqlite3.HEAP_ACCESS && val != null) {
+            var bytes = val.getBytes(UTF_8);
+            try {
+                ForeignSqlite3.resultText.invokeExact(
+                        ptr(context),
+                        MemorySegment.ofArray(bytes),
+                        bytes.length,
+                        SQLITE_TRANSIENT
+                );
+                return;
+            } catch (Throwable t) {
+                throw sqlException(t);
+            }
+        }
+
+        try (var arena = scratch.acquire()) {
             var nativeText = val != null ? arena.allocateFrom(val) : MemorySegment.NULL;
-            var nativeTextSize = (int) nativeText.byteSize(); // TODO check size against limit
+            var nativeTextSize = (int) Math.max(nativeText.byteSize() - 1, 0); // exclude the \0, TODO check size against limit
 
-            invokeVoidExact(ForeignSqlite3.resultText,
+            ForeignSqlite3.resultText.invokeExact(
                     ptr(context),
                     nativeText,
                     nativeTextSize,
                     SQLITE_TRANSIENT
             );
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
     @Override
     public void result_blob(long context, byte[] val) throws SQLException {
-        try (var arena = Arena.ofConfined()) {
+        if (ForeignSqlite3.HEAP_ACCESS) {
+            try {
+                ForeignSqlite3.resultBlob.invokeExact(
+                        ptr(context),
+                        MemorySegment.ofArray(val),
+                        val.length,
+                        SQLITE_TRANSIENT
+                );
+                return;
+            } catch (Throwable t) {
+                throw sqlException(t);
+            }
+        }
+
+        try (var arena = scratch.acquire()) {
             var nativeByteArray = arena.allocate(val.length);
             nativeByteArray.asByteBuffer().put(val);
 
-            invokeVoidExact(ForeignSqlite3.resultBlob,
+            ForeignSqlite3.resultBlob.invokeExact(
                     ptr(context),
                     nativeByteArray,
                     (int) nativeByteArray.byteSize(),
                     SQLITE_TRANSIENT
             );
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
     @Override
     public void result_double(long context, double val) throws SQLException {
-        invokeVoidExact(ForeignSqlite3.resultDouble, ptr(context), val);
+        try {
+            ForeignSqlite3.resultDouble.invokeExact(ptr(context), val);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public void result_long(long context, long val) throws SQLException {
-        invokeVoidExact(ForeignSqlite3.resultInt64, ptr(context), val);
+        try {
+            ForeignSqlite3.resultInt64.invokeExact(ptr(context), val);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public void result_int(long context, int val) throws SQLException {
-        invokeVoidExact(ForeignSqlite3.resultInt, ptr(context), val);
+        try {
+            ForeignSqlite3.resultInt.invokeExact(ptr(context), val);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
     public void result_error(long context, String err) throws SQLException {
-        try (var arena = Arena.ofConfined()) {
+        try (var arena = scratch.acquire()) {
             var nativeText = err != null ? arena.allocateFrom(err) : MemorySegment.NULL;
             var nativeTextSize = (int) nativeText.byteSize();
 
             // void sqlite3_result_error(sqlite3_context*, const char*, int);
-            invokeVoidExact(ForeignSqlite3.resultError, ptr(context), nativeText, nativeTextSize);
+            ForeignSqlite3.resultError.invokeExact(ptr(context), nativeText, nativeTextSize);
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
@@ -558,7 +1234,7 @@ public class ForeignDB extends DB {
             var xFuncHandle = nativeLinker()
                     .upcallStub(xFuncBinding, xFuncDescriptor, Arena.global());
 
-            return invokeIntExactChecked(ForeignSqlite3.createFunctionV2,
+            return checked((int) ForeignSqlite3.createFunctionV2.invokeExact(
                     sqlite3Handle(),        // sqlite3 *db
                     nativeName,             // const char *zFunctionName
                     nArgs,                  // int nArg
@@ -568,10 +1244,10 @@ public class ForeignDB extends DB {
                     MemorySegment.NULL,     // (*xStep)(sqlite3_context*,int,sqlite3_value**)
                     MemorySegment.NULL,     // void (*xFinal)(sqlite3_context*)
                     MemorySegment.NULL      // void(*xDestroy)(void*)
-            );
+            ));
 
-        } catch (NoSuchMethodException | IllegalAccessException e) {
-            throw new SQLException(e);
+        } catch (Throwable t) {
+            throw sqlException(t);
         }
     }
 
@@ -612,7 +1288,84 @@ public class ForeignDB extends DB {
 
     @Override
     public int limit(int id, int value) throws SQLException {
-        return invokeIntExact(ForeignSqlite3.limit, id, value);
+        try {
+            return (int) ForeignSqlite3.limit.invokeExact(sqlite3Handle(), id, value);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    long blob_open(String schema, String table, String column, long rowid, boolean write) throws SQLException {
+        // Use try-with-resources to release the scratch memory
+        try (var arena = scratch.acquire()) {
+            var nativeBlobHandle = arena.allocate(ValueLayout.ADDRESS);
+            checked((int) ForeignSqlite3.blobOpen.invokeExact(
+                    sqlite3Handle(),
+                    arena.allocateFrom(schema),
+                    arena.allocateFrom(table),
+                    arena.allocateFrom(column),
+                    rowid,
+                    write ? 1 : 0,
+                    nativeBlobHandle
+            ));
+            return nativeBlobHandle.get(ValueLayout.JAVA_LONG, 0);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int blob_bytes(long blob) throws SQLException {
+        try {
+            return (int) ForeignSqlite3.blobBytes.invokeExact(ptr(blob));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int blob_read(long blob, byte[] b, int off, int len, int offset) throws SQLException {
+        // sqlite may do I/O, so the bytes are read into native memory rather than into the heap array
+        try (var arena = scratch.acquire()) {
+            var buffer = arena.allocate(Math.max(len, 1));
+            var resultCode = (int) ForeignSqlite3.blobRead.invokeExact(ptr(blob), buffer, len, offset);
+            if (resultCode == SQLITE_OK) {
+                MemorySegment.copy(buffer, ValueLayout.JAVA_BYTE, 0, b, off, len);
+            }
+            return resultCode;
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int blob_write(long blob, byte[] b, int off, int len, int offset) throws SQLException {
+        try (var arena = scratch.acquire()) {
+            var buffer = arena.allocate(Math.max(len, 1));
+            MemorySegment.copy(b, off, buffer, ValueLayout.JAVA_BYTE, 0, len);
+            return (int) ForeignSqlite3.blobWrite.invokeExact(ptr(blob), buffer, len, offset);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int blob_reopen(long blob, long rowid) throws SQLException {
+        try {
+            return (int) ForeignSqlite3.blobReopen.invokeExact(ptr(blob), rowid);
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
+    }
+
+    @Override
+    int blob_close(long blob) throws SQLException {
+        try {
+            return (int) ForeignSqlite3.blobClose.invokeExact(ptr(blob));
+        } catch (Throwable t) {
+            throw sqlException(t);
+        }
     }
 
     @Override
@@ -0,0 +1,93 @@
+package org.sqlite.core;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bump-pointer scratch memory for marshalling the arguments of a single downcall.
+ * <p/>
+ * A {@link ForeignDB} owns one scratch segment that is reused for every call instead of opening a
+ * fresh {@link Arena} (a malloc/free pair per allocation). The segment is handed out through
+ * {@link #acquire()} and reset when the returned allocator is closed, so it is used like an arena:
+ * <pre>
+ *     try (var arena = scratch.acquire()) {
+ *         var nativeSql = arena.allocateFrom(sql);
+ *         ...
+ *     }
+ * </pre>
+ * Allocations that do not fit in the remaining scratch space, and calls that find the scratch
+ * segment already in use (e.g. by another thread or a nested upcall), fall back to a fresh
+ * confined {@link Arena}.
+ */
+class ForeignScratchArena {
+
+    /**
+     * Default size of the scratch segment, large enough for typical SQL text and parameters.
+     */
+    static final long DEFAULT_SIZE = 16 * 1024;
+
+    private final MemorySegment segment;
+    private final AtomicBoolean inUse = new AtomicBoolean();
+    private final Allocator shared = new Allocator(true);
+
+    ForeignScratchArena(long size) {
+        // the segment is shared by all threads using the connection and freed with it
+        this.segment = Arena.ofAuto().allocate(size, 16);
+    }
+
+    /**
+     * Acquires scratch memory for the duration of one call.
+     *
+     * @return an allocator that must be closed when the call has returned
+     */
+    Allocator acquire() {
+        if (inUse.compareAndSet(false, true)) {
+            return shared;
+        }
+        return new Allocator(false);
+    }
+
+    /**
+     * A {@link SegmentAllocator} that slices the scratch segment, spilling to a fresh arena when
+     * it runs out of space.
+     */
+    final class Allocator implements SegmentAllocator, AutoCloseable {
+
+        private final boolean useScratch;
+        private long offset = 0;
+        private Arena overflow;
+
+        private Allocator(boolean useScratch) {
+            this.useScratch = useScratch;
+        }
+
+        @Override
+        public MemorySegment allocate(long byteSize, long byteAlignment) {
+            if (useScratch) {
+                var start = (offset + byteAlignment - 1) & -byteAlignment;
+                if (start + byteSize <= segment.byteSize()) {
+                    offset = start + byteSize;
+                    return segment.asSlice(start, byteSize);
+                }
+            }
+            if (overflow == null) {
+                overflow = Arena.ofConfined();
+            }
+            return overflow.allocate(byteSize, byteAlignment);
+        }
+
+        @Override
+        public void close() {
+            if (overflow != null) {
+                overflow.close();
+                overflow = null;
+            }
+            if (useScratch) {
+                offset = 0;
+                inUse.set(false);
+            }
+        }
+    }
+}
@@ -23,7 +23,24 @@ public class ForeignSqlite3 {
     }
 
     // consts
+    static final MemorySegment SQLITE_STATIC = MemorySegment.NULL;
     static final MemorySegment SQLITE_TRANSIENT = MemorySegment.ofAddress(-1);
+    // destructor of values in memory from sqlite3_realloc64, which sqlite frees once it is done
+    static final MemorySegment SQLITE_FREE = resolveSymbol("sqlite3_free");
+
+    /**
+     * Links the {@link Downcall#CRITICAL} entry points with {@link Linker.Option#critical(boolean)},
+     * which skips the thread-state transition of a regular downcall.
+     * <p/>
+     * Enabled with the system property <code>org.sqlite.ffm.critical=true</code>.
+     */
+    static final boolean CRITICAL_DOWNCALLS = Boolean.getBoolean("org.sqlite.ffm.critical");
+
+    /**
+     * Whether heap segments (e.g. {@link MemorySegment#ofArray(byte[])}) may be passed to the
+     * {@link Downcall#CRITICAL_HEAP_ACCESS} entry points instead of copying them off-heap first.
+     */
+    static final boolean HEAP_ACCESS = CRITICAL_DOWNCALLS;
 
     // consts limits
     static final int SQLITE_LIMIT_LENGTH = 0;
@@ -46,6 +63,7 @@ public class ForeignSqlite3 {
     static final MethodHandle bindLong = _bindLong();
     static final MethodHandle bindNull = _bindNull();
     static final MethodHandle bindParameterCount = _bindParameterCount();
+    static final MethodHandle stmtReadonly = _stmtReadonly();
     static final MethodHandle bindText = _bindText();
     static final MethodHandle busyHandler = _busyHandler();
     static final MethodHandle busyTimeout = _busyTimeOut();
@@ -73,6 +91,7 @@ public class ForeignSqlite3 {
     static final MethodHandle libversion = _libversion();
     static final MethodHandle openV2 = _openV2();
     static final MethodHandle prepareV2 = _prepareV2();
+    static final MethodHandle prepareV3 = _prepareV3();
     static final MethodHandle reset = _reset();
     static final MethodHandle step = _step();
     static final MethodHandle totalChanges = _totalChanges();
@@ -84,17 +103,271 @@ public class ForeignSqlite3 {
     static final MethodHandle resultInt64 = _resultInt64();
     static final MethodHandle resultInt = _resultInt();
     static final MethodHandle resultError = _resultError();
+    static final MethodHandle bindZeroblob64 = _bindZeroblob64();
+    static final MethodHandle blobOpen = _blobOpen();
+    static final MethodHandle blobBytes = _blobBytes();
+    static final MethodHandle blobRead = _blobRead();
+    static final MethodHandle blobWrite = _blobWrite();
+    static final MethodHandle blobReopen = _blobReopen();
+    static final MethodHandle blobClose = _blobClose();
+    static final MethodHandle realloc64 = _realloc64();
+    static final MethodHandle free = _free();
+    static final MethodHandle getAutocommit = _getAutocommit();
+    static final MethodHandle txnState = _txnState();
+    static final MethodHandle lastInsertRowid = _lastInsertRowid();
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/last_insert_rowid.html">last insert rowid</a>
+     *
+     * <pre>
+     *      sqlite3_int64 sqlite3_last_insert_rowid(sqlite3*);
+     * </pre>
+     */
+    private static MethodHandle _lastInsertRowid() {
+        var addr = resolveSymbol("sqlite3_last_insert_rowid");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_LONG,  // return sqlite3_int64
+                ValueLayout.ADDRESS     // sqlite3*
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/get_autocommit.html">get autocommit</a>
+     *
+     * <pre>
+     *      int sqlite3_get_autocommit(sqlite3*);
+     * </pre>
+     */
+    private static MethodHandle _getAutocommit() {
+        var addr = resolveSymbol("sqlite3_get_autocommit");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS     // sqlite3*
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
 
+    /**
+     * <a href="https://www.sqlite.org/c3ref/txn_state.html">txn state</a>
+     *
+     * <pre>
+     *      int sqlite3_txn_state(sqlite3*, const char *zSchema);
+     * </pre>
+     */
+    private static MethodHandle _txnState() {
+        var addr = resolveSymbol("sqlite3_txn_state");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3*
+                ValueLayout.ADDRESS     // const char *zSchema - NULL for all schemas
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/free.html">realloc64</a>
+     *
+     * <pre>
+     *      void *sqlite3_realloc64(void*, sqlite3_uint64);
+     * </pre>
+     */
+    private static MethodHandle _realloc64() {
+        var addr = resolveSymbol("sqlite3_realloc64");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.ADDRESS,    // return void*
+                ValueLayout.ADDRESS,    // void*
+                ValueLayout.JAVA_LONG   // sqlite3_uint64
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/free.html">free</a>
+     *
+     * <pre>
+     *      void sqlite3_free(void*);
+     * </pre>
+     */
+    private static MethodHandle _free() {
+        var addr = resolveSymbol("sqlite3_free");
+        var descriptor = FunctionDescriptor.ofVoid(
+                ValueLayout.ADDRESS     // void*
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/bind_blob.html">bind zeroblob64</a>
+     *
+     * <pre>
+     *      int sqlite3_bind_zeroblob64(sqlite3_stmt*, int, sqlite3_uint64);
+     * </pre>
+     */
+    private static MethodHandle _bindZeroblob64() {
+        var addr = resolveSymbol("sqlite3_bind_zeroblob64");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3_stmt *
+                ValueLayout.JAVA_INT,   // int
+                ValueLayout.JAVA_LONG   // sqlite3_uint64
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_open.html">blob open</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_open(sqlite3*, const char *zDb, const char *zTable, const char *zColumn,
+     *                            sqlite3_int64 iRow, int flags, sqlite3_blob **ppBlob);
+     * </pre>
+     */
+    private static MethodHandle _blobOpen() {
+        var addr = resolveSymbol("sqlite3_blob_open");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3 *
+                ValueLayout.ADDRESS,    // const char *zDb
+                ValueLayout.ADDRESS,    // const char *zTable
+                ValueLayout.ADDRESS,    // const char *zColumn
+                ValueLayout.JAVA_LONG,  // sqlite3_int64 iRow
+                ValueLayout.JAVA_INT,   // int flags
+                ValueLayout.ADDRESS     // sqlite3_blob **ppBlob
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_bytes.html">blob bytes</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_bytes(sqlite3_blob *);
+     * </pre>
+     */
+    private static MethodHandle _blobBytes() {
+        var addr = resolveSymbol("sqlite3_blob_bytes");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS     // sqlite3_blob *
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_read.html">blob read</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_read(sqlite3_blob *, void *Z, int N, int iOffset);
+     * </pre>
+     */
+    private static MethodHandle _blobRead() {
+        var addr = resolveSymbol("sqlite3_blob_read");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3_blob *
+                ValueLayout.ADDRESS,    // void *Z
+                ValueLayout.JAVA_INT,   // int N
+                ValueLayout.JAVA_INT    // int iOffset
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_write.html">blob write</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_write(sqlite3_blob *, const void *z, int n, int iOffset);
+     * </pre>
+     */
+    private static MethodHandle _blobWrite() {
+        var addr = resolveSymbol("sqlite3_blob_write");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3_blob *
+                ValueLayout.ADDRESS,    // const void *z
+                ValueLayout.JAVA_INT,   // int n
+                ValueLayout.JAVA_INT    // int iOffset
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_reopen.html">blob reopen</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_reopen(sqlite3_blob *, sqlite3_int64);
+     * </pre>
+     */
+    private static MethodHandle _blobReopen() {
+        var addr = resolveSymbol("sqlite3_blob_reopen");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS,    // sqlite3_blob *
+                ValueLayout.JAVA_LONG   // sqlite3_int64
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/blob_close.html">blob close</a>
+     *
+     * <pre>
+     *      int sqlite3_blob_close(sqlite3_blob *);
+     * </pre>
+     */
+    private static MethodHandle _blobClose() {
+        var addr = resolveSymbol("sqlite3_blob_close");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return int
+                ValueLayout.ADDRESS     // sqlite3_blob *
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/result_blob.html">result int64</a>
+     * <pre>
+     *     void sqlite3_result_int64(sqlite3_context*, sqlite3_int64);
+     * </pre>
+     */
     private static MethodHandle _resultInt64() {
-        return null;
+        var addr = resolveSymbol("sqlite3_result_int64");
+        var descriptor = FunctionDescriptor.ofVoid(
+                ValueLayout.ADDRESS,   // sqlite3_context *
+                ValueLayout.JAVA_LONG  // sqlite3_int64
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
+    /**
+     * <a href="https://www.sqlite.org/c3ref/result_blob.html">result int</a>
+     * <pre>
+     *     void sqlite3_result_int(sqlite3_context*, int);
+     * </pre>
+     */
     private static MethodHandle _resultInt() {
-        return null;
+        var addr = resolveSymbol("sqlite3_result_int");
+        var descriptor = FunctionDescriptor.ofVoid(
+                ValueLayout.ADDRESS,   // sqlite3_context *
+                ValueLayout.JAVA_INT   // int
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
+    /**
+     * <a href="https://www.sqlite.org/c3ref/result_blob.html">result double</a>
+     * <pre>
+     *     void sqlite3_result_double(sqlite3_context*, double);
+     * </pre>
+     */
     private static MethodHandle _resultDouble() {
-        return null;
+        var addr = resolveSymbol("sqlite3_result_double");
+        var descriptor = FunctionDescriptor.ofVoid(
+                ValueLayout.ADDRESS,    // sqlite3_context *
+                ValueLayout.JAVA_DOUBLE // double
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -110,7 +383,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // const char *
                 ValueLayout.JAVA_INT   // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -127,7 +400,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // int
                 ValueLayout.ADDRESS    // void(*)(void*)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL_HEAP_ACCESS);
     }
 
 
@@ -145,7 +418,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // int
                 ValueLayout.ADDRESS    // void(*)(void*)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL_HEAP_ACCESS);
     }
 
     /**
@@ -159,7 +432,7 @@ public class ForeignSqlite3 {
         var descriptor = FunctionDescriptor.ofVoid(
                 ValueLayout.ADDRESS    // sqlite3_context *
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -179,7 +452,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,   // int
                 ValueLayout.ADDRESS     // void(*)(void*)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL_HEAP_ACCESS);
     }
 
     /**
@@ -199,7 +472,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,   // int
                 ValueLayout.ADDRESS     // void(*)(void*) - SQLITE_TRANSIENT
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL_HEAP_ACCESS);
     }
 
     /**
@@ -217,7 +490,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,   // int
                 ValueLayout.JAVA_DOUBLE // double
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -235,7 +508,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // int
                 ValueLayout.JAVA_LONG  // long
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -253,7 +526,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // int
                 ValueLayout.JAVA_INT   // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -270,7 +543,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // sqlite3_stmt *
                 ValueLayout.JAVA_INT   // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -304,7 +577,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // void (*xFinal)(sqlite3_context*),
                 ValueLayout.ADDRESS    // void(*xDestroy)(void*)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     static class CreateFunctionV2NativeCallbacks {
@@ -333,7 +606,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // sqlite3_stmt *
                 ValueLayout.JAVA_INT   // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -346,15 +619,15 @@ public class ForeignSqlite3 {
     private static MethodHandle _columnInt64() {
         var addr = resolveSymbol("sqlite3_column_int64");
         var descriptor = FunctionDescriptor.of(
-                ValueLayout.JAVA_LONG,  // return double
+                ValueLayout.JAVA_LONG,  // return sqlite3_int64
                 ValueLayout.ADDRESS,    // sqlite3_stmt *
                 ValueLayout.JAVA_INT    // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
-     * <a href="https://www.sqlite.org/c3ref/column_blob.html">column double</a>
+     * <a href="https://www.sqlite.org/c3ref/column_blob.html">column int</a>
      *
      * <pre>
      *     int sqlite3_column_int(sqlite3_stmt*, int iCol);
@@ -363,11 +636,11 @@ public class ForeignSqlite3 {
     private static MethodHandle _columnInt() {
         var addr = resolveSymbol("sqlite3_column_int");
         var descriptor = FunctionDescriptor.of(
-                ValueLayout.JAVA_INT,  // return double
+                ValueLayout.JAVA_INT,  // return int
                 ValueLayout.ADDRESS,   // sqlite3_stmt *
                 ValueLayout.JAVA_INT   // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
 
@@ -385,7 +658,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,      // sqlite3_stmt *
                 ValueLayout.JAVA_INT      // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -402,7 +675,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -419,7 +692,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -436,7 +709,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *pStmt
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -452,7 +725,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *pStmt
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -468,7 +741,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *pStmt
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -485,7 +758,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3_stmt *pStmt
                 ValueLayout.JAVA_INT  // int
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -500,7 +773,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS   // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -516,7 +789,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,    // sqlite3 *db
                 ValueLayout.JAVA_INT    // int (1 = on, 0 = off)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -531,7 +804,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.JAVA_INT    // int (1 = on, 0 = off)
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -547,7 +820,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS    // sqlite3*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -562,7 +835,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS    // sqlite3*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -577,7 +850,7 @@ public class ForeignSqlite3 {
         var descriptor = FunctionDescriptor.of(
                 ValueLayout.ADDRESS // const char *
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -593,7 +866,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS, // const char *
                 ValueLayout.ADDRESS  // sqlite3*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -608,7 +881,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT, // result int
                 ValueLayout.ADDRESS   // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -624,7 +897,23 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT, // result int
                 ValueLayout.ADDRESS   // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/stmt_readonly.html">stmt_readonly</a>
+     *
+     * <pre>
+     *     int sqlite3_stmt_readonly(sqlite3_stmt *pStmt);
+     * </pre>
+     */
+    private static MethodHandle _stmtReadonly() {
+        var addr = resolveSymbol("sqlite3_stmt_readonly");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT, // result int
+                ValueLayout.ADDRESS   // sqlite3_stmt *pStmt
+        );
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -642,7 +931,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // int(*)(void*,int)
                 ValueLayout.ADDRESS   // void*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     static class NativeBusyHandlerCallback {
@@ -670,7 +959,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,  // sqlite3*
                 ValueLayout.JAVA_INT  // int ms
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -684,7 +973,7 @@ public class ForeignSqlite3 {
         var descriptor = FunctionDescriptor.ofVoid(
                 ValueLayout.ADDRESS   // sqlite3*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
     }
 
     /**
@@ -706,7 +995,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,   // int flags
                 ValueLayout.ADDRESS     // const char *zVfs
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -720,7 +1009,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT, // result int
                 ValueLayout.ADDRESS   // sqlite3*
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -744,7 +1033,7 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // void *
                 ValueLayout.ADDRESS    // char **errmsg
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -778,7 +1067,35 @@ public class ForeignSqlite3 {
                 ValueLayout.ADDRESS,   // sqlite3_stmt **ppStmt,
                 ValueLayout.ADDRESS    // const char **pzTail
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
+    }
+
+    /**
+     * <a href="https://www.sqlite.org/c3ref/prepare.html">prepare</a>
+     *
+     * <pre>
+     *  int sqlite3_prepare_v3(
+     *   sqlite3 *db,            \/* Database handle *\/
+     *   const char *zSql,       \/* SQL statement, UTF-8 encoded *\/
+     *   int nByte,              \/* Maximum length of zSql in bytes. *\/
+     *   unsigned int prepFlags, \/* Zero or more SQLITE_PREPARE_ flags *\/
+     *   sqlite3_stmt **ppStmt,  \/* OUT: Statement handle *\/
+     *   const char **pzTail     \/* OUT: Pointer to unused portion of zSql *\/
+     * );
+     * </pre>
+     */
+    private static MethodHandle _prepareV3() {
+        var addr = resolveSymbol("sqlite3_prepare_v3");
+        var descriptor = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,  // result int
+                ValueLayout.ADDRESS,   // sqlite3 *db,
+                ValueLayout.ADDRESS,   // const char *zSql,
+                ValueLayout.JAVA_INT,  // int nByte,
+                ValueLayout.JAVA_INT,  // unsigned int prepFlags,
+                ValueLayout.ADDRESS,   // sqlite3_stmt **ppStmt,
+                ValueLayout.ADDRESS    // const char **pzTail
+        );
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -794,7 +1111,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS    // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -810,7 +1127,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS    // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -826,7 +1143,7 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,  // result int
                 ValueLayout.ADDRESS    // sqlite3_stmt *pStmt
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.MAY_BLOCK);
     }
 
     /**
@@ -844,7 +1161,39 @@ public class ForeignSqlite3 {
                 ValueLayout.JAVA_INT,               // int id
                 ValueLayout.JAVA_INT                // int newVal
         );
-        return linker.downcallHandle(addr, descriptor);
+        return downcall(addr, descriptor, Downcall.CRITICAL);
+    }
+
+    /**
+     * Classification of the sqlite3 entry points by how they may be linked.
+     */
+    enum Downcall {
+        /**
+         * May block on locks or I/O (e.g. <code>sqlite3_step</code>, <code>sqlite3_prepare_v2</code>),
+         * or call back into Java through a busy handler, function, collation or hook.
+         */
+        MAY_BLOCK,
+        /**
+         * Short calls that never call back into Java, such as the <code>sqlite3_column_*</code> and
+         * <code>sqlite3_bind_*</code> functions. They do take the mutex of the database connection
+         * (<code>db-&gt;mutex</code>), and only return without waiting because the driver serializes
+         * the use of a connection with {@link DB#getLock()}: callers must hold that lock, or a
+         * critical downcall may block on the mutex without a safepoint and stall the JVM.
+         */
+        CRITICAL,
+        /**
+         * {@link #CRITICAL} calls whose buffer argument is copied by sqlite before returning
+         * (<code>SQLITE_TRANSIENT</code>), so it may live on the Java heap.
+         */
+        CRITICAL_HEAP_ACCESS
+    }
+
+    private static MethodHandle downcall(MemorySegment addr, FunctionDescriptor descriptor, Downcall kind) {
+        if (!CRITICAL_DOWNCALLS || kind == Downcall.MAY_BLOCK) {
+            return linker.downcallHandle(addr, descriptor);
+        }
+        var allowHeapAccess = kind == Downcall.CRITICAL_HEAP_ACCESS;
+        return linker.downcallHandle(addr, descriptor, Linker.Option.critical(allowHeapAccess));
     }
 
     private static MemorySegment resolveSymbol(String name) {
@@ -0,0 +1,189 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.jdbc3.JDBC3PreparedStatement;
+
+/** Tests the incremental BLOB I/O of {@link SQLiteConnection#openBlob}. */
+public class BlobTest {
+
+    private SQLiteConnection conn;
+    private Statement stat;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        conn = (SQLiteConnection) DriverManager.getConnection("jdbc:sqlite:");
+        stat = conn.createStatement();
+        stat.executeUpdate("create table t (id integer primary key, data blob)");
+        stat.executeUpdate("insert into t values (1, x'0102030405'), (2, 'text')");
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        stat.close();
+        conn.close();
+    }
+
+    @Test
+    public void zeroBlobWrittenInChunks() throws Exception {
+        Utils.assumeExtendedApi(conn);
+        int length = 200_000;
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?, ?)")) {
+            insert.setInt(1, 3);
+            insert.unwrap(JDBC3PreparedStatement.class).setZeroBlob(2, length);
+            assertThat(insert.executeUpdate()).isEqualTo(1);
+        }
+
+        SQLiteBlob blob = conn.openBlob("t", "data", 3, true);
+        SQLiteBlobChannel channel = blob.getChannel();
+        assertThat(channel.size()).isEqualTo(length);
+        ByteBuffer heap = ByteBuffer.allocate(1000);
+        ByteBuffer direct = ByteBuffer.allocateDirect(777);
+        while (channel.position() < length) {
+            ByteBuffer chunk = channel.position() % 2 == 0 ? heap : direct;
+            chunk.clear();
+            while (chunk.hasRemaining()) {
+                chunk.put((byte) (channel.position() + chunk.position()));
+            }
+            chunk.flip();
+            chunk.limit((int) Math.min(chunk.limit(), length - channel.position()));
+            channel.write(chunk);
+        }
+        channel.close();
+        assertThat(channel.isOpen()).isFalse();
+
+        try (ResultSet rs = stat.executeQuery("select data from t where id = 3")) {
+            byte[] data = rs.getBytes(1);
+            assertThat(data).hasSize(length);
+            for (int i = 0; i < length; i++) {
+                assertThat(data[i]).isEqualTo((byte) i);
+            }
+        }
+    }
+
+    @Test
+    public void zeroBlobsInBatch() throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?, ?)")) {
+            JDBC3PreparedStatement sqlite = insert.unwrap(JDBC3PreparedStatement.class);
+            for (int id = 3; id <= 5; id++) {
+                insert.setInt(1, id);
+                sqlite.setZeroBlob(2, id * 10);
+                insert.addBatch();
+            }
+            assertThat(insert.executeBatch()).containsExactly(1, 1, 1);
+        }
+        String sql = "select length(data), data = zeroblob(id * 10) from t where id > 2";
+        try (ResultSet rs = stat.executeQuery(sql)) {
+            for (int id = 3; id <= 5; id++) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(id * 10);
+                assertThat(rs.getBoolean(2)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void readThroughBlob() throws Exception {
+        Utils.assumeExtendedApi(conn);
+        SQLiteBlob blob = conn.openBlob("main", "t", "data", 1, false);
+        assertThat(blob.length()).isEqualTo(5);
+        assertThat(blob.getBytes(1, 10)).containsExactly(1, 2, 3, 4, 5);
+        assertThat(blob.getBytes(2, 3)).containsExactly(2, 3, 4);
+        assertThat(readAll(blob.getBinaryStream())).containsExactly(1, 2, 3, 4, 5);
+        assertThat(readAll(blob.getBinaryStream(4, 2))).containsExactly(4, 5);
+
+        SQLiteBlobChannel channel = blob.getChannel();
+        ByteBuffer dst = ByteBuffer.allocate(3);
+        assertThat(channel.read(dst)).isEqualTo(3);
+        assertThat(channel.position()).isEqualTo(3);
+        dst.clear();
+        assertThat(channel.read(dst)).isEqualTo(2);
+        assertThat(channel.read(dst)).isEqualTo(-1);
+        assertThat(dst.array()).containsExactly(4, 5, 3);
+        assertThatExceptionOfType(NonWritableChannelException.class)
+                .isThrownBy(() -> channel.write(ByteBuffer.allocate(1)));
+
+        // text is read as its UTF-8 bytes
+        channel.reopen(2);
+        assertThat(channel.position()).isEqualTo(0);
+        assertThat(blob.getBytes(1, 4)).containsExactly('t', 'e', 'x', 't');
+
+        blob.free();
+        assertThatExceptionOfType(ClosedChannelException.class).isThrownBy(channel::size);
+    }
+
+    @Test
+    public void lengthIsFixed() throws Exception {
+        Utils.assumeExtendedApi(conn);
+        SQLiteBlob blob = conn.openBlob("t", "data", 1, true);
+        assertThat(blob.setBytes(4, new byte[] {9, 9})).isEqualTo(2);
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> blob.setBytes(5, new byte[] {9, 9}));
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> blob.getChannel().position(4).write(ByteBuffer.allocate(2)));
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> blob.getChannel().truncate(4));
+        assertThatExceptionOfType(SQLException.class).isThrownBy(() -> blob.truncate(4));
+
+        try (OutputStream out = blob.setBinaryStream(1)) {
+            out.write(7);
+            out.write(new byte[] {8});
+        }
+        blob.free();
+
+        try (ResultSet rs = stat.executeQuery("select data from t where id = 1")) {
+            assertThat(rs.getBytes(1)).containsExactly(7, 8, 3, 9, 9);
+        }
+    }
+
+    @Test
+    public void missingRow() throws SQLException {
+        Utils.assumeExtendedApi(conn);
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> conn.openBlob("t", "data", 42, false))
+                .withMessageContaining("no such rowid");
+    }
+
+    @Test
+    public void expiresWhenRowChanges() throws Exception {
+        Utils.assumeExtendedApi(conn);
+        SQLiteBlob blob = conn.openBlob("t", "data", 1, false);
+        stat.executeUpdate("update t set data = x'00' where id = 1");
+        assertThatExceptionOfType(SQLException.class).isThrownBy(() -> blob.getBytes(1, 1));
+        blob.free();
+    }
+
+    @Test
+    public void closedWithConnection() throws Exception {
+        Utils.assumeExtendedApi(conn);
+        SQLiteBlobChannel channel = conn.openBlob("t", "data", 1, false).getChannel();
+        stat.close();
+        conn.close();
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[2];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
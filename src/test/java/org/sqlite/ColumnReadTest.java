@@ -0,0 +1,167 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.BitSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests the bulk column reads of {@link SQLiteResultSet}. */
+public class ColumnReadTest {
+
+    private Connection conn;
+    private Statement stat;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite:");
+        stat = conn.createStatement();
+        stat.executeUpdate("create table t (id integer, x real, s text)");
+        stat.executeUpdate(
+                "insert into t with recursive r(i) as (select 1 union all select i + 1 from r"
+                        + " where i < 10)"
+                        + " select i, case when i % 3 = 0 then null else i / 2.0 end,"
+                        + " case when i % 4 = 0 then null else 'é' || i end from r");
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        stat.close();
+        conn.close();
+    }
+
+    private SQLiteResultSet query(String sql) throws SQLException {
+        return stat.executeQuery(sql).unwrap(SQLiteResultSet.class);
+    }
+
+    @Test
+    public void readLongColumn() throws SQLException {
+        long[] values = new long[4];
+        long[] nulls = new long[1];
+        SQLiteResultSet rs = query("select id from t order by id");
+
+        assertThat(rs.readLongColumn(1, values, nulls)).isEqualTo(4);
+        assertThat(values).containsExactly(1, 2, 3, 4);
+        assertThat(rs.readLongColumn(1, values, nulls)).isEqualTo(4);
+        assertThat(values).containsExactly(5, 6, 7, 8);
+        assertThat(rs.readLongColumn(1, values, nulls)).isEqualTo(2);
+        assertThat(values[0]).isEqualTo(9);
+        assertThat(values[1]).isEqualTo(10);
+        assertThat(nulls[0]).isEqualTo(0);
+        assertThat(rs.readLongColumn(1, values, nulls)).isEqualTo(0);
+        assertThat(rs.next()).isFalse();
+        rs.close();
+    }
+
+    @Test
+    public void readDoubleColumnWithNulls() throws SQLException {
+        double[] values = new double[16];
+        long[] nulls = new long[] {-1L};
+        SQLiteResultSet rs = query("select x from t order by id");
+
+        assertThat(rs.readDoubleColumn(1, values, nulls)).isEqualTo(10);
+        BitSet nullRows = BitSet.valueOf(nulls);
+        for (int i = 0; i < 10; i++) {
+            int id = i + 1;
+            assertThat(nullRows.get(i)).isEqualTo(id % 3 == 0);
+            assertThat(values[i]).isEqualTo(id % 3 == 0 ? 0 : id / 2.0);
+        }
+        // bits of rows that were not read are left as they were
+        assertThat(nullRows.get(10)).isTrue();
+        rs.close();
+    }
+
+    @Test
+    public void readTextColumnOffsets() throws SQLException {
+        ByteBuffer data = ByteBuffer.allocate(64);
+        int[] offsets = new int[11];
+        long[] nulls = new long[1];
+        SQLiteResultSet rs = query("select s from t order by id");
+
+        assertThat(rs.readTextColumnOffsets(1, data, offsets, nulls)).isEqualTo(10);
+        for (int i = 0; i < 10; i++) {
+            int id = i + 1;
+            String text =
+                    new String(
+                            data.array(),
+                            offsets[i],
+                            offsets[i + 1] - offsets[i],
+                            StandardCharsets.UTF_8);
+            assertThat(text).isEqualTo(id % 4 == 0 ? "" : "é" + id);
+            assertThat(BitSet.valueOf(nulls).get(i)).isEqualTo(id % 4 == 0);
+        }
+        rs.close();
+    }
+
+    @Test
+    public void readTextColumnStopsWhenBufferIsFull() throws SQLException {
+        ByteBuffer data = ByteBuffer.allocate(7);
+        int[] offsets = new int[11];
+        SQLiteResultSet rs = query("select s from t where s is not null order by id");
+
+        // "é1" and "é2" take 3 bytes each, "é3" does not fit anymore
+        assertThat(rs.readTextColumnOffsets(1, data, offsets, null)).isEqualTo(2);
+        assertThat(offsets[2]).isEqualTo(6);
+
+        // the row that did not fit is returned next
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getString(1)).isEqualTo("é3");
+        data.clear();
+        assertThat(rs.readTextColumnOffsets(1, data, offsets, null)).isEqualTo(2);
+        assertThat(new String(data.array(), 0, offsets[1], StandardCharsets.UTF_8))
+                .isEqualTo("é5");
+        rs.close();
+    }
+
+    @Test
+    public void readColumnAfterNext() throws SQLException {
+        long[] values = new long[4];
+        SQLiteResultSet rs = query("select id from t order by id");
+
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getLong(1)).isEqualTo(1);
+        assertThat(rs.readLongColumn(1, values, null)).isEqualTo(4);
+        assertThat(values).containsExactly(2, 3, 4, 5);
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getLong(1)).isEqualTo(6);
+        rs.close();
+    }
+
+    @Test
+    public void readColumnWithFetchSize() throws SQLException {
+        long[] values = new long[4];
+        ResultSet rs = stat.executeQuery("select id from t order by id");
+        rs.setFetchSize(3);
+        SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+
+        assertThat(rs.next()).isTrue();
+        assertThat(srs.readLongColumn(1, values, null)).isEqualTo(4);
+        assertThat(values).containsExactly(2, 3, 4, 5);
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getLong(1)).isEqualTo(6);
+        assertThat(srs.readLongColumn(1, values, null)).isEqualTo(4);
+        assertThat(values).containsExactly(7, 8, 9, 10);
+        assertThat(rs.next()).isFalse();
+        rs.close();
+    }
+
+    @Test
+    public void readColumnHonorsMaxRows() throws SQLException {
+        long[] values = new long[8];
+        stat.setMaxRows(5);
+        SQLiteResultSet rs = query("select id from t order by id");
+
+        assertThat(rs.readLongColumn(1, values, null)).isEqualTo(5);
+        assertThat(rs.readLongColumn(1, values, null)).isEqualTo(0);
+        assertThat(rs.next()).isFalse();
+        rs.close();
+    }
+}
@@ -7,6 +7,10 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,4 +59,114 @@ public class FetchSizeTest {
         assertThat(rs.next()).isTrue();
         assertThat(rs.next()).isFalse();
     }
+
+    @Test
+    public void fetchSizeReturnsSameValuesAsStepping() throws SQLException {
+        Statement stat = conn.createStatement();
+        stat.executeUpdate("create table t (i integer, r real, s text, b blob, n)");
+        stat.executeUpdate(
+                "insert into t values "
+                        + "(1, 0.1, 'one', x'0102', null), "
+                        + "(-2, 1e20, '2.5abc', x'', null), "
+                        + "(9223372036854775807, 1.0, '', x'33', null), "
+                        + "(null, -123.456, ' 42 ', null, 7), "
+                        + "(0, 1e-5, 'héllo ☃', x'68690068', 'x'), "
+                        + "(5, 3.0e15, '1e3', x'ff', 1.5)");
+
+        List<String> expected = readAll(stat, 0);
+        assertThat(expected).hasSize(6 * 5);
+        for (int fetchSize : new int[] {1, 2, 4, 6, 100}) {
+            assertThat(readAll(stat, fetchSize)).as("fetch size %d", fetchSize).isEqualTo(expected);
+        }
+        stat.close();
+    }
+
+    private static List<String> readAll(Statement stat, int fetchSize) throws SQLException {
+        stat.setFetchSize(fetchSize);
+        List<String> values = new ArrayList<>();
+        try (ResultSet rs = stat.executeQuery("select * from t")) {
+            assertThat(rs.getFetchSize()).isEqualTo(fetchSize);
+            while (rs.next()) {
+                for (int col = 1; col <= 5; col++) {
+                    Object object = rs.getObject(col);
+                    boolean wasNull = rs.wasNull();
+                    values.add(
+                            (object instanceof byte[] ? Arrays.toString((byte[]) object) : object)
+                                    + "|"
+                                    + wasNull
+                                    + "|"
+                                    + rs.getString(col)
+                                    + "|"
+                                    + rs.getLong(col)
+                                    + "|"
+                                    + rs.getInt(col)
+                                    + "|"
+                                    + rs.getDouble(col)
+                                    + "|"
+                                    + Arrays.toString(rs.getBytes(col)));
+                }
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void fetchSizeHonorsMaxRows() throws SQLException {
+        Statement stat = conn.createStatement();
+        stat.setMaxRows(5);
+        stat.setFetchSize(3);
+        ResultSet rs =
+                stat.executeQuery(
+                        "with recursive seq(x) as (select 1 union all select x + 1 from seq limit 100)"
+                                + " select x from seq");
+        int count = 0;
+        while (rs.next()) {
+            assertThat(rs.getInt(1)).isEqualTo(++count);
+        }
+        assertThat(count).isEqualTo(5);
+        rs.close();
+        stat.close();
+    }
+
+    @Test
+    public void fetchSizeIsKeptAcrossExecutions() throws SQLException {
+        PreparedStatement prep = conn.prepareStatement("select ?");
+        prep.setFetchSize(10);
+        for (int i = 0; i < 3; i++) {
+            prep.setInt(1, i);
+            ResultSet rs = prep.executeQuery();
+            assertThat(rs.getFetchSize()).isEqualTo(10);
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getInt(1)).isEqualTo(i);
+            assertThat(rs.next()).isFalse();
+            rs.close();
+        }
+        prep.close();
+    }
+
+    @Test
+    public void textAndBlobsAcrossBlocksAndExecutions() throws SQLException {
+        PreparedStatement prep =
+                conn.prepareStatement(
+                        "with recursive seq(x) as (select 1 union all select x + 1 from seq limit 50)"
+                                + " select x, printf('%.*c', x * ?, 'é'), zeroblob(x * ?) from seq");
+        prep.setFetchSize(7);
+        // the second execution has larger values than the buffer was grown for
+        for (int scale = 1; scale <= 20; scale += 19) {
+            prep.setInt(1, scale);
+            prep.setInt(2, scale);
+            ResultSet rs = prep.executeQuery();
+            for (int x = 1; x <= 50; x++) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(x);
+                String text = rs.getString(2);
+                assertThat(text).hasSize(x * scale).matches("é+");
+                assertThat(rs.getBytes(2)).hasSize(x * scale * 2);
+                assertThat(rs.getBytes(3)).hasSize(x * scale).containsOnly(0);
+            }
+            assertThat(rs.next()).isFalse();
+            rs.close();
+        }
+        prep.close();
+    }
 }
@@ -0,0 +1,189 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests the group commit enabled with {@link SQLiteConfig#setGroupCommitWindow}. */
+public class GroupCommitTest {
+
+    @TempDir File tempDir;
+
+    private String url;
+    private Connection conn;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        url = "jdbc:sqlite:" + new File(tempDir, "group.db").getAbsolutePath();
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setGroupCommitWindow(20_000);
+        conn = config.createConnection(url);
+        Utils.assumeExtendedApi(conn);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("create table t (id integer primary key, thread integer)");
+        }
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        conn.close();
+    }
+
+    private int count(Connection other) throws SQLException {
+        try (Statement stat = other.createStatement();
+                ResultSet rs = stat.executeQuery("select count(*) from t")) {
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void windowFromUrl() throws SQLException {
+        try (SQLiteConnection other =
+                (SQLiteConnection)
+                        DriverManager.getConnection(
+                                "jdbc:sqlite::memory:?jdbc.group_commit_window=500")) {
+            assertThat(other.getDatabase().getConfig().getGroupCommitWindow()).isEqualTo(500);
+        }
+        Properties props = new SQLiteConfig().toProperties();
+        assertThat(props.getProperty("jdbc.group_commit_window")).isEqualTo("0");
+    }
+
+    @Test
+    public void updateReturnsOnceCommitted() throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?, 0)");
+                Connection other = DriverManager.getConnection(url)) {
+            insert.setInt(1, 1);
+            assertThat(insert.executeUpdate()).isEqualTo(1);
+            assertThat(conn.getAutoCommit()).isTrue();
+            assertThat(count(other)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        int threads = 8;
+        int rows = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(
+                        executor.submit(
+                                () -> {
+                                    int changes = 0;
+                                    try (PreparedStatement insert =
+                                            conn.prepareStatement(
+                                                    "insert into t (thread) values (?)")) {
+                                        for (int i = 0; i < rows; i++) {
+                                            insert.setInt(1, thread);
+                                            changes += insert.executeUpdate();
+                                        }
+                                    }
+                                    return changes;
+                                }));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(rows);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (Connection other = DriverManager.getConnection(url)) {
+            assertThat(count(other)).isEqualTo(threads * rows);
+        }
+    }
+
+    @Test
+    public void failedUpdateLeavesGroup() throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?, 0)");
+                Connection other = DriverManager.getConnection(url)) {
+            insert.setInt(1, 1);
+            insert.executeUpdate();
+            assertThatThrownBy(insert::executeUpdate).isInstanceOf(SQLException.class);
+            insert.setInt(1, 2);
+            insert.executeUpdate();
+            assertThat(count(other)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void otherWritesCommitGroupFirst() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        config.setGroupCommitWindow(10_000_000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SQLiteConnection shared = (SQLiteConnection) config.createConnection(url);
+                Statement stat = shared.createStatement();
+                Connection other = DriverManager.getConnection(url)) {
+            stat.executeUpdate("create table parent (id integer primary key)");
+            stat.executeUpdate(
+                    "create table child (parent references parent deferrable initially deferred)");
+            long changes = shared.getDatabase().total_changes();
+
+            // the commit of the group fails, on the foreign key checked when it commits
+            Future<Integer> orphan =
+                    executor.submit(
+                            () -> {
+                                try (PreparedStatement insert =
+                                        shared.prepareStatement("insert into child values (?)")) {
+                                    insert.setInt(1, 42);
+                                    return insert.executeUpdate();
+                                }
+                            });
+            while (shared.getDatabase().total_changes() == changes) {
+                Thread.sleep(1);
+            }
+
+            assertThat(stat.executeUpdate("insert into t values (1, 0)")).isEqualTo(1);
+            assertThatThrownBy(orphan::get).hasCauseInstanceOf(SQLException.class);
+            assertThat(count(other)).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batch() throws SQLException {
+        try (Statement stat = conn.createStatement();
+                Connection other = DriverManager.getConnection(url)) {
+            stat.addBatch("insert into t values (1, 0)");
+            stat.addBatch("insert into t values (2, 0)");
+            assertThat(stat.executeBatch()).containsExactly(1, 1);
+            assertThat(count(other)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void explicitTransaction() throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?, 0)");
+                Connection other = DriverManager.getConnection(url)) {
+            conn.setAutoCommit(false);
+            insert.setInt(1, 1);
+            insert.executeUpdate();
+            assertThat(count(other)).isEqualTo(0);
+            conn.rollback();
+            conn.setAutoCommit(true);
+            assertThat(count(other)).isEqualTo(0);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.data.Offset.offset;
 
 import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
@@ -18,6 +19,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.StringTokenizer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -233,6 +235,170 @@ public class PrepStmtTest {
         rs.close();
     }
 
+    @Test
+    public void streamsReadWhenExecuted() throws SQLException {
+        // a surrogate pair split by the chunks the reader is encoded in
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 8191; i++) {
+            text.append(i % 10 == 0 ? '\u00e9' : 'a');
+        }
+        text.append(utf06);
+        String expected = text.toString();
+        byte[] bytes = new byte[100_000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        PreparedStatement prep = conn.prepareStatement("select ?, ?, ?, ?, ?;");
+        prep.setCharacterStream(1, new StringReader(expected), 10);
+        prep.setCharacterStream(2, new StringReader(expected));
+        prep.setBinaryStream(3, new ByteArrayInputStream(bytes));
+        prep.setBinaryStream(4, new ByteArrayInputStream(bytes), 3L);
+        prep.setAsciiStream(5, null);
+        ResultSet rs = prep.executeQuery();
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getString(1)).isEqualTo(expected);
+        assertThat(rs.getString(2)).isEqualTo(expected);
+        assertThat(rs.getBytes(3)).isEqualTo(bytes);
+        assertThat(rs.getBytes(4)).containsExactly(0, 1, 2);
+        assertThat(rs.getString(5)).isNull();
+        rs.close();
+
+        prep.setNCharacterStream(1, new StringReader(expected), 3L);
+        prep.setAsciiStream(2, new ByteArrayInputStream(b2), 2L);
+        rs = prep.executeQuery();
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getString(1)).isEqualTo(expected.substring(0, 3));
+        assertThat(rs.getString(2)).isEqualTo("To");
+        rs.close();
+
+        prep.setBinaryStream(3, new ByteArrayInputStream(b1), b1.length + 1);
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(prep::executeQuery)
+                .withMessage("Error reading stream");
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> prep.setBinaryStream(3, new ByteArrayInputStream(b1), -1));
+        prep.close();
+    }
+
+    @Test
+    public void streamLongerThanLimit() throws SQLException {
+        ((SQLiteConnection) conn).setLimit(SQLiteLimits.SQLITE_LIMIT_LENGTH, 1000);
+        char[] chars = new char[600];
+        Arrays.fill(chars, '\u00e9');
+        byte[] bytes = new byte[100_000];
+
+        PreparedStatement prep = conn.prepareStatement("select ?;");
+        // 600 characters declared, but 1200 bytes once encoded
+        prep.setCharacterStream(1, new StringReader(new String(chars)), 600);
+        assertThatThrownBy(prep::executeQuery)
+                .isInstanceOfSatisfying(
+                        SQLiteException.class,
+                        e ->
+                                assertThat(e.getResultCode())
+                                        .isEqualTo(SQLiteErrorCode.SQLITE_TOOBIG));
+        prep.setBinaryStream(1, new ByteArrayInputStream(bytes));
+        assertThatThrownBy(prep::executeQuery)
+                .isInstanceOfSatisfying(
+                        SQLiteException.class,
+                        e ->
+                                assertThat(e.getResultCode())
+                                        .isEqualTo(SQLiteErrorCode.SQLITE_TOOBIG));
+
+        // only the declared length of a longer stream is read
+        prep.setBinaryStream(1, new ByteArrayInputStream(bytes), 1000L);
+        ResultSet rs = prep.executeQuery();
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getBytes(1)).hasSize(1000);
+        rs.close();
+        prep.close();
+    }
+
+    @Test
+    public void streamsInBatch() throws SQLException {
+        stat.executeUpdate("create table streams (id, t, b);");
+        PreparedStatement prep = conn.prepareStatement("insert into streams values (?, ?, ?);");
+        for (int i = 0; i < 3; i++) {
+            prep.setInt(1, i);
+            prep.setCharacterStream(2, new StringReader(utf07 + i));
+            prep.setBinaryStream(3, new ByteArrayInputStream(b1), b1.length);
+            prep.addBatch();
+        }
+        assertThat(prep.executeBatch()).containsExactly(1, 1, 1);
+        prep.close();
+
+        ResultSet rs = stat.executeQuery("select t, b from streams order by id;");
+        for (int i = 0; i < 3; i++) {
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getString(1)).isEqualTo(utf07 + i);
+            assertThat(rs.getBytes(2)).containsExactly(b1);
+        }
+        rs.close();
+    }
+
+    @Test
+    public void generatedKeysFromColumnNames() throws SQLException {
+        stat.executeUpdate("create table t (id integer primary key, code text default 'k', v)");
+        try (PreparedStatement prep =
+                conn.prepareStatement(
+                        "insert into t (v) values (?), (?);", new String[] {"id", "code"})) {
+            prep.setString(1, "a");
+            prep.setString(2, "b");
+            assertThat(prep.executeUpdate()).isEqualTo(2);
+            try (ResultSet keys = prep.getGeneratedKeys()) {
+                assertThat(keys.getMetaData().getColumnCount()).isEqualTo(2);
+                assertThat(keys.getMetaData().getColumnLabel(1)).isEqualTo("id");
+                assertThat(keys.next()).isTrue();
+                assertThat(keys.getLong("id")).isEqualTo(1);
+                assertThat(keys.getString("code")).isEqualTo("k");
+                assertThat(keys.next()).isTrue();
+                assertThat(keys.getLong("id")).isEqualTo(2);
+                assertThat(keys.next()).isFalse();
+            }
+
+            prep.setString(1, "c");
+            prep.setString(2, "d");
+            assertThat(prep.execute()).isFalse();
+            assertThat(prep.getUpdateCount()).isEqualTo(2);
+            try (ResultSet keys = prep.getGeneratedKeys()) {
+                assertThat(keys.next()).isTrue();
+                assertThat(keys.getLong(1)).isEqualTo(3);
+            }
+
+            for (int i = 0; i < 2; i++) {
+                prep.setString(1, "e");
+                prep.setString(2, "f");
+                prep.addBatch();
+            }
+            assertThat(prep.executeBatch()).containsExactly(2, 2);
+            try (ResultSet keys = prep.getGeneratedKeys()) {
+                for (long id = 5; id <= 8; id++) {
+                    assertThat(keys.next()).isTrue();
+                    assertThat(keys.getLong(1)).isEqualTo(id);
+                }
+                assertThat(keys.next()).isFalse();
+            }
+        }
+
+        ResultSet rs = stat.executeQuery("select count(*) from t");
+        assertThat(rs.getInt(1)).isEqualTo(8);
+        rs.close();
+    }
+
+    @Test
+    public void noGeneratedKeys() throws SQLException {
+        stat.executeUpdate("create table t (id integer primary key, v)");
+        try (PreparedStatement prep =
+                conn.prepareStatement(
+                        "insert into t (v) values (?)", Statement.NO_GENERATED_KEYS)) {
+            prep.setString(1, "a");
+            assertThat(prep.executeUpdate()).isEqualTo(1);
+            try (ResultSet keys = prep.getGeneratedKeys()) {
+                assertThat(keys.next()).isFalse();
+            }
+        }
+    }
+
     @Test
     public void colNameAccess() throws SQLException {
         PreparedStatement prep = conn.prepareStatement("select ? as col1, ? as col2, ? as bingo;");
@@ -426,6 +592,71 @@ public class PrepStmtTest {
         stat.executeUpdate("drop table test;");
     }
 
+    @Test
+    public void batchOfMixedParameterTypes() throws SQLException {
+        stat.executeUpdate("create table test (c1, c2, c3, c4, c5);");
+        PreparedStatement prep = conn.prepareStatement("insert into test values (?,?,?,?,?);");
+        prep.setLong(1, Long.MAX_VALUE);
+        prep.setDouble(2, 0.5);
+        prep.setString(3, "a");
+        prep.setBytes(4, new byte[] {1, 2});
+        prep.setNull(5, Types.INTEGER);
+        prep.addBatch();
+        // unchanged parameters are carried over to the next row of the batch
+        prep.setString(1, "b");
+        prep.setObject(5, 7);
+        prep.addBatch();
+        prep.setObject(1, null);
+        prep.setInt(2, 3);
+        prep.addBatch();
+        assertThat(prep.executeBatch()).containsExactly(1, 1, 1);
+        prep.close();
+
+        ResultSet rs = stat.executeQuery("select * from test;");
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getLong(1)).isEqualTo(Long.MAX_VALUE);
+        assertThat(rs.getDouble(2)).isEqualTo(0.5);
+        assertThat(rs.getString(3)).isEqualTo("a");
+        assertThat(rs.getBytes(4)).containsExactly(1, 2);
+        assertThat(rs.getObject(5)).isNull();
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getString(1)).isEqualTo("b");
+        assertThat(rs.getDouble(2)).isEqualTo(0.5);
+        assertThat(rs.getInt(5)).isEqualTo(7);
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getObject(1)).isNull();
+        assertThat(rs.getObject(2)).isEqualTo(3);
+        assertThat(rs.getInt(5)).isEqualTo(7);
+        assertThat(rs.next()).isFalse();
+        rs.close();
+    }
+
+    @Test
+    public void largeBatch() throws SQLException {
+        stat.executeUpdate("create table test (id, t, b);");
+        PreparedStatement prep = conn.prepareStatement("insert into test values (?,?,?);");
+        int count = 3000;
+        for (int i = 0; i < count; i++) {
+            prep.setInt(1, i);
+            prep.setString(2, i % 10 == 0 ? null : "text ☃ " + i);
+            prep.setBytes(3, new byte[i % 50]);
+            prep.addBatch();
+        }
+        int[] changes = prep.executeBatch();
+        assertThat(changes).hasSize(count).containsOnly(1);
+        prep.close();
+
+        ResultSet rs = stat.executeQuery("select id, t, length(b) from test order by id;");
+        for (int i = 0; i < count; i++) {
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getInt(1)).isEqualTo(i);
+            assertThat(rs.getString(2)).isEqualTo(i % 10 == 0 ? null : "text ☃ " + i);
+            assertThat(rs.getInt(3)).isEqualTo(i % 50);
+        }
+        assertThat(rs.next()).isFalse();
+        rs.close();
+    }
+
     @Test
     public void testExecuteBatch() throws Exception {
         stat.executeUpdate("create table t (c text);");
@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.DriverManager;
@@ -17,6 +19,8 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -375,4 +379,153 @@ class ResultSetTest {
             assertThat(meta.getColumnCount()).isEqualTo(1);
         }
     }
+
+    @Test
+    void columnTypesOfEachRow() throws SQLException {
+        stat.executeUpdate("create table mixed (a, b)");
+        stat.executeUpdate("insert into mixed values (1, null), (null, 2.5), ('x', 3)");
+        try (PreparedStatement prep = conn.prepareStatement("select a, b from mixed")) {
+            for (int run = 0; run < 2; run++) {
+                ResultSet rs = prep.executeQuery();
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(1);
+                assertThat(rs.wasNull()).isFalse();
+                assertThat(rs.getDouble(2)).isEqualTo(0.0);
+                assertThat(rs.wasNull()).isTrue();
+
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getObject(1)).isNull();
+                assertThat(rs.wasNull()).isTrue();
+                assertThat(rs.getObject(2)).isEqualTo(2.5);
+                assertThat(rs.wasNull()).isFalse();
+
+                assertThat(rs.next()).isTrue();
+                // reading a column as text does not change its type for getObject()
+                assertThat(rs.getString(2)).isEqualTo("3");
+                assertThat(rs.getObject(2)).isEqualTo(3);
+                assertThat(rs.getObject(1)).isEqualTo("x");
+
+                assertThat(rs.next()).isFalse();
+                rs.close();
+            }
+        }
+    }
+
+    @Test
+    void appendString() throws SQLException {
+        String sql = "select 'ascii', 'héllo ☃', null, 42, 'a' || char(0) || 'b'";
+        for (int fetchSize : new int[] {0, 10}) {
+            stat.setFetchSize(fetchSize);
+            ResultSet rs = stat.executeQuery(sql);
+            SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+            assertThat(rs.next()).isTrue();
+            StringBuilder sb = new StringBuilder("[");
+            for (int col = 1; col <= 5; col++) {
+                assertThat(srs.appendString(col, sb)).isEqualTo(col != 3);
+                assertThat(rs.wasNull()).isEqualTo(col == 3);
+                sb.append('|');
+            }
+            assertThat(sb.toString()).isEqualTo("[ascii|héllo ☃||42|a\0b|");
+            assertThat(rs.getString(2)).isEqualTo("héllo ☃");
+            assertThat(rs.getString(5)).isEqualTo("a\0b");
+            rs.close();
+        }
+    }
+
+    @Test
+    void blobWithoutCopy() throws SQLException {
+        String sql = "select null, x'', x'01020304', 'text'";
+        for (int fetchSize : new int[] {0, 10}) {
+            stat.setFetchSize(fetchSize);
+            ResultSet rs = stat.executeQuery(sql);
+            SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+            assertThat(rs.next()).isTrue();
+
+            assertThat(srs.getBlobBuffer(1)).isNull();
+            assertThat(rs.wasNull()).isTrue();
+            assertThat(srs.getBlobBuffer(2).remaining()).isEqualTo(0);
+            assertThat(rs.wasNull()).isFalse();
+            ByteBuffer view = srs.getBlobBuffer(3);
+            assertThat(view.isReadOnly()).isTrue();
+            byte[] bytes = new byte[view.remaining()];
+            view.get(bytes);
+            assertThat(bytes).containsExactly(1, 2, 3, 4);
+
+            ByteBuffer small = ByteBuffer.allocate(3);
+            assertThat(srs.getBytes(1, small)).isEqualTo(-1);
+            assertThat(srs.getBytes(3, small)).isEqualTo(4);
+            assertThat(small.position()).isEqualTo(3);
+            assertThat(small.array()).containsExactly(1, 2, 3);
+
+            byte[] dest = new byte[6];
+            assertThat(srs.getBytes(3, dest, 2)).isEqualTo(4);
+            assertThat(dest).containsExactly(0, 0, 1, 2, 3, 4);
+            assertThat(srs.getBytes(4, dest, 0)).isEqualTo(4);
+            assertThat(new String(dest, 0, 4, StandardCharsets.UTF_8)).isEqualTo("text");
+            rs.close();
+        }
+    }
+
+    @Test
+    void staleBlobBuffer() throws SQLException {
+        ResultSet rs = stat.executeQuery("select x'0102' union all select x'0304'");
+        SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+        assertThat(rs.next()).isTrue();
+        ByteBuffer first = srs.getBlobBuffer(1);
+        assertThat(first.get(1)).isEqualTo((byte) 2);
+
+        assertThat(rs.next()).isTrue();
+        ByteBuffer second = srs.getBlobBuffer(1);
+        assertThat(second.get(1)).isEqualTo((byte) 4);
+        rs.close();
+        if (first.isDirect()) {
+            // a view of memory that SQLite has released
+            assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> first.get(1));
+            assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> second.get(1));
+        }
+    }
+
+    @Test
+    void blobBufferStaleAfterColumnRead() throws SQLException {
+        ResultSet rs = stat.executeQuery("select 1, x'0102' union all select 2, x'0304'");
+        SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+        assertThat(rs.next()).isTrue();
+        ByteBuffer first = srs.getBlobBuffer(2);
+        assertThat(first.get(1)).isEqualTo((byte) 2);
+
+        long[] values = new long[2];
+        assertThat(srs.readLongColumn(1, values, new long[1])).isEqualTo(1);
+        assertThat(values[0]).isEqualTo(2);
+        if (first.isDirect()) {
+            // the column read stepped past the row of the buffer
+            assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> first.get(1));
+        }
+        rs.close();
+    }
+
+    @Test
+    void blobBufferAcrossThreads() throws Exception {
+        ResultSet rs =
+                stat.executeQuery("select x'0102' union all select x'0304' union all select x'05'");
+        SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(rs.next()).isTrue();
+            assertThat(executor.submit(() -> srs.getBlobBuffer(1).get(1)).get())
+                    .isEqualTo((byte) 2);
+
+            // left by another thread than the one that read it, the next rows are shared
+            assertThat(rs.next()).isTrue();
+            ByteBuffer second = srs.getBlobBuffer(1);
+            assertThat(executor.submit(() -> second.get(1)).get()).isEqualTo((byte) 4);
+            assertThat(rs.next()).isTrue();
+            if (second.isDirect()) {
+                assertThatExceptionOfType(IllegalStateException.class)
+                        .isThrownBy(() -> second.get(1));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        rs.close();
+    }
 }
@@ -1,12 +1,20 @@
 package org.sqlite;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import org.junit.jupiter.api.Test;
 import org.sqlite.SQLiteConfig.Pragma;
+import org.sqlite.core.DB;
+import org.sqlite.core.NativeDB;
 
 public class SQLiteConfigTest {
 
@@ -54,6 +62,73 @@ public class SQLiteConfigTest {
         assertThat(config.getBusyTimeout()).isEqualTo(100);
     }
 
+    @Test
+    public void prepareNoVtab() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setPrepareNoVtab(true);
+        assertThat(config.toProperties().getProperty(Pragma.JDBC_PREPARE_NO_VTAB.pragmaName))
+                .isEqualTo("true");
+
+        try (Connection conn = config.createConnection("jdbc:sqlite:");
+                Statement stat = conn.createStatement()) {
+            assertThat(stat.executeQuery("select 1").getInt(1)).isEqualTo(1);
+            assumeFalse(
+                    conn.unwrap(SQLiteConnection.class).getDatabase() instanceof NativeDB,
+                    "the JNI backend ignores the prepare flags");
+            // table-valued pragma functions are eponymous virtual tables
+            assertThatThrownBy(() -> conn.prepareStatement("select * from pragma_table_list"))
+                    .isInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    public void threadConfined() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setThreadConfined(true);
+        assertThat(config.getOpenModeFlags() & SQLiteOpenMode.NOMUTEX.flag).isNotZero();
+        Properties props = config.toProperties();
+        assertThat(props.getProperty(Pragma.JDBC_THREAD_CONFINED.pragmaName)).isEqualTo("true");
+        assertThat(new SQLiteConfig(props).isThreadConfined()).isTrue();
+
+        try (SQLiteConnection conn = (SQLiteConnection) config.createConnection("jdbc:sqlite:");
+                Statement stat = conn.createStatement()) {
+            assertThat(stat.executeQuery("select 1").getInt(1)).isEqualTo(1);
+
+            // handing the connection to another thread is allowed
+            assertThat(inOtherThread(() -> stat.executeUpdate("create table t (i integer)")))
+                    .isNull();
+            assertThat(stat.executeQuery("select count(*) from t").getInt(1)).isEqualTo(0);
+
+            // using it from two threads at once is detected when assertions are enabled
+            if (DB.class.desiredAssertionStatus()) {
+                conn.getDatabase().getLock().lock();
+                try {
+                    assertThat(inOtherThread(() -> conn.createStatement().executeQuery("select 1")))
+                            .isInstanceOf(AssertionError.class);
+                } finally {
+                    conn.getDatabase().getLock().unlock();
+                }
+            }
+        }
+    }
+
+    /** @return what the task threw in a new thread, or null */
+    private static Throwable inOtherThread(ThrowingCallable task) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                task.call();
+                            } catch (Throwable e) {
+                                failure.set(e);
+                            }
+                        });
+        thread.start();
+        thread.join();
+        return failure.get();
+    }
+
     @Test
     public void pragmaSet() {
         Set<String> expectedPragmaSet = new HashSet<>();
@@ -199,4 +199,36 @@ public class SavepointTest {
         assertThat(rs.getInt(1)).isEqualTo(2);
         rs.close();
     }
+
+    @Test
+    public void manySavepoints() throws SQLException {
+        stat1.executeUpdate("create table trans (c1);");
+        conn1.setAutoCommit(false);
+        Savepoint[] savepoints = new Savepoint[40];
+        for (int i = 0; i < savepoints.length; i++) {
+            savepoints[i] = i % 2 == 0 ? conn1.setSavepoint() : conn1.setSavepoint("sp" + i);
+            stat1.executeUpdate("insert into trans values (" + i + ");");
+        }
+        // rolls back to a savepoint whose statements are no longer kept
+        conn1.rollback(savepoints[5]);
+        conn1.releaseSavepoint(savepoints[5]);
+        conn1.commit();
+
+        ResultSet rs = stat2.executeQuery("select count(*) from trans;");
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(5);
+        rs.close();
+
+        // the transaction control statements are reused for the next transactions
+        for (int i = 0; i < 3; i++) {
+            Savepoint sp = conn1.setSavepoint("again");
+            stat1.executeUpdate("insert into trans values (" + i + ");");
+            conn1.rollback(sp);
+            conn1.rollback();
+        }
+        rs = stat2.executeQuery("select count(*) from trans;");
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getInt(1)).isEqualTo(5);
+        rs.close();
+    }
 }
@@ -0,0 +1,145 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.core.StatementCache;
+
+/** Tests the prepared statement cache enabled with {@link SQLiteConfig#setStatementCacheSize}. */
+public class StatementCacheTest {
+
+    private SQLiteConnection conn;
+    private StatementCache cache;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setStatementCacheSize(2);
+        conn = (SQLiteConnection) config.createConnection("jdbc:sqlite:");
+        cache = conn.getDatabase().getStatementCache();
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("create table t (id integer primary key, s text)");
+        }
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void disabledByDefault() throws SQLException {
+        try (SQLiteConnection other =
+                (SQLiteConnection) DriverManager.getConnection("jdbc:sqlite:")) {
+            assertThat(other.getDatabase().getStatementCache()).isNull();
+        }
+    }
+
+    @Test
+    public void sizeFromUrl() throws SQLException {
+        try (SQLiteConnection other =
+                (SQLiteConnection)
+                        DriverManager.getConnection(
+                                "jdbc:sqlite::memory:?jdbc.statement_cache_size=5")) {
+            assertThat(other.getDatabase().getStatementCache().getCapacity()).isEqualTo(5);
+        }
+        Properties props = new SQLiteConfig().toProperties();
+        assertThat(props.getProperty("jdbc.statement_cache_size")).isEqualTo("0");
+    }
+
+    @Test
+    public void reuseClosedStatement() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            try (PreparedStatement prep = conn.prepareStatement("insert into t values (?, ?)")) {
+                prep.setInt(1, i);
+                prep.setString(2, "s" + i);
+                assertThat(prep.executeUpdate()).isEqualTo(1);
+            }
+        }
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+
+        try (PreparedStatement prep = conn.prepareStatement("select count(*) from t")) {
+            ResultSet rs = prep.executeQuery();
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getInt(1)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void bindingsAreCleared() throws SQLException {
+        try (PreparedStatement prep = conn.prepareStatement("select ?")) {
+            prep.setString(1, "bound");
+            // leave the result set open, the statement is reset when it is cached
+            assertThat(prep.executeQuery().next()).isTrue();
+        }
+        try (PreparedStatement prep = conn.prepareStatement("select ?")) {
+            ResultSet rs = prep.executeQuery();
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getString(1)).isNull();
+        }
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentStatementsWithSameSql() throws SQLException {
+        PreparedStatement first = conn.prepareStatement("select 1");
+        PreparedStatement second = conn.prepareStatement("select 1");
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(first.executeQuery().getInt(1)).isEqualTo(1);
+        assertThat(second.executeQuery().getInt(1)).isEqualTo(1);
+        first.close();
+        second.close();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws SQLException {
+        conn.prepareStatement("select 1").close();
+        conn.prepareStatement("select 2").close();
+        conn.prepareStatement("select 1").close();
+        conn.prepareStatement("select 3").close();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+
+        // "select 2" was evicted
+        conn.prepareStatement("select 2").close();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    public void plainStatementsAreNotCached() throws SQLException {
+        try (Statement stat = conn.createStatement()) {
+            stat.executeQuery("select 1").close();
+        }
+        assertThat(cache.getMisses()).isEqualTo(0);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void schemaChange() throws SQLException {
+        conn.prepareStatement("select s from t").close();
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("drop table t");
+            stat.executeUpdate("create table t (s integer)");
+            stat.executeUpdate("insert into t values (42)");
+        }
+        // sqlite recompiles the cached statement for the new schema when it is run
+        try (PreparedStatement prep = conn.prepareStatement("select s from t")) {
+            ResultSet rs = prep.executeQuery();
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getObject(1)).isEqualTo(42);
+        }
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+}
@@ -390,6 +390,21 @@ public class StatementTest {
         stat2.close();
     }
 
+    @Test
+    public void noGeneratedKeys() throws SQLException {
+        stat.executeUpdate("create table t1 (c1 integer primary key, v);");
+        stat.executeUpdate("insert into t1 (v) values ('red');", Statement.NO_GENERATED_KEYS);
+        ResultSet rs = stat.getGeneratedKeys();
+        assertThat(rs.next()).isFalse();
+        rs.close();
+
+        stat.executeUpdate("insert into t1 (v) values ('blue');", Statement.RETURN_GENERATED_KEYS);
+        rs = stat.getGeneratedKeys();
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getLong(1)).isEqualTo(2);
+        rs.close();
+    }
+
     @Test
     public void isBeforeFirst() throws SQLException {
         ResultSet rs = stat.executeQuery("select 1 union all select 2;");
@@ -0,0 +1,111 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.core.StringDictionary;
+
+/** Tests the string dictionaries of {@link SQLiteResultSet#setStringDictionary(int, boolean)}. */
+public class StringDictionaryTest {
+
+    private static final String QUERY =
+            "with recursive seq(x) as (select 1 union all select x + 1 from seq limit 3000)"
+                    + " select x, case x % 3 when 0 then 'open' when 1 then 'clösed' end,"
+                    + " 'value ' || x from seq";
+
+    private Connection conn;
+    private Statement stat;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite:");
+        stat = conn.createStatement();
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        stat.close();
+        conn.close();
+    }
+
+    @Test
+    public void disabledByDefault() throws SQLException {
+        try (ResultSet rs = stat.executeQuery(QUERY)) {
+            assertThat(rs.unwrap(SQLiteResultSet.class).getStringDictionary(2)).isNull();
+        }
+    }
+
+    @Test
+    public void sameInstanceForEqualValues() throws SQLException {
+        for (int fetchSize : new int[] {0, 100}) {
+            stat.setFetchSize(fetchSize);
+            try (ResultSet rs = stat.executeQuery(QUERY)) {
+                SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+                srs.setStringDictionary(2, true);
+                String open = null;
+                while (rs.next()) {
+                    int x = rs.getInt(1);
+                    String status = rs.getString(2);
+                    if (x % 3 == 0) {
+                        assertThat(status).isEqualTo("open");
+                        if (open != null) {
+                            assertThat(status).isSameAs(open);
+                        }
+                        open = status;
+                    } else if (x % 3 == 1) {
+                        assertThat(status).isEqualTo("clösed");
+                    } else {
+                        assertThat(status).isNull();
+                        assertThat(rs.wasNull()).isTrue();
+                    }
+                }
+                StringDictionary dictionary = srs.getStringDictionary(2);
+                assertThat(dictionary.size()).isEqualTo(2);
+                assertThat(dictionary.getLookups()).isEqualTo(2000);
+                assertThat(dictionary.getHits()).isEqualTo(1998);
+            }
+        }
+    }
+
+    @Test
+    public void fullDictionaryStillReturnsAllValues() throws SQLException {
+        try (ResultSet rs = stat.executeQuery(QUERY)) {
+            SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+            srs.setStringDictionary(3, true);
+            while (rs.next()) {
+                assertThat(rs.getString(3)).isEqualTo("value " + rs.getInt(1));
+            }
+            assertThat(srs.getStringDictionary(3).size()).isEqualTo(256);
+            assertThat(srs.getStringDictionary(3).isEnabled()).isTrue();
+        }
+    }
+
+    @Test
+    public void automaticFromConfig() throws SQLException {
+        String url = "jdbc:sqlite::memory:?jdbc.string_dictionary=true";
+        try (Connection auto = DriverManager.getConnection(url);
+                Statement autoStat = auto.createStatement();
+                ResultSet rs = autoStat.executeQuery(QUERY)) {
+            SQLiteResultSet srs = rs.unwrap(SQLiteResultSet.class);
+            srs.setStringDictionary(1, false);
+            while (rs.next()) {
+                assertThat(rs.getString(1)).isEqualTo(Integer.toString(rs.getInt(1)));
+                assertThat(rs.getString(3)).isEqualTo("value " + rs.getInt(1));
+                rs.getString(2);
+            }
+            assertThat(srs.getStringDictionary(1)).isNull();
+            // low cardinality: kept
+            assertThat(srs.getStringDictionary(2).isEnabled()).isTrue();
+            // distinct values: turned off after the sample
+            assertThat(srs.getStringDictionary(3).isEnabled()).isFalse();
+            assertThat(srs.getStringDictionary(3).size()).isEqualTo(0);
+        }
+    }
+}
@@ -301,6 +301,39 @@ public class TransactionTest {
                         () -> stat2.executeUpdate("insert into t values (3);")); // can't be done
     }
 
+    @Test
+    public void autoCommitWhileReading() throws SQLException {
+        stat1.executeUpdate("create table t (c1);");
+        stat1.executeUpdate("insert into t values (1);");
+        stat1.executeUpdate("insert into t values (2);");
+        ResultSet rs = conn1.createStatement().executeQuery("select * from t;");
+        assertThat(rs.next()).isTrue(); // select is open
+
+        stat1.executeUpdate("insert into t values (3);");
+        // the insert is committed although the select still reads
+        ResultSet count = stat2.executeQuery("select count(*) from t;");
+        assertThat(count.getInt(1)).isEqualTo(3);
+        count.close();
+        rs.close();
+    }
+
+    @Test
+    public void autoCommitLeavesExplicitTransaction() throws SQLException {
+        stat1.executeUpdate("create table t (c1);");
+        stat1.execute("begin;");
+        stat1.executeUpdate("insert into t values (1);");
+        assertThat(conn1.getAutoCommit()).isTrue();
+
+        ResultSet count = stat2.executeQuery("select count(*) from t;");
+        assertThat(count.getInt(1)).isEqualTo(0);
+        count.close();
+
+        stat1.execute("commit;");
+        count = stat2.executeQuery("select count(*) from t;");
+        assertThat(count.getInt(1)).isEqualTo(1);
+        count.close();
+    }
+
     //    @Test(expected= SQLException.class)
     @Test
     public void cantUpdateWhileReading() throws SQLException {
@@ -8,6 +8,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import org.sqlite.core.NativeDBHelper;
 
 public class Utils {
     public static List<String> getCompileOptions(Connection conn) throws SQLException {
@@ -22,6 +23,14 @@ public class Utils {
         return compileOptions;
     }
 
+    public static void assumeExtendedApi(Connection conn) throws SQLException {
+        assumeThat(
+                        NativeDBHelper.supportsExtendedApi(
+                                conn.unwrap(SQLiteConnection.class).getDatabase()))
+                .as("The native library has to be built from the sources of the driver")
+                .isTrue();
+    }
+
     public static void assumeJdbcExtensions(Connection conn) throws SQLException {
         assumeThat(getCompileOptions(conn))
                 .as("SQLite has to be compiled with JDBC Extensions")
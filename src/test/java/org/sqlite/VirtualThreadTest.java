@@ -0,0 +1,145 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+
+/**
+ * Runs many virtual threads against a few shared connections. Threads that wait for a connection
+ * must not pin their carrier thread, which JFR reports as <code>jdk.VirtualThreadPinned</code>
+ * events. Virtual threads and JFR are looked up reflectively, so this test is skipped before Java
+ * 21.
+ */
+public class VirtualThreadTest {
+
+    private static final int THREADS = 10_000;
+    private static final int CONNECTIONS = 4;
+
+    @Test
+    public void sharedConnectionsWithoutPinning(@TempDir File tempDir) throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(JournalMode.WAL);
+        config.setSynchronous(SynchronousMode.OFF);
+        insertWithoutPinning(tempDir, config, CONNECTIONS);
+    }
+
+    /** Group commit is meant for a shared connection, whose updates wait for their group. */
+    @Test
+    public void groupCommitWithoutPinning(@TempDir File tempDir) throws Exception {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(JournalMode.WAL);
+        config.setSynchronous(SynchronousMode.OFF);
+        config.setGroupCommitWindow(1000);
+        insertWithoutPinning(tempDir, config, 1);
+    }
+
+    private static void insertWithoutPinning(File tempDir, SQLiteConfig config, int connections)
+            throws Exception {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        String url = "jdbc:sqlite:" + new File(tempDir, "vthreads.db").getAbsolutePath();
+
+        List<Connection> pool = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            pool.add(config.createConnection(url));
+        }
+        try (Statement stat = pool.get(0).createStatement()) {
+            stat.executeUpdate("create table t (task integer)");
+        }
+
+        PinnedEvents pinned = new PinnedEvents();
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int task = i;
+                Connection conn = pool.get(task % connections);
+                results.add(executor.submit(() -> insert(conn, task)));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        List<String> events = pinned.stop(tempDir.toPath().resolve("pinned.jfr"));
+
+        try (Statement stat = pool.get(connections - 1).createStatement();
+                ResultSet rs = stat.executeQuery("select count(*), count(distinct task) from t")) {
+            assertThat(rs.getInt(1)).isEqualTo(THREADS);
+            assertThat(rs.getInt(2)).isEqualTo(THREADS);
+        }
+        for (Connection conn : pool) {
+            conn.close();
+        }
+        assertThat(events).isEmpty();
+    }
+
+    private static int insert(Connection conn, int task) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement("insert into t values (?)")) {
+            insert.setInt(1, task);
+            return insert.executeUpdate();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        Method factory;
+        try {
+            factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            factory = null;
+        }
+        assumeTrue(factory != null, "virtual threads need Java 21");
+        return (ExecutorService) factory.invoke(null);
+    }
+
+    /** A JFR recording of the <code>jdk.VirtualThreadPinned</code> events of any duration. */
+    private static class PinnedEvents {
+        private final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        private final Object recording = recordingClass.getConstructor().newInstance();
+
+        PinnedEvents() throws Exception {
+            Object settings =
+                    recordingClass
+                            .getMethod("enable", String.class)
+                            .invoke(recording, "jdk.VirtualThreadPinned");
+            Class.forName("jdk.jfr.EventSettings")
+                    .getMethod("withThreshold", Duration.class)
+                    .invoke(settings, Duration.ZERO);
+            recordingClass.getMethod("start").invoke(recording);
+        }
+
+        /** @return the recorded events, with their stack traces */
+        List<String> stop(Path file) throws Exception {
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+            recordingClass.getMethod("close").invoke(recording);
+            List<?> recorded =
+                    (List<?>)
+                            Class.forName("jdk.jfr.consumer.RecordingFile")
+                                    .getMethod("readAllEvents", Path.class)
+                                    .invoke(null, file);
+            List<String> events = new ArrayList<>();
+            for (Object event : recorded) {
+                events.add(event.toString());
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package org.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.core.WriteQueue;
+
+/** Tests the queue of writers enabled with {@link SQLiteConfig#setWriteQueue}. */
+public class WriteQueueTest {
+
+    @TempDir File tempDir;
+
+    private String url;
+    private SQLiteConnection conn;
+    private WriteQueue queue;
+
+    @BeforeEach
+    public void connect() throws Exception {
+        url = "jdbc:sqlite:" + new File(tempDir, "queue.db").getAbsolutePath();
+        conn = connect(3000);
+        Utils.assumeExtendedApi(conn);
+        queue = conn.getDatabase().getWriteQueue();
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("pragma journal_mode = wal");
+            stat.executeUpdate("create table t (id integer primary key)");
+        }
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        conn.close();
+    }
+
+    private SQLiteConnection connect(int busyTimeout) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setWriteQueue(true);
+        config.setBusyTimeout(busyTimeout);
+        return (SQLiteConnection) config.createConnection(url);
+    }
+
+    @Test
+    public void enabledFromUrl() throws Exception {
+        try (SQLiteConnection other =
+                (SQLiteConnection) DriverManager.getConnection(url + "?jdbc.write_queue=true")) {
+            assertThat(other.getDatabase().getWriteQueue()).isSameAs(queue);
+            assertThat(queue.getPath())
+                    .isEqualTo(new File(tempDir, "queue.db").getCanonicalPath());
+        }
+        try (SQLiteConnection other = (SQLiteConnection) DriverManager.getConnection(url)) {
+            assertThat(other.getDatabase().getWriteQueue()).isNull();
+        }
+        try (SQLiteConnection other =
+                (SQLiteConnection)
+                        DriverManager.getConnection("jdbc:sqlite::memory:?jdbc.write_queue=true")) {
+            assertThat(other.getDatabase().getWriteQueue()).isNull();
+        }
+        Properties props = new SQLiteConfig().toProperties();
+        assertThat(props.getProperty("jdbc.write_queue")).isEqualTo("false");
+    }
+
+    @Test
+    public void writersWaitForTransaction() throws Exception {
+        long acquired = queue.getAcquireCount();
+        conn.setAutoCommit(false);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("insert into t values (1)");
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection other = connect(10_000)) {
+            Future<Integer> insert =
+                    executor.submit(
+                            () -> {
+                                try (Statement stat = other.createStatement()) {
+                                    return stat.executeUpdate("insert into t values (2)");
+                                }
+                            });
+            while (queue.getQueueLength() == 0) {
+                Thread.sleep(1);
+            }
+            assertThat(insert.isDone()).isFalse();
+
+            conn.commit();
+            assertThat(insert.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(queue.getAcquireCount()).isEqualTo(acquired + 2);
+        assertThat(queue.getMaxWaitNanos()).isPositive();
+        assertThat(queue.getTotalWaitNanos()).isGreaterThanOrEqualTo(queue.getMaxWaitNanos());
+    }
+
+    @Test
+    public void timeout() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("insert into t values (1)");
+        }
+        try (Connection other = connect(50);
+                Statement stat = other.createStatement()) {
+            assertThatThrownBy(() -> stat.executeUpdate("insert into t values (2)"))
+                    .isInstanceOfSatisfying(
+                            SQLiteException.class,
+                            e ->
+                                    assertThat(e.getResultCode())
+                                            .isEqualTo(SQLiteErrorCode.SQLITE_BUSY));
+            assertThat(queue.getTimeoutCount()).isEqualTo(1);
+
+            conn.rollback();
+            assertThat(stat.executeUpdate("insert into t values (2)")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void readTransactionDoesNotWait() throws Exception {
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("pragma journal_mode = delete");
+        }
+        conn.setAutoCommit(false);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("insert into t values (1)");
+        }
+
+        try (Connection other = connect(10_000);
+                Statement stat = other.createStatement()) {
+            other.setAutoCommit(false);
+            try (ResultSet rs = stat.executeQuery("select count(*) from t")) {
+                assertThat(rs.getInt(1)).isEqualTo(0);
+            }
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> stat.executeUpdate("insert into t values (2)"))
+                    .isInstanceOfSatisfying(
+                            SQLiteException.class,
+                            e ->
+                                    assertThat(e.getResultCode())
+                                            .isEqualTo(SQLiteErrorCode.SQLITE_BUSY));
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+            assertThat(queue.getTimeoutCount()).isEqualTo(1);
+
+            other.rollback();
+            conn.commit();
+            assertThat(stat.executeUpdate("insert into t values (2)")).isEqualTo(1);
+            other.commit();
+        }
+    }
+
+    @Test
+    public void readersDoNotQueue() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stat = conn.createStatement()) {
+            stat.executeUpdate("insert into t values (1)");
+        }
+        try (Connection other = connect(0);
+                Statement stat = other.createStatement();
+                ResultSet rs = stat.executeQuery("select count(*) from t")) {
+            assertThat(rs.getInt(1)).isEqualTo(0);
+        }
+        assertThat(queue.getTimeoutCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void immediateTransaction() throws SQLException {
+        try (Connection immediate =
+                        DriverManager.getConnection(
+                                url + "?jdbc.write_queue=true&transaction_mode=IMMEDIATE");
+                Connection other = connect(0);
+                Statement stat = other.createStatement()) {
+            immediate.setAutoCommit(false);
+            try (Statement read = immediate.createStatement();
+                    ResultSet rs = read.executeQuery("select count(*) from t")) {
+                assertThat(rs.getInt(1)).isEqualTo(0);
+            }
+            assertThatThrownBy(() -> stat.executeUpdate("insert into t values (1)"))
+                    .isInstanceOf(SQLiteException.class);
+
+            immediate.commit();
+            immediate.setAutoCommit(true);
+            assertThat(stat.executeUpdate("insert into t values (1)")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void beginImmediateStatement() throws Exception {
+        try (Statement stat = conn.createStatement()) {
+            stat.execute("BEGIN IMMEDIATE");
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection other = connect(10_000)) {
+            Future<Integer> insert =
+                    executor.submit(
+                            () -> {
+                                try (Statement stat = other.createStatement()) {
+                                    stat.execute("  Begin Exclusive;");
+                                    int changes = stat.executeUpdate("insert into t values (2)");
+                                    stat.execute("commit");
+                                    return changes;
+                                }
+                            });
+            // waits for the permit, not for the write lock in the busy handler
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.getQueueLength() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(queue.getQueueLength()).isEqualTo(1);
+
+            try (Statement stat = conn.createStatement()) {
+                assertThat(stat.executeUpdate("insert into t values (1)")).isEqualTo(1);
+                stat.execute("COMMIT");
+            }
+            assertThat(insert.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void closeGivesPermitBack() throws SQLException {
+        try (Connection other = connect(0);
+                Statement stat = other.createStatement()) {
+            conn.setAutoCommit(false);
+            try (Statement insert = conn.createStatement()) {
+                insert.executeUpdate("insert into t values (1)");
+            }
+            conn.close();
+            assertThat(stat.executeUpdate("insert into t values (2)")).isEqualTo(1);
+        }
+    }
+}
@@ -50,4 +50,14 @@ class CodingRulesTest {
                                                                             .assignableTo(
                                                                                     DriverManager
                                                                                             .class))))));
+
+    /** A virtual thread waiting on a monitor pins its carrier thread, see VirtualThreadTest. */
+    @ArchTest
+    private final ArchRule no_monitor_waits =
+            noClasses()
+                    .should(
+                            ArchConditions.callMethodWhere(
+                                    JavaCall.Predicates.target(
+                                            HasName.Predicates.nameMatching(
+                                                    "wait|notify|notifyAll|timedWait"))));
 }
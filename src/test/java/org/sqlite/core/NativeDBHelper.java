@@ -41,4 +41,14 @@ public class NativeDBHelper {
     public static long getUpdateListener(DB nativeDB) {
         return ((NativeDB) nativeDB).getUpdateListener();
     }
+
+    /**
+     * Tells whether the backend implements the functions that an older native library lacks
+     *
+     * @param db the db object
+     * @return true if the functions are implemented
+     */
+    public static boolean supportsExtendedApi(DB db) {
+        return db.supportsExtendedApi();
+    }
 }